@@ -0,0 +1,395 @@
+package edu.udo.cs.swtsf.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.udo.cs.swtsf.core.Entity;
+import edu.udo.cs.swtsf.core.Game;
+import edu.udo.cs.swtsf.core.GameObserver;
+import edu.udo.cs.swtsf.core.player.BasicBullet;
+import edu.udo.cs.swtsf.core.player.Player;
+import exercise.monsters.MonsterEasy;
+import exercise.starfighter.Explosion;
+
+/**
+ * <p>Measures the throughput of {@link Game#update()} and of each of its phases on
+ * a headless {@link Game}. The Game is filled with {@link MonsterEasy monsters},
+ * {@link BasicBullet bullets} flying around and {@link Explosion explosions} which
+ * are spawned in every update cycle.</p>
+ *
+ * <p>For each combination of parameters a number of forks is run. Each fork is a new
+ * JVM which creates a new Game, performs some warmup update cycles and then measures
+ * a number of update cycles. This way the JIT compiler and the garbage collector
+ * start from scratch for each fork. With {@code --forks 0} a single run is made
+ * within the JVM of the benchmark itself, which is only meant for quick checks. The
+ * time of each phase is measured separately within the same update cycle:</p>
+ * <ul>
+ * <li>{@code scripts}		{@link Game#updateScripts()}</li>
+ * <li>{@code collisions}	{@link Game#updateCollisions()}</li>
+ * <li>{@code entities}	{@link Game#updateEntities()}</li>
+ * <li>{@code update}		all phases together</li>
+ * </ul>
+ *
+ * <p>The results are printed to the console and written as JSON to the file given
+ * with {@code --out} (default {@value #DEFAULT_OUTPUT_FILE}).</p>
+ *
+ * <p>Usage:
+ * <pre>
+ * GameUpdateBenchmark [--out file] [--monsters 100,1000] [--bullets 0,500]
+ *                     [--explosions 0,10] [--forks 3] [--warmup 1000] [--ticks 200]
+ *                     [--parallelism 4]
+ * </pre>
+ * With a parallelism greater than 0 the Game updates its Entities in parallel using
+ * a {@link ForkJoinPool} with the given parallelism.</p>
+ */
+public class GameUpdateBenchmark {
+
+	public static final String DEFAULT_OUTPUT_FILE = "bench-results/game-update.json";
+	/**
+	 * Monsters and bullets are placed within a square of this size around the player.
+	 */
+	public static final double ARENA_SIZE = 4000;
+
+	private static final String[] PHASES = {"update", "scripts", "collisions", "entities"};
+	/**
+	 * Each fork prints one line starting with this prefix for each phase.
+	 * @see #runFork(String[])
+	 */
+	private static final String FORK_RESULT_PREFIX = "FORK-RESULT ";
+
+	private String outputFile = DEFAULT_OUTPUT_FILE;
+	private int[] monsterCounts = {100, 1000, 5000};
+	private int[] bulletCounts = {0, 500};
+	private int[] explosionCounts = {0, 10};
+	private int forks = 3;
+	private int warmupTicks = 1000;
+	private int measuredTicks = 200;
+	private int parallelism = 0;
+	private ForkJoinPool pool;
+
+	public static void main(String[] args) throws IOException {
+		GameUpdateBenchmark benchmark = new GameUpdateBenchmark();
+		if (args.length > 0 && args[0].equals("--fork")) {
+			benchmark.runFork(args);
+			return;
+		}
+		benchmark.parseArguments(args, 0);
+		benchmark.runAll();
+	}
+
+	private void parseArguments(String[] args, int first) {
+		for (int i = first; i + 1 < args.length; i += 2) {
+			String value = args[i + 1];
+			switch (args[i]) {
+				case "--out": outputFile = value; break;
+				case "--monsters": monsterCounts = parseInts(value); break;
+				case "--bullets": bulletCounts = parseInts(value); break;
+				case "--explosions": explosionCounts = parseInts(value); break;
+				case "--forks": forks = Integer.parseInt(value); break;
+				case "--warmup": warmupTicks = Integer.parseInt(value); break;
+				case "--ticks": measuredTicks = Integer.parseInt(value); break;
+				case "--parallelism": parallelism = Integer.parseInt(value); break;
+				default: throw new IllegalArgumentException("Unknown option: "+args[i]);
+			}
+		}
+	}
+
+	private static int[] parseInts(String list) {
+		String[] parts = list.split(",");
+		int[] result = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			result[i] = Integer.parseInt(parts[i].trim());
+		}
+		return result;
+	}
+
+	private void runAll() throws IOException {
+		List<Result> results = new ArrayList<>();
+		if (parallelism > 0) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		if (forks == 0) {
+			System.out.println("Single run within this JVM, results are influenced by earlier runs");
+		} else {
+			System.out.println(forks+" forked JVMs per combination of parameters");
+		}
+		System.out.println("monsters;bullets;explosions;phase;us/op;error;ops/s");
+		for (int monsters : monsterCounts) {
+			for (int bullets : bulletCounts) {
+				for (int explosions : explosionCounts) {
+					Result[] phaseResults = run(monsters, bullets, explosions);
+					for (Result result : phaseResults) {
+						System.out.println(String.format("%d;%d;%d;%s;%.3f;%.3f;%.1f",
+								monsters, bullets, explosions, result.phase,
+								result.getMeanNanos() / 1000.0,
+								result.getErrorNanos() / 1000.0,
+								1e9 / result.getMeanNanos()));
+						results.add(result);
+					}
+				}
+			}
+		}
+		writeJson(results);
+	}
+
+	private Result[] run(int monsters, int bullets, int explosions) throws IOException {
+		Result[] results = new Result[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			results[i] = new Result(PHASES[i], monsters, bullets, explosions);
+		}
+		if (forks == 0) {
+			measure(0, monsters, bullets, explosions, results);
+		}
+		for (int fork = 0; fork < forks; fork++) {
+			runForkedJvm(fork, monsters, bullets, explosions, results);
+		}
+		return results;
+	}
+
+	/**
+	 * Starts a new JVM with the same class path and JVM arguments which runs a single
+	 * fork and adds its measurements to results.
+	 */
+	private void runForkedJvm(int fork, int monsters, int bullets, int explosions, 
+			Result[] results) throws IOException 
+	{
+		List<String> command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(GameUpdateBenchmark.class.getName());
+		command.add("--fork");
+		command.add(fork+","+monsters+","+bullets+","+explosions);
+		command.add("--warmup");
+		command.add(Integer.toString(warmupTicks));
+		command.add("--ticks");
+		command.add(Integer.toString(measuredTicks));
+		command.add("--parallelism");
+		command.add(Integer.toString(parallelism));
+		Process process = new ProcessBuilder(command)
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		int phasesRead = 0;
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				process.getInputStream(), StandardCharsets.UTF_8)))
+		{
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith(FORK_RESULT_PREFIX)) {
+					String[] parts = line.substring(FORK_RESULT_PREFIX.length()).split(" ");
+					results[Integer.parseInt(parts[0])].addAll(Long.parseLong(parts[1]), 
+							Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+					phasesRead++;
+				}
+			}
+		}
+		try {
+			int exitCode = process.waitFor();
+			if (exitCode != 0 || phasesRead != PHASES.length) {
+				throw new IOException("Fork "+fork+" failed with exit code "+exitCode);
+			}
+		} catch (InterruptedException e) {
+			process.destroy();
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for fork "+fork, e);
+		}
+	}
+
+	/**
+	 * Runs a single fork within this JVM and prints its measurements for the JVM which
+	 * started it. The arguments are those created by 
+	 * {@link #runForkedJvm(int, int, int, int, Result[])}.
+	 */
+	private void runFork(String[] args) {
+		int[] params = parseInts(args[1]);
+		parseArguments(args, 2);
+		if (parallelism > 0) {
+			pool = new ForkJoinPool(parallelism);
+		}
+		Result[] results = new Result[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			results[i] = new Result(PHASES[i], params[1], params[2], params[3]);
+		}
+		measure(params[0], params[1], params[2], params[3], results);
+		for (int i = 0; i < PHASES.length; i++) {
+			Result result = results[i];
+			System.out.println(FORK_RESULT_PREFIX+i+" "+result.count+" "
+					+result.sum+" "+result.sumOfSquares);
+		}
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	private void measure(int fork, int monsters, int bullets, int explosions, Result[] results) {
+		Game game = createGame(fork, monsters, bullets, explosions);
+		game.setParallelUpdatePool(pool);
+		for (int tick = 0; tick < warmupTicks; tick++) {
+			game.update();
+		}
+		for (int tick = 0; tick < measuredTicks; tick++) {
+			long start = System.nanoTime();
+			game.updateScripts();
+			long afterScripts = System.nanoTime();
+			game.updateCollisions();
+			long afterCollisions = System.nanoTime();
+			game.updateEntities();
+			game.finishUpdate();
+			long end = System.nanoTime();
+
+			results[0].add(end - start);
+			results[1].add(afterScripts - start);
+			results[2].add(afterCollisions - afterScripts);
+			results[3].add(end - afterCollisions);
+		}
+	}
+
+	/**
+	 * Creates a new Game filled with the given number of Entities. The content of
+	 * the Game only depends on the arguments.
+	 */
+	private static Game createGame(long seed, int monsters, int bullets, int explosionsPerTick) {
+		Random random = new Random(seed);
+		Game game = new Game(Player::new);
+		// The view would be notified of each added and removed Entity
+		int[] events = new int[1];
+		game.addObserver(new GameObserver() {
+			public void onEntityAdded(Game game, Entity entity) {
+				events[0]++;
+			}
+			public void onEntityRemoved(Game game, Entity entity) {
+				events[0]--;
+			}
+		});
+		Player player = game.getPlayer();
+		for (int i = 0; i < monsters; i++) {
+			MonsterEasy monster = new MonsterEasy();
+			placeRandomly(random, monster);
+			game.addEntity(monster);
+		}
+		for (int i = 0; i < bullets; i++) {
+			BasicBullet bullet = new BasicBullet(player);
+			placeRandomly(random, bullet);
+			bullet.setSpeedDirectional(random.nextDouble() * 360, 10);
+			// Keep the number of bullets constant
+			bullet.setLifeTimer(-1);
+			game.addEntity(bullet);
+		}
+		if (explosionsPerTick > 0) {
+			game.addScript(g -> {
+				for (int i = 0; i < explosionsPerTick; i++) {
+					Explosion explosion = new Explosion(64);
+					placeRandomly(random, explosion);
+					g.addEntity(explosion);
+				}
+			});
+		}
+		return game;
+	}
+
+	private static void placeRandomly(Random random, Entity entity) {
+		entity.setPosition(
+				(random.nextDouble() - 0.5) * ARENA_SIZE,
+				(random.nextDouble() - 0.5) * ARENA_SIZE);
+	}
+
+	private void writeJson(List<Result> results) throws IOException {
+		Path path = Paths.get(outputFile);
+		if (path.getParent() != null) {
+			Files.createDirectories(path.getParent());
+		}
+		try (PrintStream out = new PrintStream(Files.newOutputStream(path), false,
+				StandardCharsets.UTF_8.name()))
+		{
+			out.println("[");
+			for (int i = 0; i < results.size(); i++) {
+				Result result = results.get(i);
+				out.print("  {");
+				out.print("\"benchmark\": \"GameUpdateBenchmark."+result.phase+"\", ");
+				out.print("\"mode\": \"avgt\", ");
+				out.print("\"forks\": "+forks+", ");
+				out.print("\"jvm\": \""+(forks == 0 ? "single" : "forked")+"\", ");
+				out.print("\"threads\": "+Math.max(1, parallelism)+", ");
+				out.print("\"warmupIterations\": "+warmupTicks+", ");
+				out.print("\"measurementIterations\": "+measuredTicks+", ");
+				out.print("\"params\": {\"monsters\": \""+result.monsters+"\", "
+						+ "\"bullets\": \""+result.bullets+"\", "
+						+ "\"explosionsPerTick\": \""+result.explosions+"\"}, ");
+				out.print("\"primaryMetric\": {");
+				out.print("\"score\": "+format(result.getMeanNanos() / 1000.0)+", ");
+				out.print("\"scoreError\": "+format(result.getErrorNanos() / 1000.0)+", ");
+				out.print("\"scoreUnit\": \"us/op\"}");
+				out.print("}");
+				out.println(i < results.size() - 1 ? "," : "");
+			}
+			out.println("]");
+		}
+		System.out.println("Results written to "+path.toAbsolutePath());
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.4f", value);
+	}
+
+	/**
+	 * Collects the measured times of a single phase for one combination of parameters.
+	 */
+	private static class Result {
+		final String phase;
+		final int monsters;
+		final int bullets;
+		final int explosions;
+		long count;
+		double sum;
+		double sumOfSquares;
+
+		Result(String phase, int monsters, int bullets, int explosions) {
+			this.phase = phase;
+			this.monsters = monsters;
+			this.bullets = bullets;
+			this.explosions = explosions;
+		}
+
+		void add(long nanos) {
+			count++;
+			sum += nanos;
+			sumOfSquares += nanos * (double) nanos;
+		}
+
+		void addAll(long otherCount, double otherSum, double otherSumOfSquares) {
+			count += otherCount;
+			sum += otherSum;
+			sumOfSquares += otherSumOfSquares;
+		}
+
+		double getMeanNanos() {
+			return count == 0 ? 0 : sum / count;
+		}
+
+		/**
+		 * Half of the width of the 99.9% confidence interval of the mean.
+		 */
+		double getErrorNanos() {
+			if (count < 2) {
+				return 0;
+			}
+			double mean = getMeanNanos();
+			double variance = (sumOfSquares - count * mean * mean) / (count - 1);
+			return 3.29 * Math.sqrt(Math.max(0, variance) / count);
+		}
+	}
+
+}
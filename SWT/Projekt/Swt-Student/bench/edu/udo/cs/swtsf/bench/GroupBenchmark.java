@@ -0,0 +1,92 @@
+package edu.udo.cs.swtsf.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.function.Supplier;
+
+import edu.udo.cs.swtsf.util.BufferedGroup;
+import edu.udo.cs.swtsf.util.Group;
+import edu.udo.cs.swtsf.util.IndexedGroup;
+
+/**
+ * <p>Compares the {@link Group} implementations {@link BufferedGroup} and
+ * {@link IndexedGroup}. In each round every element is removed and added again,
+ * once during a {@link Group#forEach(java.util.function.Consumer) iteration} and
+ * once outside of any iteration.</p>
+ *
+ * <p>Each group is warmed up for one second and then measured for one second.
+ * Prints the time and the number of bytes allocated per round. The allocated
+ * bytes are measured with {@link com.sun.management.ThreadMXBean} if the JVM
+ * supports it.</p>
+ *
+ * <p>Usage: {@code GroupBenchmark [sizes...]}. By default the benchmark is run
+ * with groups of 10, 100 and 1000 elements.</p>
+ */
+public class GroupBenchmark {
+
+	public static final long WARMUP_NANOS = 1_000_000_000L;
+	public static final long MEASURED_NANOS = 1_000_000_000L;
+
+	public static void main(String[] args) {
+		int[] sizes = {10, 100, 1000};
+		if (args.length > 0) {
+			sizes = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				sizes[i] = Integer.parseInt(args[i]);
+			}
+		}
+		System.out.println("group;size;us/round;bytes/round");
+		for (int size : sizes) {
+			run("BufferedGroup", BufferedGroup::new, size);
+			run("IndexedGroup", IndexedGroup::new, size);
+		}
+	}
+
+	private static void run(String name, Supplier<Group<Object>> factory, int size) {
+		Group<Object> group = factory.get();
+		Object[] elements = new Object[size];
+		for (int i = 0; i < size; i++) {
+			elements[i] = new Object();
+			group.add(elements[i]);
+		}
+		long start = System.nanoTime();
+		while (System.nanoTime() - start < WARMUP_NANOS) {
+			round(group, elements);
+		}
+		long bytesBefore = getAllocatedBytes();
+		start = System.nanoTime();
+		long rounds = 0;
+		long nanos;
+		do {
+			round(group, elements);
+			rounds++;
+			nanos = System.nanoTime() - start;
+		} while (nanos < MEASURED_NANOS);
+		long bytes = getAllocatedBytes() - bytesBefore;
+		if (group.getSize() != size) {
+			throw new IllegalStateException("size="+group.getSize());
+		}
+		System.out.println(String.format("%s;%d;%.3f;%d", name, size,
+				nanos / 1000.0 / rounds, bytes / rounds));
+	}
+
+	private static void round(Group<Object> group, Object[] elements) {
+		group.forEach(element -> {
+			group.remove(element);
+			group.add(element);
+		});
+		for (Object element : elements) {
+			group.remove(element);
+			group.add(element);
+		}
+	}
+
+	private static long getAllocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+		}
+		return 0;
+	}
+
+}
@@ -0,0 +1,111 @@
+package edu.udo.cs.swtsf.bench;
+
+import java.util.Random;
+import java.util.Set;
+
+import edu.udo.cs.swtsf.core.Entity;
+import edu.udo.cs.swtsf.core.EntityStream;
+import edu.udo.cs.swtsf.core.Game;
+
+/**
+ * <p>Compares the radius queries of {@link Game#getAllEntities()} which are answered
+ * by the spatial index of the {@link Game} with a linear scan over all
+ * {@link Entity Entities} using a plain {@link EntityStream#filter(java.util.function.Predicate)
+ * filter}.</p>
+ *
+ * <p>Before measuring, the results of both query paths are compared with each other.
+ * The benchmark fails if they are not equal.</p>
+ *
+ * <p>Usage: {@code RadiusQueryBenchmark [entityCounts...]}. By default the benchmark
+ * is run with 1000, 10000 and 100000 Entities.</p>
+ */
+public class RadiusQueryBenchmark {
+
+	public static final double WORLD_SIZE = 8000;
+	public static final double QUERY_RADIUS = 120;
+	public static final int QUERIES_PER_ROUND = 200;
+	public static final int WARMUP_ROUNDS = 5;
+	public static final int MEASURED_ROUNDS = 10;
+
+	public static void main(String[] args) {
+		int[] entityCounts = {1000, 10000, 100000};
+		if (args.length > 0) {
+			entityCounts = new int[args.length];
+			for (int i = 0; i < args.length; i++) {
+				entityCounts[i] = Integer.parseInt(args[i]);
+			}
+		}
+		System.out.println("entities;indexed [us/query];linear [us/query];speedup");
+		for (int count : entityCounts) {
+			run(count);
+		}
+	}
+
+	private static void run(int entityCount) {
+		Random random = new Random(entityCount);
+		Game game = new Game(null);
+		for (int i = 0; i < entityCount; i++) {
+			Entity entity = new Entity() {};
+			entity.setPosition(random.nextDouble() * WORLD_SIZE, random.nextDouble() * WORLD_SIZE);
+			game.addEntity(entity);
+		}
+		double[] queryX = new double[QUERIES_PER_ROUND];
+		double[] queryY = new double[QUERIES_PER_ROUND];
+		for (int i = 0; i < QUERIES_PER_ROUND; i++) {
+			queryX[i] = random.nextDouble() * WORLD_SIZE;
+			queryY[i] = random.nextDouble() * WORLD_SIZE;
+		}
+
+		for (int i = 0; i < QUERIES_PER_ROUND; i++) {
+			Set<Entity> indexed = indexedQuery(game, queryX[i], queryY[i]).createSet();
+			Set<Entity> linear = linearQuery(game, queryX[i], queryY[i]).createSet();
+			if (!indexed.equals(linear)) {
+				throw new IllegalStateException("indexed="+indexed+"; linear="+linear);
+			}
+		}
+
+		long blackhole = 0;
+		for (int i = 0; i < WARMUP_ROUNDS; i++) {
+			blackhole += measure(game, queryX, queryY, true);
+			blackhole += measure(game, queryX, queryY, false);
+		}
+		long indexedNanos = 0;
+		long linearNanos = 0;
+		for (int i = 0; i < MEASURED_ROUNDS; i++) {
+			long start = System.nanoTime();
+			blackhole += measure(game, queryX, queryY, true);
+			indexedNanos += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			blackhole += measure(game, queryX, queryY, false);
+			linearNanos += System.nanoTime() - start;
+		}
+		double queries = MEASURED_ROUNDS * QUERIES_PER_ROUND;
+		double indexedMicros = indexedNanos / queries / 1000.0;
+		double linearMicros = linearNanos / queries / 1000.0;
+		System.out.println(String.format("%d;%.3f;%.3f;%.1fx (%d)",
+				entityCount, indexedMicros, linearMicros,
+				linearMicros / indexedMicros, blackhole));
+	}
+
+	private static long measure(Game game, double[] queryX, double[] queryY, boolean indexed) {
+		long found = 0;
+		for (int i = 0; i < queryX.length; i++) {
+			if (indexed) {
+				found += indexedQuery(game, queryX[i], queryY[i]).count();
+			} else {
+				found += linearQuery(game, queryX[i], queryY[i]).count();
+			}
+		}
+		return found;
+	}
+
+	private static EntityStream<Entity> indexedQuery(Game game, double x, double y) {
+		return game.getAllEntities().withinRadiusOfPoint(x, y, QUERY_RADIUS);
+	}
+
+	private static EntityStream<Entity> linearQuery(Game game, double x, double y) {
+		return game.getAllEntities().filter(e -> e.getDistanceTo(x, y) <= QUERY_RADIUS);
+	}
+
+}
@@ -120,7 +120,7 @@ public abstract class Bullet extends Entity {
 	 * @see #addBehaviorStrategy(EntityBehaviorStrategy)
 	 * @see #removeBehaviorStrategy(EntityBehaviorStrategy)
 	 */
-	public static final EntityBehaviorStrategy BULLET_LIFE_TIMER_STRAT = 
+	public static final ParallelEntityBehaviorStrategy BULLET_LIFE_TIMER_STRAT = 
 			(self) -> 
 	{
 		Bullet bullet = (Bullet) self;
@@ -143,8 +143,9 @@ public abstract class Bullet extends Entity {
 	 * The {@link Entity} from which this Bullet originated. This can be null.<br>
 	 * The {@link #BULLET_HIT_ON_COLLISION_STRAT} will generally not hit the source of the Bullet.<br>
 	 * @see #Bullet(Entity)
+	 * @see #initialize(Entity)
 	 */
-	private final Entity source;
+	private Entity source;
 	private Predicate<Target> targetFilter;
 	/**
 	 * The damage dealt by the Bullet on impact. This is only meaningful if the Bullet has the 
@@ -183,11 +184,48 @@ public abstract class Bullet extends Entity {
 		if (sourceEntity == null) {
 			throw new IllegalArgumentException("sourceEntity == null");
 		}
-		source = sourceEntity;
+		addDefaults();
+		initialize(sourceEntity);
+	}
+	
+	/**
+	 * <p>Creates a new Bullet with all default strategies but without a source Entity. This 
+	 * is meant for Bullets which are kept in an {@link EntityPool}. The Bullet must be 
+	 * {@link #initialize(Entity) initialized} before it is added to a {@link Game}.</p>
+	 * @see #initialize(Entity)
+	 */
+	protected Bullet() {
+		addDefaults();
+	}
+	
+	/*
+	 * Sets the collision layers and adds the default strategies.
+	 */
+	private void addDefaults() {
+		// Only Targets can be hit. The Player is a Target too
+		setCollisionLayer(COLLISION_LAYER_BULLET);
+		setCollisionMask(createCollisionMask(COLLISION_LAYER_TARGET, COLLISION_LAYER_PLAYER));
 		// Add the default Strategies
 		addCollisionStrategy(BULLET_HIT_ON_COLLISION_STRAT);
 		addBehaviorStrategy(BULLET_LIFE_TIMER_STRAT);
 		addHitStrategy(BULLET_DAMAGE_ON_HIT_STRAT);
+	}
+	
+	/**
+	 * <p>Sets the source of this Bullet. The Bullet will be placed at the position of the 
+	 * source Entity offset by the size of the source. The Bullet will start with the same 
+	 * rotation and velocity as the source.</p>
+	 * <p>This is called by the {@link #Bullet(Entity) constructor}. A pooled Bullet is 
+	 * initialized again each time it is taken from its {@link EntityPool}.</p>
+	 * @param sourceEntity					a non-null Entity which will be the source of the Bullet
+	 * @throws IllegalArgumentException		if sourceEntity is null
+	 * @see #getSourceEntity()
+	 */
+	protected void initialize(Entity sourceEntity) {
+		if (sourceEntity == null) {
+			throw new IllegalArgumentException("sourceEntity == null");
+		}
+		source = sourceEntity;
 		
 		/* 
 		 * Calculate the position of the Bullet based on the position, 
@@ -206,10 +244,63 @@ public abstract class Bullet extends Entity {
 		setRotation(source);
 	}
 	
+	/**
+	 * <p>Restores all fields of this Bullet to their initial values, removes its source 
+	 * and adds the default strategies again.</p>
+	 * @see Entity#reset()
+	 */
+	protected void reset() {
+		super.reset();
+		hitStrats.clear();
+		source = null;
+		targetFilter = null;
+		damage = 1;
+		lifeTimer = -1;
+		armed = true;
+		onlyHitAlive = true;
+		addDefaults();
+	}
+	
+	/**
+	 * <p>Writes the damage, life timer, armed state and source of this Bullet as well 
+	 * as its {@link BulletHitStrategy hit strategies} in addition to the state of an 
+	 * {@link Entity}. The {@link #getTargetFilter() target filter} is not written. It 
+	 * must be set by the factory which creates the Bullet when a snapshot is restored.</p>
+	 * @see Entity#writeSnapshot(SnapshotEncoder)
+	 */
+	protected void writeSnapshot(SnapshotEncoder out) {
+		super.writeSnapshot(out);
+		out.putInt(damage);
+		out.putInt(lifeTimer);
+		out.putBoolean(armed);
+		out.putBoolean(onlyHitAlive);
+		out.putEntity(source);
+		out.putGroup(hitStrats);
+	}
+	
+	/**
+	 * <p>Reads the state written by {@link #writeSnapshot(SnapshotEncoder)}. If the 
+	 * source of the Bullet is no longer part of the game the source given by the 
+	 * factory is kept.</p>
+	 * @see Entity#readSnapshot(SnapshotDecoder)
+	 */
+	protected void readSnapshot(SnapshotDecoder in) {
+		super.readSnapshot(in);
+		damage = in.getInt();
+		lifeTimer = in.getInt();
+		armed = in.getBoolean();
+		onlyHitAlive = in.getBoolean();
+		Entity sourceEntity = in.getEntity();
+		if (sourceEntity != null) {
+			source = sourceEntity;
+		}
+		in.getGroup(hitStrats, BulletHitStrategy.class);
+	}
+	
 	/**
 	 * <p>Returns the {@link Entity} which acts as the source of this {@link Bullet}.
 	 * The source will generally not be hit by the Bullet.</p>
-	 * <p>The returned value is never null.</p>
+	 * <p>The returned value is never null once the Bullet was initialized.</p>
 	 * @return		a non-null Entity
 	 * @see #Bullet(Entity)
 	 */
@@ -0,0 +1,72 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.function.BiConsumer;
+
+import edu.udo.cs.swtsf.util.Group;
+
+/**
+ * <p>A {@link CollisionBroadPhase} is used by the {@link Game} to find all pairs of
+ * {@link Entity Entities} which might be colliding in the current update cycle.
+ * Each pair found by the broad phase is then checked precisely with
+ * {@link Game#areOverlapping(Entity, Entity)}.</p>
+ *
+ * <p>A broad phase may skip pairs of Entities which can not possibly overlap, but
+ * it must never skip a pair which does. All pairs which are passed on must be
+ * passed on in the same relative order in which {@link Group#forEachTuple(BiConsumer)}
+ * would have passed them on. Each pair must be passed on at most once.</p>
+ *
+ * <p>Pairs which can not interact because of their {@link Entity#getCollisionLayer()
+ * collision layers} are skipped with the help of a {@link CollisionMatrix}.</p>
+ *
+ * <p>This interface is an implementation of the strategy pattern.</p>
+ *
+ * @see Game#setCollisionBroadPhase(CollisionBroadPhase)
+ * @see SpatialHashBroadPhase
+ * @see #BRUTE_FORCE
+ */
+@FunctionalInterface
+public interface CollisionBroadPhase {
+
+	/**
+	 * <p>Passes every pair of {@link Entity Entities} from the group on to the
+	 * action. This tests all (N*N-N)/2 pairs and is mainly useful to compare
+	 * other broad phase implementations against.</p>
+	 * @see Group#forEachTuple(BiConsumer)
+	 */
+	public static final CollisionBroadPhase BRUTE_FORCE =
+			(entities, action) -> entities.forEachTuple(action);
+
+	/**
+	 * <p>Calls the {@link BiConsumer#accept(Object, Object)} method of action for
+	 * each pair of {@link Entity Entities} from entities which might be overlapping.</p>
+	 * <p>The action may add Entities to or remove Entities from the group. Added
+	 * Entities do not need to be considered for the ongoing pass.</p>
+	 * @param entities		a non-null group of all Entities in the Game
+	 * @param action		a non-null BiConsumer which is given all candidate pairs
+	 */
+	public void forEachCandidatePair(Group<Entity> entities,
+			BiConsumer<Entity, Entity> action);
+
+	/**
+	 * <p>Like {@link #forEachCandidatePair(Group, BiConsumer)} but only passes on pairs
+	 * which are {@link CollisionMatrix#isRelevant(Entity, Entity) relevant} according
+	 * to the given {@link CollisionMatrix}. Implementations should use the matrix to
+	 * leave out Entities which can not collide with anything before looking for pairs.</p>
+	 * <p>The default implementation filters the pairs found by
+	 * {@link #forEachCandidatePair(Group, BiConsumer)}.</p>
+	 * @param entities		a non-null group of all Entities in the Game
+	 * @param matrix		a non-null CollisionMatrix
+	 * @param action		a non-null BiConsumer which is given all relevant candidate pairs
+	 * @see Game#getCollisionMatrix()
+	 */
+	public default void forEachCandidatePair(Group<Entity> entities,
+			CollisionMatrix matrix, BiConsumer<Entity, Entity> action)
+	{
+		forEachCandidatePair(entities, (a, b) -> {
+			if (matrix.isRelevant(a, b)) {
+				action.accept(a, b);
+			}
+		});
+	}
+
+}
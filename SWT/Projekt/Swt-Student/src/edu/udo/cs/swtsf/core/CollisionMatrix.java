@@ -0,0 +1,107 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.Arrays;
+
+/**
+ * <p>Decides which pairs of {@link Entity Entities} need to be checked for collisions.
+ * Each Entity belongs to one {@link Entity#getCollisionLayer() collision layer} and
+ * has a {@link Entity#getCollisionMask() collision mask} of the layers it wants to
+ * collide with. The CollisionMatrix of the {@link Game} additionally decides for each
+ * pair of layers whether Entities of these layers may collide at all. By default all
+ * layers may collide with each other.</p>
+ *
+ * <p>A pair of Entities is {@link #isRelevant(Entity, Entity) relevant} if the matrix
+ * allows their layers to collide and at least one of them has
+ * {@link Entity#hasCollisionStrategies() collision strategies} and a mask containing
+ * the layer of the other. When a relevant pair is overlapping both Entities are
+ * notified of the collision.</p>
+ *
+ * <p>The matrix is always symmetric.</p>
+ *
+ * @see Game#getCollisionMatrix()
+ * @see Entity#setCollisionLayer(int)
+ * @see Entity#setCollisionMask(int)
+ * @see CollisionBroadPhase
+ */
+public class CollisionMatrix {
+
+	/**
+	 * For each layer the mask of all layers it may collide with.
+	 */
+	private final int[] rows = new int[Entity.COLLISION_LAYER_COUNT];
+
+	/**
+	 * Creates a new CollisionMatrix which allows all layers to collide with each other.
+	 */
+	public CollisionMatrix() {
+		Arrays.fill(rows, Entity.COLLISION_MASK_ALL);
+	}
+
+	/**
+	 * <p>Sets whether {@link Entity Entities} of the two layers may collide with each
+	 * other. The order of the layers does not matter.</p>
+	 * @param layerA						a layer from 0 (inclusive) to {@link Entity#COLLISION_LAYER_COUNT} (exclusive)
+	 * @param layerB						a layer from 0 (inclusive) to {@link Entity#COLLISION_LAYER_COUNT} (exclusive)
+	 * @param value							true if the layers may collide
+	 * @throws IllegalArgumentException		if either layer is out of bounds
+	 * @see #canCollide(int, int)
+	 */
+	public void setCanCollide(int layerA, int layerB, boolean value) {
+		Entity.checkCollisionLayer(layerA);
+		Entity.checkCollisionLayer(layerB);
+		if (value) {
+			rows[layerA] |= 1 << layerB;
+			rows[layerB] |= 1 << layerA;
+		} else {
+			rows[layerA] &= ~(1 << layerB);
+			rows[layerB] &= ~(1 << layerA);
+		}
+	}
+
+	/**
+	 * <p>Returns true if {@link Entity Entities} of the two layers may collide with
+	 * each other.</p>
+	 * @param layerA						a layer from 0 (inclusive) to {@link Entity#COLLISION_LAYER_COUNT} (exclusive)
+	 * @param layerB						a layer from 0 (inclusive) to {@link Entity#COLLISION_LAYER_COUNT} (exclusive)
+	 * @return								true if the layers may collide; otherwise false
+	 * @throws IllegalArgumentException		if either layer is out of bounds
+	 * @see #setCanCollide(int, int, boolean)
+	 */
+	public boolean canCollide(int layerA, int layerB) {
+		Entity.checkCollisionLayer(layerA);
+		Entity.checkCollisionLayer(layerB);
+		return (rows[layerA] & (1 << layerB)) != 0;
+	}
+
+	/**
+	 * <p>Returns the mask of all layers the given {@link Entity} wants to be notified
+	 * about. This is the collision mask of the Entity restricted to the layers which
+	 * may collide with its own layer. Entities without
+	 * {@link Entity#hasCollisionStrategies() collision strategies} do not want to be
+	 * notified about anything.</p>
+	 * @param entity		a non-null Entity
+	 * @return				a bit mask of layers
+	 * @see #isRelevant(Entity, Entity)
+	 */
+	public int getEffectiveMask(Entity entity) {
+		if (!entity.hasCollisionStrategies()) {
+			return Entity.COLLISION_MASK_NONE;
+		}
+		return entity.getCollisionMask() & rows[entity.getCollisionLayer()];
+	}
+
+	/**
+	 * <p>Returns true if the two {@link Entity Entities} need to be checked for a
+	 * collision. This is the case if either of them wants to be notified about the
+	 * layer of the other.</p>
+	 * @param a		a non-null Entity
+	 * @param b		a non-null Entity
+	 * @return		true if the pair is relevant; otherwise false
+	 * @see #getEffectiveMask(Entity)
+	 */
+	public boolean isRelevant(Entity a, Entity b) {
+		return (getEffectiveMask(a) & (1 << b.getCollisionLayer())) != 0
+				|| (getEffectiveMask(b) & (1 << a.getCollisionLayer())) != 0;
+	}
+
+}
@@ -14,22 +14,24 @@ import edu.udo.cs.swtsf.util.GroupFactory;
  * An Entity can have any number of these strategies added to itself at any point in time.</p>
  * 
  * <p>The movement of an Entity is controlled by the {@link #getVelocityX() x-velocity} and 
- * {@link #getVelocityY() y-velocity}. The velocity is added to the position in each update cycle 
- * after the {@link EntityBehaviorStrategy behaviors} have been updated.<br>
+ * {@link #getVelocityY() y-velocity}. The velocity of all Entities is added to their positions 
+ * at the beginning of the third phase of each update cycle, before any 
+ * {@link EntityBehaviorStrategy behaviors} are updated.<br>
  * The movement is independent of the {@link #getRotation() rotation} and {@link #getSize() size}.</p>
  * 
  * <p>An Entity can be added to a {@link Game} with the {@link Game#addEntity(Entity)} method. An 
  * Entity can only ever be added to one Game and it will be part of that Game until it is 
  * {@link #isDisposed() disposed}. When disposed the Entity will automatically be removed from 
- * the Game. Once disposed an Entity can never be un-disposed and re-used in a Game.</p>
+ * the Game. Once disposed an Entity can never be un-disposed and re-used in a Game. The only 
+ * exception are Entities taken from an {@link EntityPool} which are {@link #reset() reset} by 
+ * their pool after they were removed.</p>
  * 
  * <p>Individual instances can be observed by {@link EntityObserver EntityObserver's} which are 
  * added with the {@link #addObserver(EntityObserver)} method.</p>
  * 
  * <p>Every Entity in the Game has an identification number which can be queried by 
- * {@link #getID()}. This number is unique for all Entities created within the same JVM, 
- * independent of the Game they are used in. The ID of an Entity will never change after 
- * the Entity was created.</p>
+ * {@link #getID()}. This number is unique for all Entities created for the same Game. 
+ * The ID of an Entity will never change once the Entity was added to a Game.</p>
  * 
  * @see EntityBehaviorStrategy
  * @see EntityCollisionStrategy
@@ -57,10 +59,28 @@ public abstract class Entity {
 	public static final double DEGREES_NORTH_EAST = 315;
 	
 	/**
-	 * Used to determine the unique ID of each Entity.
-	 * @see #id
+	 * The number of available {@link #setCollisionLayer(int) collision layers}.
+	 * Valid layers are 0 to 31.
+	 * @see CollisionMatrix
 	 */
-	private static int GLOBAL_ID = 0;
+	public static final int COLLISION_LAYER_COUNT = 32;
+	/**
+	 * The initial {@link #getCollisionLayer() collision layer} of all {@link Entity Entities}.
+	 */
+	public static final int COLLISION_LAYER_DEFAULT = 0;
+	public static final int COLLISION_LAYER_PLAYER = 1;
+	public static final int COLLISION_LAYER_TARGET = 2;
+	public static final int COLLISION_LAYER_BULLET = 3;
+	public static final int COLLISION_LAYER_PICKUP = 4;
+	/**
+	 * A {@link #setCollisionMask(int) collision mask} containing all layers. This is 
+	 * the initial collision mask of all {@link Entity Entities}.
+	 */
+	public static final int COLLISION_MASK_ALL = -1;
+	/**
+	 * A {@link #setCollisionMask(int) collision mask} containing no layers.
+	 */
+	public static final int COLLISION_MASK_NONE = 0;
 	
 	/**
 	 * Contains all currently registered {@link EntityObserver observers}.
@@ -93,9 +113,10 @@ public abstract class Entity {
 							= GroupFactory.get().createNewGroup();
 	/**
 	 * The unique ID of this Entity.
-	 * @see #GLOBAL_ID
+	 * @see Game#nextEntityID(Entity)
+	 * @see #setID(int)
 	 */
-	private final int id = GLOBAL_ID++;
+	private int id = Game.nextEntityID(this);
 	
 	/**
 	 * Reference to the {@link Game} this Entity was added to. This is null at first 
@@ -107,15 +128,29 @@ public abstract class Entity {
 	private Game currentGame;
 	/**
 	 * True if this {@link Entity} is disposed. False by default. This value should 
-	 * not be set to false anywhere in the code. Since it should only ever change 
-	 * once from false to true.
+	 * not be set to false anywhere in the code except for {@link #reset()}. Since it 
+	 * should only ever change once from false to true while the Entity is in use.
 	 * @see #dispose()
 	 * @see #isDisposed()
 	 */
 	private boolean disposed;
+	/**
+	 * The {@link EntityPool} this Entity was acquired from or null. The {@link Game} 
+	 * returns the Entity to this pool after it was removed.
+	 * @see EntityPool#acquire()
+	 * @see #reset()
+	 */
+	EntityPool<?> pool;
+	/**
+	 * True while this Entity is held by its {@link #pool} and waits to be acquired.
+	 * @see EntityPool#release(Entity)
+	 */
+	boolean inPool;
 	/**
 	 * The area of this Entity is always a circle centered at {@link #positionX} and 
 	 * {@link #positionY} and with a <b>diameter</b> of {@link #size}.
+	 * Like the velocity, size and rotation this field is only used while this Entity 
+	 * is not attached to a {@link #store}.
 	 * @see #setPosition(double, double)
 	 * @see #getX()
 	 * @see #getY()
@@ -155,27 +190,157 @@ public abstract class Entity {
 	 * @see #getRotation()
 	 */
 	private double rotation;
+	/**
+	 * The collision layer this Entity belongs to.
+	 * @see #setCollisionLayer(int)
+	 * @see CollisionMatrix
+	 */
+	private int collisionLayer = COLLISION_LAYER_DEFAULT;
+	/**
+	 * The collision layers this Entity wants to collide with as a bit mask.
+	 * @see #setCollisionMask(int)
+	 * @see CollisionMatrix
+	 */
+	private int collisionMask = COLLISION_MASK_ALL;
+	/**
+	 * The cell of the {@link EntitySpatialIndex} of the current {@link Game} which 
+	 * contains this Entity or null if this Entity is not indexed.
+	 * @see EntitySpatialIndex
+	 */
+	EntitySpatialIndex.Cell indexCell;
+	/**
+	 * The position of this Entity within {@link #indexCell}.
+	 * @see EntitySpatialIndex
+	 */
+	int indexSlot = -1;
+	/**
+	 * Increases with each Entity added to the current {@link Game}. Used to pass on 
+	 * the results of radius queries in the order the Entities were added.
+	 * @see EntitySpatialIndex.Candidates#sort()
+	 */
+	long addSequence;
+	/**
+	 * The {@link EntityStore} of the current {@link Game} which holds the position, 
+	 * velocity, size and rotation of this Entity or null if the fields of this 
+	 * Entity are used instead.
+	 * @see #attachToStore(EntityStore)
+	 * @see #detachFromStore()
+	 */
+	private EntityStore store;
+	/**
+	 * The slot of this Entity within the {@link #store}. The store changes this 
+	 * value when it compacts its arrays.
+	 * @see EntityStore#release(int)
+	 */
+	int storeSlot = -1;
+	/**
+	 * True if this Entity was moved by the {@link #store} but was detached before 
+	 * the position changed event could be fired.
+	 * @see #updatePositionByVelocity()
+	 */
+	private boolean positionEventPending;
+	/**
+	 * The {@link EntityObserver#CHANGED_POSITION changed properties} which have not 
+	 * yet been reported to the observers because the current {@link Game} batches 
+	 * its entity events.
+	 * @see #markChanged(int)
+	 * @see #firePendingChanges()
+	 */
+	private int pendingChanges;
+	/**
+	 * True if all {@link EntityBehaviorStrategy behaviors} of this Entity are 
+	 * {@link ParallelEntityBehaviorStrategy parallel strategies}. Only valid if 
+	 * {@link #parallelSafetyValid} is true.
+	 * @see #isParallelUpdateSafe()
+	 */
+	private boolean parallelSafe;
+	/**
+	 * Set to false whenever a behavior is added or removed.
+	 * @see #isParallelUpdateSafe()
+	 */
+	private boolean parallelSafetyValid;
 	
 	/**
 	 * <p>Adds the {@link #setVelocity(double, double) velocity} to the 
 	 * {@link #setPosition(double, double) position} of this Entity.</p>
 	 * 
+	 * <p>If this Entity is attached to an {@link EntityStore} the {@link Game} has already 
+	 * moved it together with all other Entities. In that case only the position changed 
+	 * event is fired if this Entity was moved.</p>
+	 * 
 	 * <p>This method is called exactly once in every update cycle by the {@link Game} 
 	 * when its {@link Game#update()} method is invoked.</p>
 	 * 
 	 * @see #isMoving()
 	 * @see #getVelocityX()
 	 * @see #getVelocityY()
+	 * @see EntityStore#integrate()
 	 * @see Game#update()
 	 */
 	final void updatePositionByVelocity() {
-		if (isMoving()) {
+		if (store != null) {
+			if (store.takeMoved(storeSlot)) {
+				firePositionChangedEvent();
+			}
+		} else if (positionEventPending) {
+			positionEventPending = false;
+			firePositionChangedEvent();
+		} else if (isMoving()) {
 			positionX += velocityX;
 			positionY += velocityY;
 			firePositionChangedEvent();
 		}
 	}
 	
+	/**
+	 * <p>Moves the position, velocity, size and rotation of this {@link Entity} into a 
+	 * new slot of the given {@link EntityStore}. From now on all getters and setters 
+	 * will use the store.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param value		a non-null EntityStore
+	 * @throws IllegalStateException	if this Entity is already attached to a store
+	 * @see #detachFromStore()
+	 */
+	final void attachToStore(EntityStore value) {
+		if (store != null) {
+			throw new IllegalStateException("store != null");
+		}
+		int slot = value.allocate(this);
+		value.positionX[slot] = positionX;
+		value.positionY[slot] = positionY;
+		value.velocityX[slot] = velocityX;
+		value.velocityY[slot] = velocityY;
+		value.rotation[slot] = rotation;
+		value.size[slot] = size;
+		positionEventPending = false;
+		store = value;
+		storeSlot = slot;
+	}
+	
+	/**
+	 * <p>Copies the position, velocity, size and rotation of this {@link Entity} back 
+	 * from its {@link EntityStore} and releases its slot. If this Entity is not attached 
+	 * to a store nothing happens.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @see #attachToStore(EntityStore)
+	 */
+	final void detachFromStore() {
+		if (store == null) {
+			return;
+		}
+		int slot = storeSlot;
+		positionX = store.positionX[slot];
+		positionY = store.positionY[slot];
+		velocityX = store.velocityX[slot];
+		velocityY = store.velocityY[slot];
+		rotation = store.rotation[slot];
+		size = store.size[slot];
+		positionEventPending = store.takeMoved(slot);
+		store.release(slot);
+		store = null;
+		storeSlot = -1;
+	}
+	
 	/**
 	 * <p>Updates all {@link EntityBehaviorStrategy behaviors} of this {@link Entity}.</p>
 	 * 
@@ -242,6 +407,8 @@ public abstract class Entity {
 			throw new IllegalArgumentException("strategy == null");
 		}
 		behaviorStrategies.add(strategy);
+		parallelSafetyValid = false;
+		wakeUp();
 	}
 	
 	/**
@@ -264,6 +431,7 @@ public abstract class Entity {
 			throw new IllegalArgumentException("strategy == null");
 		}
 		behaviorStrategies.remove(strategy);
+		parallelSafetyValid = false;
 	}
 	
 	/**
@@ -275,6 +443,82 @@ public abstract class Entity {
 		return !behaviorStrategies.isEmpty();
 	}
 	
+	/**
+	 * <p>Returns the number of {@link EntityBehaviorStrategy EntityBehaviorStrategy's} 
+	 * attached to this Entity.</p> 
+	 * @return	a non-negative number
+	 * @see #hasBehaviorStrategies()
+	 */
+	public int getBehaviorStrategyCount() {
+		return behaviorStrategies.getSize();
+	}
+	
+	/**
+	 * <p>Returns true if updating the {@link EntityBehaviorStrategy behaviors} of this 
+	 * {@link Entity} would currently have no effect. An idle Entity which is not 
+	 * {@link #isMoving() moving} will be put {@link #isAsleep() asleep} by the 
+	 * {@link Game}.</p>
+	 * <p>By default an Entity is idle if it has no behaviors. Sub classes may return 
+	 * true in other cases as well, but they must call {@link #wakeUp()} as soon as 
+	 * their behaviors need to be updated again.</p>
+	 * @return	true if the behaviors of this Entity do not need to be updated
+	 * @see #isAsleep()
+	 */
+	protected boolean isIdle() {
+		return !hasBehaviorStrategies();
+	}
+	
+	/**
+	 * <p>Returns true if this {@link Entity} is asleep. Sleeping Entities are neither 
+	 * moved nor are their {@link EntityBehaviorStrategy behaviors} updated by the 
+	 * {@link Game}, but they are still checked for collisions and can be found by 
+	 * {@link Game#getAllEntities()}.</p>
+	 * <p>An Entity falls asleep at the end of its update if it is not 
+	 * {@link #isMoving() moving} and {@link #isIdle() idle}. It wakes up again when 
+	 * its velocity or position is changed, when a behavior is added or when 
+	 * {@link #wakeUp()} is called.</p>
+	 * @return	true if this Entity is part of a Game and asleep; otherwise false
+	 * @see #wakeUp()
+	 */
+	public boolean isAsleep() {
+		return store != null && store.isAsleep(storeSlot);
+	}
+	
+	/**
+	 * <p>Wakes this {@link Entity} up if it is {@link #isAsleep() asleep}. The Entity 
+	 * will be updated again from the next update cycle on.</p>
+	 * @see #isAsleep()
+	 * @see #isIdle()
+	 */
+	public void wakeUp() {
+		if (isAsleep()) {
+			currentGame.wakeUp(this);
+		}
+	}
+	
+	/**
+	 * <p>Returns true if this Entity may be updated on a worker thread when the 
+	 * {@link Game} updates its Entities in parallel. This is the case if all 
+	 * {@link EntityBehaviorStrategy behaviors} of this Entity are 
+	 * {@link ParallelEntityBehaviorStrategy parallel strategies}.</p>
+	 * <p>This method is supposed to be used only by the Game.</p>
+	 * @return	true if this Entity can be updated in parallel
+	 * @see Game#updateEntities()
+	 */
+	boolean isParallelUpdateSafe() {
+		if (!parallelSafetyValid) {
+			boolean[] safe = {true};
+			behaviorStrategies.forEach(strat -> {
+				if (!(strat instanceof ParallelEntityBehaviorStrategy)) {
+					safe[0] = false;
+				}
+			});
+			parallelSafe = safe[0];
+			parallelSafetyValid = true;
+		}
+		return parallelSafe;
+	}
+	
 	/**
 	 * <p>Returns true if the given {@link EntityBehaviorStrategy} is currently added to 
 	 * this {@link Entity}.</p>
@@ -407,6 +651,88 @@ public abstract class Entity {
 		return collisionStrategies.contains(strategy);
 	}
 	
+	/**
+	 * <p>Sets the collision layer of this {@link Entity}. Other Entities can use the 
+	 * layer in their {@link #setCollisionMask(int) collision mask} to decide whether 
+	 * they want to collide with this Entity.</p>
+	 * <p>The default layer is {@link #COLLISION_LAYER_DEFAULT}.</p>
+	 * @param value							a layer from 0 (inclusive) to {@link #COLLISION_LAYER_COUNT} (exclusive)
+	 * @throws IllegalArgumentException		if value is out of bounds
+	 * @see #getCollisionLayer()
+	 * @see #setCollisionMask(int)
+	 * @see CollisionMatrix
+	 */
+	public void setCollisionLayer(int value) {
+		checkCollisionLayer(value);
+		collisionLayer = value;
+	}
+	
+	/**
+	 * <p>Returns the collision layer of this {@link Entity}.</p>
+	 * @return		a layer from 0 (inclusive) to {@link #COLLISION_LAYER_COUNT} (exclusive)
+	 * @see #setCollisionLayer(int)
+	 */
+	public int getCollisionLayer() {
+		return collisionLayer;
+	}
+	
+	/**
+	 * <p>Sets the bit mask of all collision layers this {@link Entity} wants to collide 
+	 * with. The {@link EntityCollisionStrategy collision strategies} of this Entity will 
+	 * only be notified about Entities whose layer is contained within the mask, unless 
+	 * the other Entity wants to collide with the layer of this Entity.</p>
+	 * <p>Entities with neither collision strategies nor any other Entity interested in 
+	 * their layer are not checked for collisions at all.</p>
+	 * <p>The default mask is {@link #COLLISION_MASK_ALL}.</p>
+	 * @param value		a bit mask of layers
+	 * @see #getCollisionMask()
+	 * @see #createCollisionMask(int...)
+	 * @see #setCollisionLayer(int)
+	 * @see CollisionMatrix
+	 */
+	public void setCollisionMask(int value) {
+		collisionMask = value;
+	}
+	
+	/**
+	 * <p>Returns the bit mask of all collision layers this {@link Entity} wants to 
+	 * collide with.</p>
+	 * @return		a bit mask of layers
+	 * @see #setCollisionMask(int)
+	 */
+	public int getCollisionMask() {
+		return collisionMask;
+	}
+	
+	/**
+	 * <p>Returns a {@link #setCollisionMask(int) collision mask} containing exactly the 
+	 * given layers.</p>
+	 * @param layers						any number of layers from 0 (inclusive) to 
+	 * 										{@link #COLLISION_LAYER_COUNT} (exclusive)
+	 * @return								a bit mask of the layers
+	 * @throws IllegalArgumentException		if any layer is out of bounds
+	 */
+	public static int createCollisionMask(int... layers) {
+		int mask = COLLISION_MASK_NONE;
+		for (int layer : layers) {
+			checkCollisionLayer(layer);
+			mask |= 1 << layer;
+		}
+		return mask;
+	}
+	
+	/**
+	 * @throws IllegalArgumentException		if layer is not a valid collision layer
+	 */
+	static void checkCollisionLayer(int layer) {
+		if (layer < 0) {
+			throw new IllegalArgumentException("layer < 0");
+		}
+		if (layer >= COLLISION_LAYER_COUNT) {
+			throw new IllegalArgumentException("layer >= COLLISION_LAYER_COUNT");
+		}
+	}
+	
 	/**
 	 * <p>Returns true if at least one {@link EntityCollisionStrategy} of class strategyClass 
 	 * is currently added to this {@link Entity}.</p>
@@ -475,6 +801,8 @@ public abstract class Entity {
 		if (currentGame != null && game != null) {
 			throw new IllegalStateException("currentGame != null");
 		}
+		// Observers get to see the last changes before the removal
+		firePendingChanges();
 		Game oldGame = currentGame;
 		currentGame = game;
 		if (oldGame != null) {
@@ -504,6 +832,8 @@ public abstract class Entity {
 	 */
 	public void dispose() {
 		disposed = true;
+		// A sleeping Entity would never be removed
+		wakeUp();
 	}
 	
 	/**
@@ -517,6 +847,101 @@ public abstract class Entity {
 		return disposed;
 	}
 	
+	/**
+	 * <p>Returns true if this {@link Entity} was taken from an {@link EntityPool}. A pooled 
+	 * Entity is reset and used again after it was removed from its {@link Game}.</p>
+	 * @return	true if this Entity belongs to an EntityPool
+	 * @see EntityPool#acquire()
+	 */
+	public boolean isPooled() {
+		return pool != null;
+	}
+	
+	/**
+	 * <p>Puts this {@link Entity} back into the state of a newly created Entity so that it 
+	 * can be used again. All {@link EntityObserver observers}, 
+	 * {@link EntityBehaviorStrategy behaviors} and {@link EntityCollisionStrategy collision 
+	 * strategies} are removed, the Entity is no longer {@link #isDisposed() disposed} and 
+	 * its position, velocity, size, rotation and collision layers are set to their initial 
+	 * values. The {@link #getID() ID} is changed when the Entity is acquired again.</p>
+	 * 
+	 * <p>This method is called by the {@link EntityPool} when the Entity is returned. Sub 
+	 * classes which are pooled must override it, call the super implementation first and 
+	 * then restore their own fields and add their default strategies again, just like 
+	 * their constructor does.</p>
+	 * 
+	 * @throws IllegalStateException	if this Entity is still part of a Game
+	 * @see EntityPool
+	 */
+	protected void reset() {
+		if (currentGame != null) {
+			throw new IllegalStateException("currentGame != null");
+		}
+		observers.clear();
+		behaviorStrategies.clear();
+		collisionStrategies.clear();
+		disposed = false;
+		positionX = 0;
+		positionY = 0;
+		velocityX = 0;
+		velocityY = 0;
+		size = DEFAULT_ENTITY_SIZE;
+		rotation = 0;
+		collisionLayer = COLLISION_LAYER_DEFAULT;
+		collisionMask = COLLISION_MASK_ALL;
+		positionEventPending = false;
+		pendingChanges = 0;
+		parallelSafetyValid = false;
+	}
+	
+	/**
+	 * <p>Writes the state of this {@link Entity} to a {@link GameSnapshot}: its position,
+	 * velocity, size, rotation, collision layers and its {@link EntityBehaviorStrategy
+	 * behaviors} and {@link EntityCollisionStrategy collision strategies}. Strategies
+	 * which are {@link Snapshotable} write their own state.</p>
+	 *
+	 * <p>Sub classes with a state of their own must override this method, call the super
+	 * implementation first and then write their own fields. They must override
+	 * {@link #readSnapshot(SnapshotDecoder)} as well.</p>
+	 *
+	 * @param out		a non-null encoder
+	 * @see GameSnapshot#save(Game)
+	 */
+	protected void writeSnapshot(SnapshotEncoder out) {
+		out.putDouble(getX());
+		out.putDouble(getY());
+		out.putDouble(getVelocityX());
+		out.putDouble(getVelocityY());
+		out.putInt(getSize());
+		out.putDouble(getRotation());
+		out.putInt(getCollisionLayer());
+		out.putInt(getCollisionMask());
+		out.putGroup(behaviorStrategies);
+		out.putGroup(collisionStrategies);
+	}
+	
+	/**
+	 * <p>Reads the state written by {@link #writeSnapshot(SnapshotEncoder)}. The strategies
+	 * of this {@link Entity} are replaced with those of the snapshot.</p>
+	 *
+	 * <p>This is called on a newly created Entity before it is added to the {@link Game},
+	 * or on the {@link Game#getPlayer() Player} of the restored game.</p>
+	 *
+	 * @param in		a non-null decoder
+	 * @see GameSnapshot#restore(SnapshotDecoder, Game)
+	 */
+	protected void readSnapshot(SnapshotDecoder in) {
+		setPosition(in.getDouble(), in.getDouble());
+		setVelocity(in.getDouble(), in.getDouble());
+		setSize(in.getInt());
+		setRotation(in.getDouble());
+		setCollisionLayer(in.getInt());
+		setCollisionMask(in.getInt());
+		in.getGroup(behaviorStrategies, EntityBehaviorStrategy.class);
+		in.getGroup(collisionStrategies, EntityCollisionStrategy.class);
+		parallelSafetyValid = false;
+	}
+
 	/**
 	 * <p>Sets the size of this {@link Entity} equal to the size of the {@code other} Entity.</p>
 	 * @param other							a non-null Entity
@@ -545,7 +970,11 @@ public abstract class Entity {
 			throw new IllegalArgumentException("value < 1");
 		}
 		if (getSize() != value) {
-			size = value;
+			if (store == null) {
+				size = value;
+			} else {
+				store.size[storeSlot] = value;
+			}
 			fireSizeChangedEvent();
 		}
 	}
@@ -560,7 +989,7 @@ public abstract class Entity {
 	 * @see #setSize(Entity)
 	 */
 	public int getSize() {
-		return size;
+		return store == null ? size : store.size[storeSlot];
 	}
 	
 	/**
@@ -588,9 +1017,14 @@ public abstract class Entity {
 	 */
 	public void setRotation(double value) {
 		if (getRotation() != value) {
-			rotation = value % 360;
-			if (rotation < 0) {
-				rotation += 360;
+			double normalized = value % 360;
+			if (normalized < 0) {
+				normalized += 360;
+			}
+			if (store == null) {
+				rotation = normalized;
+			} else {
+				store.rotation[storeSlot] = normalized;
 			}
 			fireRotationChangedEvent();
 		}
@@ -606,7 +1040,7 @@ public abstract class Entity {
 	 * @see #setRotation(Entity)
 	 */
 	public double getRotation() {
-		return rotation;
+		return store == null ? rotation : store.rotation[storeSlot];
 	}
 	
 	/**
@@ -636,8 +1070,14 @@ public abstract class Entity {
 	 */
 	public void setPosition(double x, double y) {
 		if (getX() != x || getY() != y) {
-			positionX = x;
-			positionY = y;
+			if (store == null) {
+				positionX = x;
+				positionY = y;
+			} else {
+				store.positionX[storeSlot] = x;
+				store.positionY[storeSlot] = y;
+				wakeUp();
+			}
 			firePositionChangedEvent();
 		}
 	}
@@ -654,7 +1094,7 @@ public abstract class Entity {
 	 * @see #getY()
 	 */
 	public double getX() {
-		return positionX;
+		return store == null ? positionX : store.positionX[storeSlot];
 	}
 	
 	/**
@@ -669,7 +1109,7 @@ public abstract class Entity {
 	 * @see #getX()
 	 */
 	public double getY() {
-		return positionY;
+		return store == null ? positionY : store.positionY[storeSlot];
 	}
 	
 	/**
@@ -705,8 +1145,14 @@ public abstract class Entity {
 	 */
 	public void setVelocity(double x, double y) {
 		if (getVelocityX() != x || getVelocityY() != y) {
-			velocityX = x;
-			velocityY = y;
+			if (store == null) {
+				velocityX = x;
+				velocityY = y;
+			} else {
+				store.velocityX[storeSlot] = x;
+				store.velocityY[storeSlot] = y;
+				wakeUp();
+			}
 			fireVelocityChangedEvent();
 		}
 	}
@@ -755,7 +1201,7 @@ public abstract class Entity {
 	 * @see #getMoveDirection()
 	 */
 	public double getVelocityX() {
-		return velocityX;
+		return store == null ? velocityX : store.velocityX[storeSlot];
 	}
 	
 	/**
@@ -767,7 +1213,7 @@ public abstract class Entity {
 	 * @see #getMoveDirection()
 	 */
 	public double getVelocityY() {
-		return velocityY;
+		return store == null ? velocityY : store.velocityY[storeSlot];
 	}
 	
 	/**
@@ -1104,13 +1550,25 @@ public abstract class Entity {
 	}
 	
 	/**
-	 * Used internally. Calls the {@link EntityObserver#onPositionChanged(Entity)} method for 
-	 * all {@link EntityObserver observers} in {@link #observers} with {@code this} as the 
+	 * Used internally. Notifies the current {@link Game} of the movement and calls the 
+	 * {@link EntityObserver#onPositionChanged(Entity)} method for all 
+	 * {@link EntityObserver observers} in {@link #observers} with {@code this} as the 
 	 * argument.
 	 * @see #setPosition(double, double)
 	 * @see #updatePositionByVelocity()
 	 */
 	private void firePositionChangedEvent() {
+		if (currentGame != null) {
+			if (currentGame.isInParallelUpdate()) {
+				currentGame.deferEvent(this::firePositionChangedEvent);
+				return;
+			}
+			currentGame.onEntityMoved(this);
+			if (currentGame.isEntityEventsBatched()) {
+				markChanged(EntityObserver.CHANGED_POSITION);
+				return;
+			}
+		}
 		observers.forEach((obs) -> obs.onPositionChanged(this));
 	}
 	
@@ -1121,6 +1579,16 @@ public abstract class Entity {
 	 * @see #setSize(int)
 	 */
 	private void fireSizeChangedEvent() {
+		if (currentGame != null) {
+			if (currentGame.isInParallelUpdate()) {
+				currentGame.deferEvent(this::fireSizeChangedEvent);
+				return;
+			}
+			if (currentGame.isEntityEventsBatched()) {
+				markChanged(EntityObserver.CHANGED_SIZE);
+				return;
+			}
+		}
 		observers.forEach((obs) -> obs.onSizeChanged(this));
 	}
 	
@@ -1131,6 +1599,16 @@ public abstract class Entity {
 	 * @see #setRotation(double)
 	 */
 	private void fireRotationChangedEvent() {
+		if (currentGame != null) {
+			if (currentGame.isInParallelUpdate()) {
+				currentGame.deferEvent(this::fireRotationChangedEvent);
+				return;
+			}
+			if (currentGame.isEntityEventsBatched()) {
+				markChanged(EntityObserver.CHANGED_ROTATION);
+				return;
+			}
+		}
 		observers.forEach((obs) -> obs.onRotationChanged(this));
 	}
 	
@@ -1141,9 +1619,48 @@ public abstract class Entity {
 	 * @see #setVelocity(double, double)
 	 */
 	private void fireVelocityChangedEvent() {
+		if (currentGame != null) {
+			if (currentGame.isInParallelUpdate()) {
+				currentGame.deferEvent(this::fireVelocityChangedEvent);
+				return;
+			}
+			if (currentGame.isEntityEventsBatched()) {
+				markChanged(EntityObserver.CHANGED_VELOCITY);
+				return;
+			}
+		}
 		observers.forEach((obs) -> obs.onVelocityChanged(this));
 	}
 	
+	/**
+	 * Used internally. Remembers that the given property has changed. The current 
+	 * {@link Game} is told about the first change so that it can 
+	 * {@link #firePendingChanges() report} all changes at the end of the update cycle.
+	 * @param property		one of the flags defined in {@link EntityObserver}
+	 * @see Game#setEntityEventsBatched(boolean)
+	 */
+	private void markChanged(int property) {
+		if (pendingChanges == 0) {
+			currentGame.onEntityChanged(this);
+		}
+		pendingChanges |= property;
+	}
+	
+	/**
+	 * Used internally. Calls the {@link EntityObserver#onPropertiesChanged(Entity, int)} 
+	 * method for all {@link EntityObserver observers} in {@link #observers} if any 
+	 * properties have changed since the last call.
+	 * @see #markChanged(int)
+	 * @see Game#finishUpdate()
+	 */
+	final void firePendingChanges() {
+		int changes = pendingChanges;
+		if (changes != 0) {
+			pendingChanges = 0;
+			observers.forEach((obs) -> obs.onPropertiesChanged(this, changes));
+		}
+	}
+	
 	private void fireAddedToGameEvent() {
 		Game game = getCurrentGame();
 		observers.forEach((obs) -> obs.onAddedToGame(game, this));
@@ -1155,37 +1672,47 @@ public abstract class Entity {
 	
 	/**
 	 * <p>Returns the unique identification number of this {@link Entity}. The returned 
-	 * number is unique for this Entity. No other Entity created within the same JVM will 
-	 * have the same number.</p>
-	 * <p>The number returned by this method will never change within the life cycle of 
-	 * this object.</p>
+	 * number is unique among all Entities created for the same {@link Game}.</p>
+	 * <p>Entities created during an update cycle of a Game are numbered in the order 
+	 * they were created, starting at 0 for each Game. Entities created anywhere else 
+	 * have negative numbers which are unique within the JVM.</p>
+	 * <p>The number returned by this method will never change once this Entity was 
+	 * added to a Game. Entities created on a worker thread during a 
+	 * {@link Game#setParallelUpdatePool(java.util.concurrent.ForkJoinPool) parallel update} 
+	 * are numbered after the parallel part of the update cycle.</p>
 	 * @return	a unique number for this Entity
 	 */
 	public final int getID() {
 		return id;
 	}
 	
+	/**
+	 * <p>Sets the {@link #getID() ID} of this Entity. Used for Entities which were 
+	 * created on a worker thread during a parallel update, for Entities restored 
+	 * from a {@link GameSnapshot} and for Entities acquired again from their 
+	 * {@link EntityPool}.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param value		the new ID
+	 * @see Game#nextEntityID(Entity)
+	 */
+	void setID(int value) {
+		id = value;
+	}
+	
 	/**
 	 * <p>The hash code of an Entity is based on the {@link #getID() ID}. It is thus 
-	 * guaranteed to be unique for each Entity.</p>
+	 * unique among all Entities of the same {@link Game}.</p>
 	 */
 	public int hashCode() {
 		return getID();
 	}
 	
 	/**
-	 * <p>Two Entities are considered equal when they have the same {@link #getID() ID}.</p>
-	 * <p>Since there can never be two Entities within the same JVM with the same ID this 
-	 * method will only return true if {@code obj == this}.</p>
+	 * <p>An Entity is only equal to itself. Entities of different {@link Game Games} 
+	 * may have the same {@link #getID() ID}.</p>
 	 */
 	public boolean equals(Object obj) {
-		if (obj == this) {
-			return true;
-		}
-		if (obj == null || !(obj instanceof Entity)) {
-			return false;
-		}
-		return getID() == ((Entity) obj).getID();
+		return obj == this;
 	}
 	
 	/**
@@ -17,6 +17,11 @@ import edu.udo.cs.swtsf.core.player.PlayerObserver;
  * without throwing any {@link ConcurrentModificationException 
  * ConcurrentModificationExceptions}.</p>
  * 
+ * <p>If the {@link Game} of the host {@link Game#setEntityEventsBatched(boolean) batches} 
+ * its entity events the changes to the position, size, rotation and velocity are not 
+ * reported immediately. Instead {@link #onPropertiesChanged(Entity, int)} is called once 
+ * at the end of each update cycle with all properties that have changed.</p>
+ * 
  * <p>As the name suggests, this interface is an implementation of the observer pattern.</p>
  * 
  * @see Entity#addObserver(EntityObserver)
@@ -26,6 +31,28 @@ import edu.udo.cs.swtsf.core.player.PlayerObserver;
  */
 public interface EntityObserver {
 	
+	/**
+	 * Flag for {@link #onPropertiesChanged(Entity, int)}. The position of the host has changed.
+	 * @see #onPositionChanged(Entity)
+	 */
+	public static final int CHANGED_POSITION = 1;
+	/**
+	 * Flag for {@link #onPropertiesChanged(Entity, int)}. The size of the host has changed.
+	 * @see #onSizeChanged(Entity)
+	 */
+	public static final int CHANGED_SIZE = 2;
+	/**
+	 * Flag for {@link #onPropertiesChanged(Entity, int)}. The rotation of the host has changed.
+	 * @see #onRotationChanged(Entity)
+	 */
+	public static final int CHANGED_ROTATION = 4;
+	/**
+	 * Flag for {@link #onPropertiesChanged(Entity, int)}. The velocity of the host has changed.
+	 * @see #onVelocityChanged(Entity)
+	 */
+	public static final int CHANGED_VELOCITY = 8;
+	
+	
 	/**
 	 * <p>Called immediately by the host {@link Entity} after the position of the 
 	 * host has changed. The current position can be queried with the 
@@ -91,6 +118,39 @@ public interface EntityObserver {
 	 * @see Entity#getVelocityY()
 	 */
 	public default void onVelocityChanged(Entity host) {}
+	/**
+	 * <p>Called by the host {@link Entity} at the end of an update cycle if the 
+	 * {@link Game} of the host {@link Game#setEntityEventsBatched(boolean) batches} 
+	 * its entity events. The changes parameter is a combination of the flags 
+	 * {@link #CHANGED_POSITION}, {@link #CHANGED_SIZE}, {@link #CHANGED_ROTATION} and 
+	 * {@link #CHANGED_VELOCITY} for all properties which have changed since the last 
+	 * notification. The method is called at most once per update cycle, no matter how 
+	 * often the properties have changed.</p>
+	 * 
+	 * <p>This method is a default method. By default it calls 
+	 * {@link #onPositionChanged(Entity)}, {@link #onSizeChanged(Entity)}, 
+	 * {@link #onRotationChanged(Entity)} and {@link #onVelocityChanged(Entity)} for each 
+	 * changed property in this order. An implementing class may overwrite this method 
+	 * to react to all changes at once.</p>
+	 * 
+	 * @param host		the host of the observer. Guaranteed to not be null.
+	 * @param changes	the changed properties. Guaranteed to not be 0.
+	 * @see Game#setEntityEventsBatched(boolean)
+	 */
+	public default void onPropertiesChanged(Entity host, int changes) {
+		if ((changes & CHANGED_POSITION) != 0) {
+			onPositionChanged(host);
+		}
+		if ((changes & CHANGED_SIZE) != 0) {
+			onSizeChanged(host);
+		}
+		if ((changes & CHANGED_ROTATION) != 0) {
+			onRotationChanged(host);
+		}
+		if ((changes & CHANGED_VELOCITY) != 0) {
+			onVelocityChanged(host);
+		}
+	}
 	
 	/**
 	 * <p>Called by the host {@link Entity} after the entity has been added 
@@ -0,0 +1,176 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * <p>Keeps {@link Entity Entities} of one type which have been removed from a
+ * {@link Game} so that they can be used again instead of creating new ones. This
+ * is meant for short lived Entities which are created in large numbers, like
+ * {@link Bullet Bullets} or explosions.</p>
+ *
+ * <p>An Entity is taken from the pool with {@link #acquire()}. When an acquired
+ * Entity is disposed and removed from its Game, the Game returns it to the pool at
+ * the end of the update cycle. All {@link GameObserver GameObservers} have been
+ * notified of the removal by then. The pool {@link Entity#reset() resets} the
+ * Entity and keeps it for the next call to {@link #acquire()}. If the pool already
+ * holds {@link #getCapacity()} free Entities the returned Entity is dropped.</p>
+ *
+ * <p>A pooled Entity is given a new {@link Entity#getID() ID} each time it is
+ * acquired, exactly like a newly created Entity. The IDs of a Game thus do not
+ * depend on the Entities held by its pools. References to a pooled Entity must not
+ * be kept after it was removed from the Game, since the same object may appear as
+ * a new Entity later on.</p>
+ *
+ * <p>All methods are synchronized so a pool may be shared by Games running on
+ * different threads. Each Game numbers the Entities it acquires by itself.</p>
+ *
+ * @param <T>	the type of the pooled Entities
+ * @see Game#setEntityPool(Class, EntityPool)
+ * @see Entity#reset()
+ */
+public class EntityPool<T extends Entity> {
+
+	/**
+	 * The number of free Entities a pool holds by default.
+	 */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private final Supplier<? extends T> factory;
+	private final int capacity;
+	/**
+	 * The free Entities. They have already been reset.
+	 */
+	private final List<T> free = new ArrayList<>();
+	private long hitCount;
+	private long missCount;
+	private int liveCount;
+
+	/**
+	 * <p>Creates an empty pool with the {@link #DEFAULT_CAPACITY default capacity}.</p>
+	 * @param factory						creates a new Entity when the pool is empty
+	 * @throws IllegalArgumentException		if factory is null
+	 */
+	public EntityPool(Supplier<? extends T> factory) {
+		this(factory, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * <p>Creates an empty pool which holds at most capacity free Entities.</p>
+	 * @param factory						creates a new Entity when the pool is empty
+	 * @param capacity						a non-negative number
+	 * @throws IllegalArgumentException		if factory is null or capacity is negative
+	 */
+	public EntityPool(Supplier<? extends T> factory, int capacity) {
+		if (factory == null) {
+			throw new IllegalArgumentException("factory == null");
+		}
+		if (capacity < 0) {
+			throw new IllegalArgumentException("capacity < 0");
+		}
+		this.factory = factory;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * <p>Returns a free Entity of this pool or a new one if the pool is empty. The
+	 * Entity is in the same state as a newly created Entity and has not been added
+	 * to any {@link Game} yet. A free Entity is given the ID a new Entity created on
+	 * the calling thread would have.</p>
+	 * @return								a non-null Entity
+	 * @throws IllegalStateException		if the factory returned null or an Entity
+	 * 										which belongs to another pool
+	 */
+	public synchronized T acquire() {
+		T entity;
+		if (free.isEmpty()) {
+			entity = factory.get();
+			if (entity == null) {
+				throw new IllegalStateException("factory returned null");
+			}
+			if (entity.pool != null) {
+				throw new IllegalStateException(entity+".pool != null");
+			}
+			entity.pool = this;
+			missCount++;
+		} else {
+			entity = free.remove(free.size() - 1);
+			entity.inPool = false;
+			entity.setID(Game.nextEntityID(entity));
+			hitCount++;
+		}
+		liveCount++;
+		return entity;
+	}
+
+	/**
+	 * <p>Resets the given Entity and keeps it for later use. Does nothing if the
+	 * Entity was returned already. This method is supposed to be called only by
+	 * the {@link Game}.</p>
+	 * @param entity		a non-null Entity acquired from this pool which is no longer
+	 * 						part of a Game
+	 */
+	@SuppressWarnings("unchecked")
+	synchronized void release(Entity entity) {
+		if (entity.pool != this || entity.inPool) {
+			return;
+		}
+		liveCount--;
+		if (free.size() < capacity) {
+			entity.reset();
+			entity.inPool = true;
+			free.add((T) entity);
+		} else {
+			// The Entity is dropped and will never be returned again
+			entity.pool = null;
+		}
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Returns the number of Entities which are currently held by this pool.
+	 * @return		a number from 0 to {@link #getCapacity()}
+	 */
+	public synchronized int getFreeCount() {
+		return free.size();
+	}
+
+	/**
+	 * Returns the number of Entities which were acquired and have not been
+	 * returned yet.
+	 * @return		a non-negative number
+	 */
+	public synchronized int getLiveCount() {
+		return liveCount;
+	}
+
+	/**
+	 * Returns the number of calls to {@link #acquire()} which returned a free Entity.
+	 * @return		a non-negative number
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Returns the number of calls to {@link #acquire()} which created a new Entity.
+	 * @return		a non-negative number
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the fraction of calls to {@link #acquire()} which returned a free Entity.
+	 * @return		a value from 0 to 1
+	 */
+	public synchronized double getHitRate() {
+		long total = hitCount + missCount;
+		return total == 0 ? 0 : hitCount / (double) total;
+	}
+
+}
@@ -0,0 +1,323 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * <p>A uniform grid of square cells which keeps track of the positions of all
+ * {@link Entity Entities} in a {@link Game}. Each Entity is stored in exactly one
+ * cell, the one which contains its position.</p>
+ *
+ * <p>The {@link Game} keeps the index up to date. Entities are {@link #add(Entity)
+ * added} and {@link #remove(Entity) removed} together with the Entities group of
+ * the Game and {@link #update(Entity) updated} whenever their position changes.</p>
+ *
+ * <p>This class is used internally by the Game to answer radius queries of an
+ * {@link EntityStream} without iterating over all Entities. Once the cells and the
+ * {@link Candidates} of a query have grown large enough no objects are allocated.</p>
+ *
+ * @see Game#getAllEntities()
+ * @see EntityStream#withinRadiusOfPoint(double, double, double)
+ * @see EntityStream#withinRadiusOfEntity(Entity, double)
+ */
+class EntitySpatialIndex {
+
+	/**
+	 * The default edge length of a cell.
+	 */
+	public static final double DEFAULT_CELL_SIZE = 64;
+
+	/**
+	 * An open addressing hash table of all non-empty cells. Its length is always a
+	 * power of two and at least twice the number of cells.
+	 * @see #findCell(int, int)
+	 */
+	private Cell[] cells = new Cell[16];
+	private int cellCount;
+	/**
+	 * Cells which have become empty are kept here to be re-used.
+	 */
+	private final ArrayDeque<Cell> unusedCells = new ArrayDeque<>();
+	private final double cellSize;
+	private int size;
+
+	public EntitySpatialIndex() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	public EntitySpatialIndex(double cellSize) {
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException("cellSize="+cellSize);
+		}
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Returns the number of {@link Entity Entities} within this index.
+	 * @return		a non-negative number
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Adds the entity to the cell containing its current position. If the entity
+	 * is already contained within this index nothing happens.
+	 * @param entity		a non-null Entity
+	 */
+	public void add(Entity entity) {
+		if (entity.indexCell != null) {
+			return;
+		}
+		int cellX = toCell(entity.getX());
+		int cellY = toCell(entity.getY());
+		getOrCreateCell(cellX, cellY).add(entity);
+		size++;
+	}
+
+	/**
+	 * Removes the entity from this index. If the entity is not contained within
+	 * this index nothing happens.
+	 * @param entity		a non-null Entity
+	 */
+	public void remove(Entity entity) {
+		Cell cell = entity.indexCell;
+		if (cell == null) {
+			return;
+		}
+		removeFromCell(cell, entity);
+		size--;
+	}
+
+	/**
+	 * Moves the entity to the cell containing its current position. This must be
+	 * called each time the position of an Entity within this index changes. If
+	 * the entity is not contained within this index nothing happens.
+	 * @param entity		a non-null Entity
+	 */
+	public void update(Entity entity) {
+		Cell cell = entity.indexCell;
+		if (cell == null) {
+			return;
+		}
+		int cellX = toCell(entity.getX());
+		int cellY = toCell(entity.getY());
+		if (cell.x == cellX && cell.y == cellY) {
+			return;
+		}
+		removeFromCell(cell, entity);
+		getOrCreateCell(cellX, cellY).add(entity);
+	}
+
+	/**
+	 * Returns the number of cells which would have to be looked at by
+	 * {@link #collect(double, double, double, Candidates)} for the given arguments.
+	 * @param x			the x-coordinate of the center of the query
+	 * @param y			the y-coordinate of the center of the query
+	 * @param radius	a non-negative radius
+	 * @return			a positive number
+	 */
+	public long getCellCount(double x, double y, double radius) {
+		long width = toCell(x + radius) - (long) toCell(x - radius) + 1;
+		long height = toCell(y + radius) - (long) toCell(y - radius) + 1;
+		return width * height;
+	}
+
+	/**
+	 * Adds all {@link Entity Entities} to result which might be within the given
+	 * radius around the given point. All Entities which are within the radius are
+	 * guaranteed to be added. Some Entities which are not may be added as well.
+	 * The Entities are added in no particular order.
+	 * @param x			the x-coordinate of the center of the query
+	 * @param y			the y-coordinate of the center of the query
+	 * @param radius	a non-negative radius
+	 * @param result	a non-null buffer to which the Entities are added
+	 * @see Candidates#sort()
+	 */
+	public void collect(double x, double y, double radius, Candidates result) {
+		int minX = toCell(x - radius);
+		int minY = toCell(y - radius);
+		int maxX = toCell(x + radius);
+		int maxY = toCell(y + radius);
+		for (int cellY = minY; cellY <= maxY; cellY++) {
+			for (int cellX = minX; cellX <= maxX; cellX++) {
+				Cell cell = findCell(cellX, cellY);
+				if (cell != null) {
+					for (int i = 0; i < cell.size; i++) {
+						result.add(cell.entities[i]);
+					}
+				}
+			}
+		}
+	}
+
+	private Cell findCell(int cellX, int cellY) {
+		int mask = cells.length - 1;
+		for (int i = indexOf(cellX, cellY, mask); ; i = (i + 1) & mask) {
+			Cell cell = cells[i];
+			if (cell == null || (cell.x == cellX && cell.y == cellY)) {
+				return cell;
+			}
+		}
+	}
+
+	private Cell getOrCreateCell(int cellX, int cellY) {
+		Cell cell = findCell(cellX, cellY);
+		if (cell == null) {
+			cell = unusedCells.isEmpty() ? new Cell() : unusedCells.poll();
+			cell.x = cellX;
+			cell.y = cellY;
+			if ((cellCount + 1) * 2 > cells.length) {
+				Cell[] oldCells = cells;
+				cells = new Cell[oldCells.length * 2];
+				for (Cell oldCell : oldCells) {
+					if (oldCell != null) {
+						insertCell(oldCell);
+					}
+				}
+			}
+			insertCell(cell);
+			cellCount++;
+		}
+		return cell;
+	}
+
+	private void insertCell(Cell cell) {
+		int mask = cells.length - 1;
+		int i = indexOf(cell.x, cell.y, mask);
+		while (cells[i] != null) {
+			i = (i + 1) & mask;
+		}
+		cells[i] = cell;
+	}
+
+	private void removeFromCell(Cell cell, Entity entity) {
+		cell.remove(entity);
+		if (cell.size == 0) {
+			deleteCell(cell);
+			unusedCells.add(cell);
+		}
+	}
+
+	private void deleteCell(Cell cell) {
+		int mask = cells.length - 1;
+		int gap = indexOf(cell.x, cell.y, mask);
+		while (cells[gap] != cell) {
+			gap = (gap + 1) & mask;
+		}
+		// Move following cells back into the gap unless it lies before their own slot
+		for (int i = (gap + 1) & mask; cells[i] != null; i = (i + 1) & mask) {
+			int home = indexOf(cells[i].x, cells[i].y, mask);
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				cells[gap] = cells[i];
+				gap = i;
+			}
+		}
+		cells[gap] = null;
+		cellCount--;
+	}
+
+	private int toCell(double coordinate) {
+		double cell = Math.floor(coordinate / cellSize);
+		// Clamp to avoid overflows for Entities which have flown far away
+		return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, cell));
+	}
+
+	private static int indexOf(int cellX, int cellY, int mask) {
+		long key = (((long) cellX) << 32) | (cellY & 0xFFFFFFFFL);
+		return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+	}
+
+	/**
+	 * A reusable buffer for the Entities collected by a radius query.
+	 * @see EntitySpatialIndex#collect(double, double, double, Candidates)
+	 */
+	static class Candidates {
+		Entity[] entities = new Entity[16];
+		int size;
+
+		void add(Entity entity) {
+			if (size == entities.length) {
+				entities = Arrays.copyOf(entities, size * 2);
+			}
+			entities[size++] = entity;
+		}
+
+		/**
+		 * Sorts the Entities in the order they were added to the {@link Game}. This is
+		 * the order of the Entities group of the Game unless the Group implementation
+		 * changes the order of its elements. A heap sort is used since it does not
+		 * allocate any memory.
+		 * @see Entity#addSequence
+		 */
+		void sort() {
+			for (int i = size / 2 - 1; i >= 0; i--) {
+				siftDown(i, size);
+			}
+			for (int end = size - 1; end > 0; end--) {
+				Entity first = entities[0];
+				entities[0] = entities[end];
+				entities[end] = first;
+				siftDown(0, end);
+			}
+		}
+
+		private void siftDown(int i, int end) {
+			Entity entity = entities[i];
+			int child;
+			while ((child = 2 * i + 1) < end) {
+				if (child + 1 < end
+						&& entities[child + 1].addSequence > entities[child].addSequence)
+				{
+					child++;
+				}
+				if (entities[child].addSequence <= entity.addSequence) {
+					break;
+				}
+				entities[i] = entities[child];
+				i = child;
+			}
+			entities[i] = entity;
+		}
+
+		void clear() {
+			Arrays.fill(entities, 0, size, null);
+			size = 0;
+		}
+	}
+
+	/**
+	 * A single cell of the grid. Each Entity within the cell knows its own slot
+	 * which allows removing it in constant time.
+	 * @see Entity#indexCell
+	 * @see Entity#indexSlot
+	 */
+	static class Cell {
+		int x;
+		int y;
+		Entity[] entities = new Entity[4];
+		int size;
+
+		void add(Entity entity) {
+			if (size == entities.length) {
+				entities = Arrays.copyOf(entities, size * 2);
+			}
+			entities[size] = entity;
+			entity.indexCell = this;
+			entity.indexSlot = size;
+			size++;
+		}
+
+		void remove(Entity entity) {
+			int slot = entity.indexSlot;
+			Entity last = entities[size - 1];
+			entities[slot] = last;
+			last.indexSlot = slot;
+			entities[size - 1] = null;
+			size--;
+			entity.indexCell = null;
+			entity.indexSlot = -1;
+		}
+	}
+
+}
@@ -0,0 +1,226 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.Arrays;
+
+/**
+ * <p>Holds the position, velocity, size and rotation of all {@link Entity Entities}
+ * of a {@link Game} in parallel primitive arrays. Each Entity which is part of the
+ * Game owns exactly one slot within these arrays. The slots are always dense; when
+ * an Entity is {@link #release(int) released} other Entities are moved to fill the
+ * freed slot.</p>
+ *
+ * <p>While an Entity is attached to a store its getters and setters read and write
+ * the arrays of the store instead of its own fields. This allows the Game to
+ * {@link #integrate() move} all Entities by their velocity in a single loop over
+ * the arrays.</p>
+ *
+ * <p>The slots of all awake Entities come before the slots of all
+ * {@link Entity#isAsleep() sleeping} Entities. Only awake Entities are moved.</p>
+ *
+ * <p>This class is used internally by the Game and by the Entity class.</p>
+ *
+ * @see Entity#attachToStore(EntityStore)
+ * @see Entity#detachFromStore()
+ * @see Game#updateEntities()
+ */
+class EntityStore {
+
+	/**
+	 * The number of slots of a new store.
+	 */
+	public static final int INITIAL_CAPACITY = 64;
+
+	double[] positionX = new double[INITIAL_CAPACITY];
+	double[] positionY = new double[INITIAL_CAPACITY];
+	double[] velocityX = new double[INITIAL_CAPACITY];
+	double[] velocityY = new double[INITIAL_CAPACITY];
+	double[] rotation = new double[INITIAL_CAPACITY];
+	int[] size = new int[INITIAL_CAPACITY];
+	/**
+	 * True for each slot which was moved by the last call to {@link #integrate()}
+	 * and whose Entity has not yet {@link #takeMoved(int) taken} the flag.
+	 */
+	boolean[] moved = new boolean[INITIAL_CAPACITY];
+	/**
+	 * The Entity owning each slot.
+	 */
+	private Entity[] entities = new Entity[INITIAL_CAPACITY];
+	private int count;
+	/**
+	 * The slots from 0 to awakeCount are awake, all others are asleep.
+	 * @see #setAwake(int, boolean)
+	 */
+	private int awakeCount;
+
+	/**
+	 * Returns the number of used slots.
+	 * @return		a non-negative number
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the number of awake slots. These are the slots from 0 (inclusive) 
+	 * to the returned value (exclusive).
+	 * @return		a non-negative number
+	 */
+	public int getAwakeCount() {
+		return awakeCount;
+	}
+
+	/**
+	 * Returns true if the given slot is asleep.
+	 * @param slot		a slot from 0 (inclusive) to {@link #getCount()} (exclusive)
+	 * @return			true if the slot is asleep; otherwise false
+	 */
+	public boolean isAsleep(int slot) {
+		return slot >= awakeCount;
+	}
+
+	/**
+	 * Moves the given slot into the awake or the sleeping part of the arrays. The 
+	 * slot is swapped with the slot at the border between both parts. Both 
+	 * {@link Entity Entities} are told about their new slots.
+	 * @param slot		a slot from 0 (inclusive) to {@link #getCount()} (exclusive)
+	 * @param value		true to wake the slot up; false to put it asleep
+	 */
+	public void setAwake(int slot, boolean value) {
+		if (value && slot >= awakeCount) {
+			swap(slot, awakeCount);
+			awakeCount++;
+		} else if (!value && slot < awakeCount) {
+			awakeCount--;
+			swap(slot, awakeCount);
+		}
+	}
+
+	/**
+	 * Returns the {@link Entity} owning the given slot.
+	 * @param slot		a slot from 0 (inclusive) to {@link #getCount()} (exclusive)
+	 * @return			a non-null Entity
+	 */
+	public Entity getEntity(int slot) {
+		return entities[slot];
+	}
+
+	/**
+	 * Reserves a new awake slot for the given {@link Entity}. The values of the 
+	 * slot are not initialized.
+	 * @param entity		a non-null Entity which does not own a slot yet
+	 * @return				the new slot
+	 */
+	public int allocate(Entity entity) {
+		if (count == entities.length) {
+			grow();
+		}
+		int slot = count++;
+		entities[slot] = entity;
+		entity.storeSlot = slot;
+		moved[slot] = false;
+		// The first sleeping slot is moved to the end
+		swap(slot, awakeCount);
+		return awakeCount++;
+	}
+
+	/**
+	 * Frees the given slot. The freed slot is filled up so that all slots stay 
+	 * dense and the {@link Entity Entities} which were moved are told about 
+	 * their new slots. The values of the freed slot are lost.
+	 * @param slot		a slot from 0 (inclusive) to {@link #getCount()} (exclusive)
+	 */
+	public void release(int slot) {
+		Entity entity = entities[slot];
+		setAwake(slot, false);
+		slot = entity.storeSlot;
+		int last = --count;
+		swap(slot, last);
+		entities[last] = null;
+	}
+
+	/**
+	 * Swaps all values of both slots and tells their {@link Entity Entities} about 
+	 * their new slots.
+	 */
+	private void swap(int a, int b) {
+		if (a == b) {
+			return;
+		}
+		double tmp = positionX[a];
+		positionX[a] = positionX[b];
+		positionX[b] = tmp;
+		tmp = positionY[a];
+		positionY[a] = positionY[b];
+		positionY[b] = tmp;
+		tmp = velocityX[a];
+		velocityX[a] = velocityX[b];
+		velocityX[b] = tmp;
+		tmp = velocityY[a];
+		velocityY[a] = velocityY[b];
+		velocityY[b] = tmp;
+		tmp = rotation[a];
+		rotation[a] = rotation[b];
+		rotation[b] = tmp;
+		int tmpSize = size[a];
+		size[a] = size[b];
+		size[b] = tmpSize;
+		boolean tmpMoved = moved[a];
+		moved[a] = moved[b];
+		moved[b] = tmpMoved;
+		Entity entityA = entities[a];
+		Entity entityB = entities[b];
+		entities[a] = entityB;
+		entities[b] = entityA;
+		entityB.storeSlot = a;
+		entityA.storeSlot = b;
+	}
+
+	/**
+	 * Adds the velocity of each awake slot to its position and remembers which 
+	 * slots have been moved. No events are fired.
+	 * @see #takeMoved(int)
+	 */
+	public void integrate() {
+		double[] posX = positionX;
+		double[] posY = positionY;
+		double[] velX = velocityX;
+		double[] velY = velocityY;
+		boolean[] mov = moved;
+		for (int i = 0; i < awakeCount; i++) {
+			double vx = velX[i];
+			double vy = velY[i];
+			if (vx != 0 || vy != 0) {
+				posX[i] += vx;
+				posY[i] += vy;
+				mov[i] = true;
+			} else {
+				mov[i] = false;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether the given slot was moved by the last call to
+	 * {@link #integrate()} and resets the flag.
+	 * @param slot		a slot from 0 (inclusive) to {@link #getCount()} (exclusive)
+	 * @return			true if the slot was moved and the flag was not taken before
+	 */
+	public boolean takeMoved(int slot) {
+		boolean result = moved[slot];
+		moved[slot] = false;
+		return result;
+	}
+
+	private void grow() {
+		int capacity = entities.length * 2;
+		positionX = Arrays.copyOf(positionX, capacity);
+		positionY = Arrays.copyOf(positionY, capacity);
+		velocityX = Arrays.copyOf(velocityX, capacity);
+		velocityY = Arrays.copyOf(velocityY, capacity);
+		rotation = Arrays.copyOf(rotation, capacity);
+		size = Arrays.copyOf(size, capacity);
+		moved = Arrays.copyOf(moved, capacity);
+		entities = Arrays.copyOf(entities, capacity);
+	}
+
+}
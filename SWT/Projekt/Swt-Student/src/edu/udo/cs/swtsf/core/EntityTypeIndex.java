@@ -0,0 +1,107 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.udo.cs.swtsf.util.Group;
+import edu.udo.cs.swtsf.util.GroupFactory;
+
+/**
+ * <p>Keeps a {@link Group} for each type of {@link Entity} in a {@link Game} which
+ * contains all Entities of that type. An Entity belongs to the group of its own class,
+ * of each of its super classes below Entity and of each interface it implements.</p>
+ *
+ * <p>The {@link Game} keeps the index up to date. Entities are {@link #add(Entity)
+ * added} and {@link #remove(Entity) removed} together with the Entities group of
+ * the Game. Since the groups are created by the same {@link GroupFactory} as the
+ * Entities group they can be changed while they are iterated and keep the Entities
+ * in the same order.</p>
+ *
+ * <p>This class is used internally by the Game so that {@link EntityStream#ofType(Class)}
+ * only iterates over the Entities of the requested type.</p>
+ *
+ * @see Game#getAllEntities()
+ * @see EntityStream#ofType(Class)
+ */
+class EntityTypeIndex {
+
+	private final GroupFactory groupFactory;
+	/**
+	 * Maps each type to the group of all Entities of that type.
+	 */
+	private final Map<Class<?>, Group<Entity>> groups = new HashMap<>();
+	/**
+	 * Maps each class of Entity which was added so far to the groups it belongs to.
+	 * @see #getGroupsOf(Class)
+	 */
+	private final Map<Class<?>, List<Group<Entity>>> groupsOfClass = new HashMap<>();
+
+	public EntityTypeIndex(GroupFactory groupFactory) {
+		if (groupFactory == null) {
+			throw new IllegalArgumentException("groupFactory == null");
+		}
+		this.groupFactory = groupFactory;
+	}
+
+	/**
+	 * Adds the given {@link Entity} to the groups of all of its types.
+	 * @param entity		a non-null Entity which is not part of this index
+	 */
+	public void add(Entity entity) {
+		List<Group<Entity>> entityGroups = getGroupsOf(entity.getClass());
+		for (int i = 0; i < entityGroups.size(); i++) {
+			entityGroups.get(i).add(entity);
+		}
+	}
+
+	/**
+	 * Removes the given {@link Entity} from the groups of all of its types.
+	 * @param entity		a non-null Entity which is part of this index
+	 */
+	public void remove(Entity entity) {
+		List<Group<Entity>> entityGroups = getGroupsOf(entity.getClass());
+		for (int i = 0; i < entityGroups.size(); i++) {
+			entityGroups.get(i).remove(entity);
+		}
+	}
+
+	/**
+	 * <p>Returns the group of all {@link Entity Entities} of the given type. The group
+	 * is kept up to date and can be iterated at any time. If there never was an Entity
+	 * of the given type an empty group is created which will be filled as soon as such
+	 * Entities are added.</p>
+	 * @param type		a non-null type
+	 * @return			a non-null Group
+	 */
+	public Group<Entity> getGroup(Class<?> type) {
+		// Classes which were added before are not of this type if the group does not exist
+		return groups.computeIfAbsent(type, t -> groupFactory.createNewGroup());
+	}
+
+	private List<Group<Entity>> getGroupsOf(Class<?> entityClass) {
+		List<Group<Entity>> result = groupsOfClass.get(entityClass);
+		if (result == null) {
+			result = new ArrayList<>();
+			for (Class<?> cls = entityClass; cls != Entity.class; cls = cls.getSuperclass()) {
+				addGroupsOf(cls, result);
+			}
+			groupsOfClass.put(entityClass, result);
+		}
+		return result;
+	}
+
+	private void addGroupsOf(Class<?> type, List<Group<Entity>> result) {
+		Group<Entity> group = getGroup(type);
+		if (result.contains(group)) {
+			// An interface which was already visited through another type
+			return;
+		}
+		result.add(group);
+		for (Class<?> superInterface : type.getInterfaces()) {
+			addGroupsOf(superInterface, result);
+		}
+	}
+
+}
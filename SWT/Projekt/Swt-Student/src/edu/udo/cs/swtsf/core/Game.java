@@ -1,9 +1,22 @@
 package edu.udo.cs.swtsf.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import edu.udo.cs.swtsf.core.player.Player;
@@ -19,9 +32,36 @@ import edu.udo.cs.swtsf.view.ViewManager;
  * {@link GameKey player inputs} and to relay information about the game via 
  * {@link GameObserver GameObserver's}.</p>
  * <p>There should only be a single instance of {@link Game} per game being played.</p>
+ * <p>Several games may run at the same time as long as each game is only used by 
+ * one thread at a time. A game uses its own {@link GroupFactory}, 
+ * {@link #getRandom() random numbers} and {@link Entity#getID() IDs} for the 
+ * {@link Entity entities} created during its update cycles. Games which are given 
+ * the same seed and the same inputs thus produce the same results regardless of 
+ * other games running in parallel.</p>
  */
 public class Game {
 	
+	/**
+	 * <p>Chunks of {@link Entity entities} smaller than this are not split up 
+	 * between worker threads during a parallel update.</p>
+	 * @see #setParallelUpdatePool(ForkJoinPool)
+	 */
+	public static final int PARALLEL_MIN_CHUNK_SIZE = 128;
+	
+	/**
+	 * The game of each thread which is currently being updated or constructed.
+	 * @see #enterScope()
+	 * @see #nextEntityID()
+	 */
+	private static final ThreadLocal<Game> CURRENT_GAME = new ThreadLocal<>();
+	/**
+	 * Used for the {@link Entity#getID() IDs} of {@link Entity entities} which are 
+	 * created outside of any game. These IDs are negative so they never collide 
+	 * with the IDs given out by a game.
+	 * @see #nextEntityID()
+	 */
+	private static final AtomicInteger UNSCOPED_ENTITY_ID = new AtomicInteger();
+	
 	/**
 	 * Contains all {@link GameObserver observers}.
 	 * @see #addObserver(GameObserver)
@@ -29,20 +69,27 @@ public class Game {
 	 * @see #fireEntityAddedEvent(Entity)
 	 * @see #fireEntityRemovedEvent(Entity)
 	 */
-	private final Group<GameObserver> observerList = GroupFactory.get().createNewGroup();
+	private final Group<GameObserver> observerList;
 	/**
 	 * Contains all {@link GameScript scripts} that control the game logic.
 	 * @see #addScript(GameScript)
 	 * @see #removeScript(GameScript)
 	 * @see #update()
 	 */
-	private final Group<GameScript> scripts = GroupFactory.get().createNewGroup();
+	private final Group<GameScript> scripts;
 	/**
 	 * Contains all game {@link Entity entities}.
 	 * @see #addEntity(Entity)
 	 * @see #update()
 	 */
-	private final Group<Entity> entities = GroupFactory.get().createNewGroup();
+	private final Group<Entity> entities;
+	/**
+	 * Contains all {@link Entity entities} of {@link #entities} which are not 
+	 * {@link Entity#isAsleep() asleep}. Only these are moved and updated.
+	 * @see #updateEntities()
+	 * @see #wakeUp(Entity)
+	 */
+	private final Group<Entity> awakeEntities;
 	/**
 	 * Contains the keys that were pressed for the current update cycle.
 	 * @see #bufferKey(GameKey)
@@ -54,6 +101,167 @@ public class Game {
 	 * to a non-null value and never changed.
 	 */
 	private final Player player;
+	/**
+	 * Finds the pairs of {@link Entity Entities} which are checked for collisions.
+	 * @see #setCollisionBroadPhase(CollisionBroadPhase)
+	 * @see #update()
+	 */
+	private CollisionBroadPhase broadPhase = new SpatialHashBroadPhase();
+	/**
+	 * Is given all candidate pairs found by the {@link #broadPhase}.
+	 * @see #checkCollision(Entity, Entity)
+	 */
+	private final BiConsumer<Entity, Entity> collisionCheck = this::checkCollision;
+	/**
+	 * Decides which pairs of {@link Entity entities} are checked for collisions.
+	 * @see #getCollisionMatrix()
+	 */
+	private final CollisionMatrix collisionMatrix = new CollisionMatrix();
+	/**
+	 * The number of pairs of {@link Entity entities} checked during the last 
+	 * collision phase.
+	 * @see #getCollisionPairCount()
+	 */
+	private int collisionPairCount;
+	/**
+	 * Contains the same {@link Entity entities} as {@link #entities} sorted by 
+	 * their positions. Used to answer radius queries.
+	 * @see #getAllEntities()
+	 * @see #onEntityMoved(Entity)
+	 */
+	private final EntitySpatialIndex spatialIndex = new EntitySpatialIndex();
+	/**
+	 * Contains the same {@link Entity entities} as {@link #entities} grouped by 
+	 * their types. Used by {@link EntityStream#ofType(Class)}.
+	 * @see #getAllEntities()
+	 */
+	private final EntityTypeIndex typeIndex;
+	/**
+	 * Holds the position, velocity, size and rotation of all {@link Entity entities} 
+	 * within {@link #entities} in primitive arrays.
+	 * @see #updateEntities()
+	 */
+	private final EntityStore entityStore = new EntityStore();
+	/**
+	 * Entities added while {@link #entities} is being iterated over. These are 
+	 * not yet visible within the group and will be added to the 
+	 * {@link #spatialIndex} once the iteration has returned.
+	 * @see #beginEntityIteration()
+	 * @see #endEntityIteration()
+	 */
+	private final List<Entity> pendingIndexAdds = new ArrayList<>();
+	/**
+	 * The {@link Entity#addSequence} of the next {@link Entity} added to this game.
+	 * @see #addEntity(Entity)
+	 */
+	private long nextAddSequence;
+	/**
+	 * Reusable buffers for the candidates of radius queries. Queries made while 
+	 * another query is being iterated over use the next buffer.
+	 * @see IndexedRadiusStream#forEach(Consumer)
+	 */
+	private final List<EntitySpatialIndex.Candidates> radiusCandidates = new ArrayList<>();
+	private int radiusQueryDepth;
+	/**
+	 * Counts the ongoing iterations over {@link #entities}.
+	 * @see #beginEntityIteration()
+	 * @see #endEntityIteration()
+	 */
+	private int entityIterations;
+	/**
+	 * Used to update {@link Entity entities} in parallel or null if all entities 
+	 * are updated sequentially.
+	 * @see #setParallelUpdatePool(ForkJoinPool)
+	 */
+	private ForkJoinPool parallelPool;
+	/**
+	 * Contains the {@link Entity entities} which will be updated in parallel next.
+	 * @see #updateEntitiesInParallel()
+	 */
+	private final List<Entity> parallelChunk = new ArrayList<>();
+	/**
+	 * The number of awake {@link Entity entities} when the current parallel update 
+	 * began and the number of those visited so far.
+	 * @see #visitInParallelUpdate(Entity)
+	 */
+	private int parallelVisitTotal;
+	private int parallelVisitCount;
+	/**
+	 * Created once so that parallel updates do not allocate a new Consumer.
+	 * @see #updateEntitiesInParallel()
+	 */
+	private final Consumer<Entity> parallelVisitor = this::visitInParallelUpdate;
+	/**
+	 * The task executed by the current thread during a parallel update.
+	 * @see #deferEvent(Runnable)
+	 */
+	private final ThreadLocal<ParallelUpdateTask> currentTask = new ThreadLocal<>();
+	/**
+	 * True while worker threads are updating entities.
+	 * @see #isInParallelUpdate()
+	 */
+	private boolean inParallelUpdate;
+	/**
+	 * True if changes to the properties of {@link Entity entities} are reported to 
+	 * their observers once at the end of each update cycle.
+	 * @see #setEntityEventsBatched(boolean)
+	 */
+	private boolean entityEventsBatched;
+	/**
+	 * Entities with changes which have not yet been reported to their observers.
+	 * @see #onEntityChanged(Entity)
+	 * @see #fireEntityChangedEvents()
+	 */
+	private final List<Entity> changedEntities = new ArrayList<>();
+	/**
+	 * The {@link EntityPool pools} used to create {@link Entity entities} of certain 
+	 * classes.
+	 * @see #setEntityPool(Class, EntityPool)
+	 */
+	private final Map<Class<?>, EntityPool<?>> entityPools = new HashMap<>();
+	/**
+	 * Pooled {@link Entity entities} which were removed during the current update 
+	 * cycle. They are returned to their pools at the end of the cycle.
+	 * @see #finishUpdate()
+	 */
+	private final List<Entity> removedPooledEntities = new ArrayList<>();
+	/**
+	 * Creates all {@link Group groups} of this game and of the {@link Entity entities} 
+	 * created during its update cycles.
+	 * @see #getGroupFactory()
+	 */
+	private final GroupFactory groupFactory;
+	/**
+	 * The source of all random numbers of this game.
+	 * @see #getRandom()
+	 */
+	private final SeededRandom random;
+	/**
+	 * The seed of the {@link #random}.
+	 * @see #getSeed()
+	 */
+	private final long seed;
+	/**
+	 * Records the inputs of each update cycle or null if inputs are not recorded.
+	 * @see #setInputRecorder(InputRecorder)
+	 */
+	private InputRecorder inputRecorder;
+	/**
+	 * The {@link Entity#getID() ID} of the next {@link Entity} created during an 
+	 * update cycle of this game.
+	 * @see #nextEntityID()
+	 */
+	private int nextEntityID;
+	/**
+	 * The number of nested calls to {@link #enterScope()} on the current thread.
+	 */
+	private int scopeDepth;
+	/**
+	 * The game and GroupFactory which were current before {@link #enterScope()} 
+	 * was called. They are restored by {@link #exitScope()}.
+	 */
+	private Game outerGame;
+	private GroupFactory outerGroupFactory;
 	private double mouseX;
 	private double mouseY;
 	
@@ -61,8 +269,206 @@ public class Game {
 	 * Creates a new Player object and adds it as an Entity to this Game.
 	 */
 	public Game(Supplier<? extends Player> playerFactory) {
-		player = playerFactory == null ? new Player() : playerFactory.get();
-		addEntity(player);
+		this(playerFactory, GroupFactory.get(), new Random().nextLong());
+	}
+	
+	/**
+	 * <p>Creates a new game whose {@link #getRandom() random numbers} are generated 
+	 * from the given seed. The {@link Group groups} of the game are created by the 
+	 * {@link GroupFactory#get() current GroupFactory} of the calling thread.</p>
+	 * @param playerFactory		creates the {@link Player}. If this is null a default 
+	 * 							Player is created.
+	 * @param seed				the seed for {@link #getRandom()}
+	 */
+	public Game(Supplier<? extends Player> playerFactory, long seed) {
+		this(playerFactory, GroupFactory.get(), seed);
+	}
+	
+	/**
+	 * <p>Creates a new game whose {@link Group groups} are created by the given 
+	 * {@link GroupFactory} and whose {@link #getRandom() random numbers} are generated 
+	 * from the given seed.</p>
+	 * @param playerFactory					creates the {@link Player}. If this is null a 
+	 * 										default Player is created.
+	 * @param groupFactory					a non-null GroupFactory
+	 * @param seed							the seed for {@link #getRandom()}
+	 * @throws IllegalArgumentException		if groupFactory is null
+	 */
+	public Game(Supplier<? extends Player> playerFactory, GroupFactory groupFactory, long seed) {
+		if (groupFactory == null) {
+			throw new IllegalArgumentException("groupFactory == null");
+		}
+		this.groupFactory = groupFactory;
+		this.seed = seed;
+		random = new SeededRandom(seed);
+		observerList = groupFactory.createNewGroup();
+		scripts = groupFactory.createNewGroup();
+		entities = groupFactory.createNewGroup();
+		awakeEntities = groupFactory.createNewGroup();
+		typeIndex = new EntityTypeIndex(groupFactory);
+		enterScope();
+		try {
+			player = playerFactory == null ? new Player() : playerFactory.get();
+			addEntity(player);
+		} finally {
+			exitScope();
+		}
+	}
+	
+	/**
+	 * <p>Returns the {@link GroupFactory} which creates the {@link Group groups} of 
+	 * this game. It is also the {@link GroupFactory#get() current GroupFactory} during 
+	 * each update cycle so that all {@link Entity entities} created by scripts, 
+	 * behaviors and observers use it too.</p>
+	 * @return		a non-null GroupFactory
+	 */
+	public GroupFactory getGroupFactory() {
+		return groupFactory;
+	}
+	
+	/**
+	 * <p>Returns the {@link Random} which should be used for all random decisions 
+	 * within this game. Two games created with the same seed produce the same 
+	 * sequence of random numbers.</p>
+	 * <p>The returned Random should only be used by the thread updating this game. 
+	 * It can not be used during a {@link #setParallelUpdatePool(ForkJoinPool) 
+	 * parallel update} since the order of the calls would depend on the 
+	 * worker threads.</p>
+	 * @return		a non-null Random
+	 * @see #Game(Supplier, long)
+	 */
+	public Random getRandom() {
+		return random;
+	}
+	
+	/**
+	 * <p>Returns the seed of the {@link #getRandom() random numbers} of this game. 
+	 * If no seed was given to the constructor a random seed was chosen.</p>
+	 * @return		the seed of {@link #getRandom()}
+	 */
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * <p>Returns the current state of the {@link #getRandom() random numbers}. A 
+	 * game whose state is {@link #setRandomState(long) set} to the returned value 
+	 * continues with the same sequence of random numbers.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @return		the state of {@link #getRandom()}
+	 * @see GameSnapshot
+	 */
+	long getRandomState() {
+		return random.getState();
+	}
+	
+	/**
+	 * <p>Sets the state of the {@link #getRandom() random numbers} to a value 
+	 * returned by {@link #getRandomState()}.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param value		a state of {@link #getRandom()}
+	 * @see GameSnapshot
+	 */
+	void setRandomState(long value) {
+		random.setState(value);
+	}
+	
+	/**
+	 * <p>Sets the {@link InputRecorder} which is given the inputs of this game at 
+	 * the beginning of each update cycle. Setting the recorder to null stops the 
+	 * recording. The recorder is not closed by the game.</p>
+	 * @param recorder		an InputRecorder or null
+	 * @see #getInputRecorder()
+	 * @see InputReplay
+	 */
+	public void setInputRecorder(InputRecorder recorder) {
+		inputRecorder = recorder;
+	}
+	
+	/**
+	 * <p>Returns the {@link InputRecorder} of this game or null if inputs are not 
+	 * recorded.</p>
+	 * @return		an InputRecorder or null
+	 * @see #setInputRecorder(InputRecorder)
+	 */
+	public InputRecorder getInputRecorder() {
+		return inputRecorder;
+	}
+	
+	/**
+	 * <p>Returns the {@link Entity#getID() ID} for a newly created {@link Entity}. 
+	 * If the Entity is created on a thread which is currently updating a game the 
+	 * ID is taken from that game. The IDs of a game start at 0 and are counted up 
+	 * in the order the entities are created. Entities created anywhere else are 
+	 * given negative IDs which are unique within the JVM.</p>
+	 * <p>Entities created on a worker thread during a parallel update are given a 
+	 * temporary ID. They are numbered once all workers have finished in the order 
+	 * a sequential update would have created them.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param entity	the non-null Entity which is being created
+	 * @return		an ID which is unique among all entities created for the same game
+	 * @see #updateParallelChunk()
+	 */
+	static int nextEntityID(Entity entity) {
+		Game game = CURRENT_GAME.get();
+		if (game == null) {
+			return -1 - UNSCOPED_ENTITY_ID.getAndIncrement();
+		}
+		ParallelUpdateTask task = game.currentTask.get();
+		if (task != null) {
+			task.createdEntities.add(entity);
+			return -1;
+		}
+		return game.nextEntityID++;
+	}
+	
+	/**
+	 * <p>Returns the {@link Entity#getID() ID} which will be given to the next 
+	 * {@link Entity} created during an update cycle of this game.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @return		a non-negative ID
+	 * @see GameSnapshot
+	 */
+	int getNextEntityID() {
+		return nextEntityID;
+	}
+	
+	/**
+	 * <p>Sets the {@link Entity#getID() ID} which will be given to the next 
+	 * {@link Entity} created during an update cycle of this game.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param value		a non-negative ID
+	 * @see GameSnapshot
+	 */
+	void setNextEntityID(int value) {
+		nextEntityID = value;
+	}
+	
+	/**
+	 * <p>Makes this game and its {@link GroupFactory} current on the calling thread 
+	 * until the matching call to {@link #exitScope()}. Calls may be nested.</p>
+	 * @see #nextEntityID()
+	 */
+	void enterScope() {
+		if (scopeDepth++ == 0) {
+			outerGame = CURRENT_GAME.get();
+			outerGroupFactory = GroupFactory.get();
+			CURRENT_GAME.set(this);
+			GroupFactory.setCurrent(groupFactory);
+		}
+	}
+	
+	void exitScope() {
+		if (--scopeDepth == 0) {
+			if (outerGame == null) {
+				CURRENT_GAME.remove();
+			} else {
+				CURRENT_GAME.set(outerGame);
+			}
+			GroupFactory.setCurrent(outerGroupFactory);
+			outerGame = null;
+			outerGroupFactory = null;
+		}
 	}
 	
 	/**
@@ -158,53 +564,629 @@ public class Game {
 	 * and the movement of each {@link Entity}, and check for collisions between 
 	 * {@link Entity entities}.<br>
 	 * After an update cycle all buffered keys are cleared.<br>
+	 * <p>This is equal to calling {@link #updateScripts()}, {@link #updateCollisions()}, 
+	 * {@link #updateEntities()} and {@link #finishUpdate()} in this order.</p>
 	 * @see #areOverlapping(Entity, Entity)
 	 * @see #bufferKey(GameKey)
 	 */
 	public void update() {
-		// Update all GameScript's
-		scripts.forEach((script) -> script.onUpdate(this));
-		
-		// Check for collisions between all entities
-		entities.forEachTuple((a, b) -> {
-			if (!a.hasCollisionStrategies() && !b.hasCollisionStrategies()) {
+		updateScripts();
+		updateCollisions();
+		updateEntities();
+		finishUpdate();
+	}
+	
+	/**
+	 * <p>The first phase of an update cycle. Passes the inputs of this cycle to the 
+	 * {@link #setInputRecorder(InputRecorder) input recorder} and calls 
+	 * {@link GameScript#onUpdate(Game)} for all {@link GameScript scripts} of this game.</p>
+	 * <p>The phases of an update cycle are only public so they can be measured 
+	 * individually. Use {@link #update()} to run a complete update cycle.</p>
+	 * @see #update()
+	 */
+	public void updateScripts() {
+		enterScope();
+		try {
+			if (inputRecorder != null) {
+				inputRecorder.recordUpdate(pressedKeys, mouseX, mouseY);
+			}
+			scripts.forEach((script) -> script.onUpdate(this));
+		} finally {
+			exitScope();
+		}
+	}
+	
+	/**
+	 * <p>The second phase of an update cycle. Checks for collisions between all 
+	 * {@link Entity entities} and removes those which were disposed because of 
+	 * a collision.</p>
+	 * <p>Only pairs which are {@link CollisionMatrix#isRelevant(Entity, Entity) relevant} 
+	 * according to the {@link #getCollisionMatrix() collision matrix} are checked.</p>
+	 * <p>The phases of an update cycle are only public so they can be measured 
+	 * individually. Use {@link #update()} to run a complete update cycle.</p>
+	 * @see #update()
+	 * @see #setCollisionBroadPhase(CollisionBroadPhase)
+	 */
+	public void updateCollisions() {
+		enterScope();
+		try {
+			collisionPairCount = 0;
+			broadPhase.forEachCandidatePair(entities, collisionMatrix, collisionCheck);
+		} finally {
+			exitScope();
+		}
+	}
+	
+	/**
+	 * <p>The third phase of an update cycle. Moves all {@link Entity entities} by 
+	 * their velocity, updates their {@link EntityBehaviorStrategy behaviors} and 
+	 * removes those which were disposed by their behaviors.</p>
+	 * <p>All entities are moved at once before any behavior is updated. Afterwards 
+	 * each entity fires its position changed event right before its behaviors are 
+	 * updated.</p>
+	 * <p>Entities which are {@link Entity#isAsleep() asleep} are skipped. Entities 
+	 * which are neither moving nor have anything to do are put asleep.</p>
+	 * <p>The phases of an update cycle are only public so they can be measured 
+	 * individually. Use {@link #update()} to run a complete update cycle.</p>
+	 * @see #update()
+	 */
+	public void updateEntities() {
+		enterScope();
+		try {
+			moveEntities();
+			beginEntityIteration();
+			if (parallelPool == null) {
+				awakeEntities.forEach(this::updateEntity);
+			} else {
+				updateEntitiesInParallel();
+			}
+			endEntityIteration();
+		} finally {
+			exitScope();
+		}
+	}
+	
+	/**
+	 * <p>Moves all awake {@link Entity entities} by their velocity in a single loop over 
+	 * the {@link #entityStore} and updates the {@link #spatialIndex} for those which 
+	 * were moved. The position changed events are fired later by 
+	 * {@link #updateEntity(Entity)}.</p>
+	 * @see EntityStore#integrate()
+	 */
+	private void moveEntities() {
+		EntityStore store = entityStore;
+		store.integrate();
+		int count = store.getAwakeCount();
+		for (int i = 0; i < count; i++) {
+			if (store.moved[i]) {
+				spatialIndex.update(store.getEntity(i));
+			}
+		}
+	}
+	
+	/**
+	 * <p>Fires the position changed event of the given {@link Entity} if it was 
+	 * moved, updates its behaviors and removes it if it was disposed by its behaviors. 
+	 * Otherwise the entity is put asleep if it is idle.</p>
+	 * @param entity		a non-null entity of this game
+	 * @see #updateEntities()
+	 */
+	private void updateEntity(Entity entity) {
+		entity.updatePositionByVelocity();
+		if (entity.hasBehaviorStrategies()) {
+			entity.updateBehaviors();
+		}
+		if (entity.isDisposed()) {
+			removeDisposedEntity(entity);
+		} else {
+			sleepIfIdle(entity);
+		}
+	}
+	
+	/**
+	 * <p>Puts the given {@link Entity} asleep if it still belongs to this game, is 
+	 * not moving and is {@link Entity#isIdle() idle}.</p>
+	 * @param entity		a non-null entity
+	 * @see Entity#isAsleep()
+	 */
+	void sleepIfIdle(Entity entity) {
+		if (canSleep(entity)) {
+			entityStore.setAwake(entity.storeSlot, false);
+			awakeEntities.remove(entity);
+		}
+	}
+	
+	private boolean canSleep(Entity entity) {
+		return entity.getCurrentGame() == this && !entity.isAsleep() 
+				&& !entity.isMoving() && entity.isIdle();
+	}
+	
+	/**
+	 * <p>Called by a sleeping {@link Entity} of this game when it needs to be 
+	 * updated again.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param entity		a non-null sleeping entity which is part of this game
+	 * @see Entity#wakeUp()
+	 */
+	void wakeUp(Entity entity) {
+		entityStore.setAwake(entity.storeSlot, true);
+		awakeEntities.add(entity);
+	}
+	
+	/**
+	 * <p>Updates all {@link Entity entities} like {@link #updateEntity(Entity)} 
+	 * but uses the {@link #parallelPool} for all entities which are 
+	 * {@link Entity#isParallelUpdateSafe() safe} to be updated in parallel.</p>
+	 * <p>Consecutive safe entities are collected into chunks. Each entity which 
+	 * is not safe ends the current chunk. The chunk is updated in parallel and 
+	 * then the unsafe entity is updated on the current thread. All events, added 
+	 * entities and removals caused by the chunk are replayed in the order of the 
+	 * entities within the chunk before anything else happens. This way the 
+	 * result is exactly the same as if all entities were updated sequentially.</p>
+	 * @see ParallelEntityBehaviorStrategy
+	 */
+	private void updateEntitiesInParallel() {
+		parallelVisitTotal = awakeEntities.getSize();
+		parallelVisitCount = 0;
+		awakeEntities.forEach(parallelVisitor);
+		// Only needed if the group visited fewer entities than it contained
+		updateParallelChunk();
+	}
+	
+	private void visitInParallelUpdate(Entity entity) {
+		if (entity.isParallelUpdateSafe()) {
+			parallelChunk.add(entity);
+		} else {
+			updateParallelChunk();
+			updateEntity(entity);
+		}
+		// The last chunk must be updated while the group is still iterated
+		if (++parallelVisitCount == parallelVisitTotal) {
+			updateParallelChunk();
+		}
+	}
+	
+	/**
+	 * <p>Updates all {@link Entity entities} in the {@link #parallelChunk} and 
+	 * clears it afterwards. Small chunks are updated on the current thread.</p>
+	 * @see #updateEntitiesInParallel()
+	 */
+	private void updateParallelChunk() {
+		int size = parallelChunk.size();
+		if (size == 0) {
+			return;
+		}
+		try {
+			if (size < PARALLEL_MIN_CHUNK_SIZE) {
+				for (int i = 0; i < size; i++) {
+					updateEntity(parallelChunk.get(i));
+				}
 				return;
 			}
-			boolean aWasDisposed = a.isDisposed();
-			boolean bWasDisposed = b.isDisposed();
-			
-			if (areOverlapping(a, b)) {
-				a.onCollision(b);
-				b.onCollision(a);
+			int taskCount = Math.min(parallelPool.getParallelism(), 
+					size / PARALLEL_MIN_CHUNK_SIZE);
+			List<ParallelUpdateTask> tasks = new ArrayList<>(taskCount);
+			for (int i = 0; i < taskCount; i++) {
+				int from = (int) ((long) size * i / taskCount);
+				int to = (int) ((long) size * (i + 1) / taskCount);
+				tasks.add(new ParallelUpdateTask(from, to));
+			}
+			inParallelUpdate = true;
+			try {
+				parallelPool.invoke(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+					protected void compute() {
+						ForkJoinTask.invokeAll(tasks);
+					}
+				});
+			} finally {
+				inParallelUpdate = false;
 			}
-			if (!aWasDisposed && a.isDisposed()) {
-				entities.remove(a);
-				a.setCurrentGame(null);
-				fireEntityRemovedEvent(a);
+			for (ParallelUpdateTask task : tasks) {
+				for (Entity entity : task.createdEntities) {
+					entity.setID(nextEntityID++);
+				}
 			}
-			if (!bWasDisposed && b.isDisposed()) {
-				entities.remove(b);
-				b.setCurrentGame(null);
-				fireEntityRemovedEvent(b);
+			// Replay everything in the same order as a sequential update would do it
+			for (ParallelUpdateTask task : tasks) {
+				for (Runnable event : task.deferredEvents) {
+					event.run();
+				}
 			}
-		});
+		} finally {
+			parallelChunk.clear();
+		}
+	}
+	
+	/**
+	 * <p>Returns true while {@link Entity entities} of this game are updated on 
+	 * worker threads. Changes to entities which would notify observers or this 
+	 * game must be {@link #deferEvent(Runnable) deferred} during this time.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @return		true if a parallel update is in progress
+	 * @see #setParallelUpdatePool(ForkJoinPool)
+	 */
+	boolean isInParallelUpdate() {
+		return inParallelUpdate;
+	}
+	
+	/**
+	 * <p>Records an event which happened on a worker thread during a parallel 
+	 * update. The event will be run on the updating thread once all workers 
+	 * have finished.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param event		a non-null event
+	 * @throws IllegalStateException	if the current thread is not updating entities 
+	 * 									of this game
+	 * @see #isInParallelUpdate()
+	 */
+	void deferEvent(Runnable event) {
+		ParallelUpdateTask task = currentTask.get();
+		if (task == null) {
+			throw new IllegalStateException(
+					"Entities can not be changed from outside during a parallel update");
+		}
+		task.deferredEvents.add(event);
+	}
+	
+	/**
+	 * <p>Sets the {@link ForkJoinPool} which is used to update {@link Entity entities} 
+	 * in parallel. If the pool is null, which is the default, all entities are 
+	 * updated sequentially on the thread calling {@link #update()}.</p>
+	 * <p>Only entities whose behaviors are all 
+	 * {@link ParallelEntityBehaviorStrategy parallel strategies} will be updated 
+	 * in parallel. The results are exactly the same as with sequential updates.</p>
+	 * <p>This method should not be called during an update cycle.</p>
+	 * @param pool		a ForkJoinPool or null
+	 * @see #getParallelUpdatePool()
+	 * @see ParallelEntityBehaviorStrategy
+	 */
+	public void setParallelUpdatePool(ForkJoinPool pool) {
+		parallelPool = pool;
+	}
+	
+	/**
+	 * <p>Returns the {@link ForkJoinPool} which is used to update {@link Entity entities} 
+	 * in parallel or null if entities are updated sequentially.</p>
+	 * @return		a ForkJoinPool or null
+	 * @see #setParallelUpdatePool(ForkJoinPool)
+	 */
+	public ForkJoinPool getParallelUpdatePool() {
+		return parallelPool;
+	}
+	
+	/**
+	 * <p>Updates a contiguous range of the {@link #parallelChunk} on a worker 
+	 * thread. All events are recorded instead of being fired. Entities created by 
+	 * the task are recorded to be numbered afterwards.</p>
+	 * @see #deferEvent(Runnable)
+	 * @see #nextEntityID(Entity)
+	 */
+	private class ParallelUpdateTask extends RecursiveAction {
 		
-		// Update all entities
-		entities.forEach((entity) -> {
-			entity.updatePositionByVelocity();
-			if (!entity.hasBehaviorStrategies()) {
-				return;
+		private static final long serialVersionUID = 1L;
+		
+		final List<Runnable> deferredEvents = new ArrayList<>();
+		final List<Entity> createdEntities = new ArrayList<>();
+		private final int from;
+		private final int to;
+		
+		ParallelUpdateTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected void compute() {
+			currentTask.set(this);
+			Game outerGame = CURRENT_GAME.get();
+			CURRENT_GAME.set(Game.this);
+			GroupFactory outerFactory = GroupFactory.get();
+			GroupFactory.setCurrent(groupFactory);
+			try {
+				for (int i = from; i < to; i++) {
+					Entity entity = parallelChunk.get(i);
+					entity.updatePositionByVelocity();
+					if (entity.hasBehaviorStrategies()) {
+						entity.updateBehaviors();
+					}
+					if (entity.isDisposed()) {
+						deferredEvents.add(() -> removeDisposedEntity(entity));
+					} else if (canSleep(entity)) {
+						deferredEvents.add(() -> sleepIfIdle(entity));
+					}
+				}
+			} finally {
+				currentTask.remove();
+				if (outerGame == null) {
+					CURRENT_GAME.remove();
+				} else {
+					CURRENT_GAME.set(outerGame);
+				}
+				GroupFactory.setCurrent(outerFactory);
 			}
-			entity.updateBehaviors();
-			if (entity.isDisposed()) {
-				entities.remove(entity);
-				entity.setCurrentGame(null);
-				fireEntityRemovedEvent(entity);
+		}
+	}
+	
+	/**
+	 * <p>The last phase of an update cycle. Reports all changes to 
+	 * {@link Entity entities} if entity events are 
+	 * {@link #setEntityEventsBatched(boolean) batched} and clears all buffered keys.</p>
+	 * <p>The phases of an update cycle are only public so they can be measured 
+	 * individually. Use {@link #update()} to run a complete update cycle.</p>
+	 * @see #update()
+	 * @see #bufferKey(GameKey)
+	 */
+	public void finishUpdate() {
+		enterScope();
+		try {
+			fireEntityChangedEvents();
+			releasePooledEntities();
+			pressedKeys.clear();
+		} finally {
+			exitScope();
+		}
+	}
+	
+	/**
+	 * <p>Returns all pooled {@link Entity entities} which were removed since the last 
+	 * call to their {@link EntityPool pools}. All observers have been notified of 
+	 * their removal at this point.</p>
+	 * @see #removeDisposedEntity(Entity)
+	 */
+	private void releasePooledEntities() {
+		int count = removedPooledEntities.size();
+		for (int i = 0; i < count; i++) {
+			Entity entity = removedPooledEntities.get(i);
+			// The Entity may have been added to a game again in the meantime
+			if (entity.pool != null && entity.getCurrentGame() == null) {
+				entity.pool.release(entity);
 			}
-		});
+		}
+		removedPooledEntities.clear();
+	}
+	
+	/**
+	 * <p>Sets the {@link EntityPool} used to create {@link Entity entities} of the given 
+	 * class. Entities taken from the pool are returned to it by this game after they 
+	 * were removed. Setting a pool to null removes it.</p>
+	 * <p>The pool is not used automatically. Code which creates entities of the 
+	 * given class has to {@link #getEntityPool(Class) ask} for it.</p>
+	 * @param type							the non-null class of the pooled entities
+	 * @param pool							the pool or null
+	 * @throws IllegalArgumentException		if type is null
+	 * @see #getEntityPool(Class)
+	 */
+	public <T extends Entity> void setEntityPool(Class<T> type, EntityPool<T> pool) {
+		if (type == null) {
+			throw new IllegalArgumentException("type == null");
+		}
+		if (pool == null) {
+			entityPools.remove(type);
+		} else {
+			entityPools.put(type, pool);
+		}
+	}
+	
+	/**
+	 * <p>Returns the {@link EntityPool} used to create {@link Entity entities} of the 
+	 * given class or null if entities of this class are not pooled.</p>
+	 * @param type		the class of the pooled entities
+	 * @return			an EntityPool or null
+	 * @see #setEntityPool(Class, EntityPool)
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Entity> EntityPool<T> getEntityPool(Class<T> type) {
+		return (EntityPool<T>) entityPools.get(type);
+	}
+	
+	/**
+	 * <p>Returns all {@link EntityPool pools} of this game. The returned collection 
+	 * can not be modified.</p>
+	 * @return		a non-null collection
+	 * @see #setEntityPool(Class, EntityPool)
+	 */
+	public Collection<EntityPool<?>> getEntityPools() {
+		return Collections.unmodifiableCollection(entityPools.values());
+	}
+	
+	/**
+	 * <p>Sets whether changes to the position, size, rotation and velocity of 
+	 * {@link Entity entities} are reported to their {@link EntityObserver observers} 
+	 * immediately, which is the default, or in batches.</p>
+	 * <p>In batched mode an entity only remembers which of its properties have changed. 
+	 * At the end of each update cycle its observers are notified once by 
+	 * {@link EntityObserver#onPropertiesChanged(Entity, int)} no matter how often the 
+	 * properties have changed. Changes made outside of an update cycle are reported at 
+	 * the end of the next one. When an entity is removed from this game its pending 
+	 * changes are reported before the removal.</p>
+	 * <p>All pending changes are reported when batched mode is turned off.</p>
+	 * @param value		true to batch entity events
+	 * @see #isEntityEventsBatched()
+	 * @see EntityObserver#onPropertiesChanged(Entity, int)
+	 */
+	public void setEntityEventsBatched(boolean value) {
+		entityEventsBatched = value;
+		if (!value) {
+			fireEntityChangedEvents();
+		}
+	}
+	
+	/**
+	 * <p>Returns true if changes to {@link Entity entities} are reported to their 
+	 * observers once at the end of each update cycle.</p>
+	 * @return		true if entity events are batched; otherwise false
+	 * @see #setEntityEventsBatched(boolean)
+	 */
+	public boolean isEntityEventsBatched() {
+		return entityEventsBatched;
+	}
+	
+	/**
+	 * <p>Called by an {@link Entity} of this game when one of its properties has 
+	 * changed for the first time since its changes were last reported.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param entity		a non-null entity which is part of this game
+	 * @see #setEntityEventsBatched(boolean)
+	 */
+	void onEntityChanged(Entity entity) {
+		changedEntities.add(entity);
+	}
+	
+	/**
+	 * <p>Reports the pending changes of all changed {@link Entity entities} to their 
+	 * observers in the order in which the entities were first changed. Entities which 
+	 * are changed by the observers will be reported the next time.</p>
+	 * @see #onEntityChanged(Entity)
+	 */
+	private void fireEntityChangedEvents() {
+		int count = changedEntities.size();
+		if (count == 0) {
+			return;
+		}
+		for (int i = 0; i < count; i++) {
+			changedEntities.get(i).firePendingChanges();
+		}
+		changedEntities.subList(0, count).clear();
+	}
+	
+	/**
+	 * <p>Checks whether the {@link Entity entities} {@code a} and {@code b} are 
+	 * colliding and removes them from the game if they were disposed because of 
+	 * the collision.</p>
+	 * <p>This method is called for each pair found by the {@link CollisionBroadPhase}.</p>
+	 * @param a		a non-null entity
+	 * @param b		a non-null entity
+	 * @see #areOverlapping(Entity, Entity)
+	 */
+	private void checkCollision(Entity a, Entity b) {
+		collisionPairCount++;
+		if (!collisionMatrix.isRelevant(a, b)) {
+			return;
+		}
+		boolean aWasDisposed = a.isDisposed();
+		boolean bWasDisposed = b.isDisposed();
 		
-		// Clear pressed keys for next cycle
-		pressedKeys.clear();
+		if (areOverlapping(a, b)) {
+			a.onCollision(b);
+			b.onCollision(a);
+		}
+		if (!aWasDisposed && a.isDisposed()) {
+			removeDisposedEntity(a);
+		}
+		if (!bWasDisposed && b.isDisposed()) {
+			removeDisposedEntity(b);
+		}
+	}
+	
+	/**
+	 * <p>Removes a disposed {@link Entity} from this game and notifies all 
+	 * {@link GameObserver observers}.</p>
+	 * @param entity		a non-null disposed entity which is part of this game
+	 */
+	private void removeDisposedEntity(Entity entity) {
+		entities.remove(entity);
+		if (!entity.isAsleep()) {
+			awakeEntities.remove(entity);
+		}
+		spatialIndex.remove(entity);
+		typeIndex.remove(entity);
+		entity.detachFromStore();
+		entity.setCurrentGame(null);
+		fireEntityRemovedEvent(entity);
+		if (entity.isPooled()) {
+			removedPooledEntities.add(entity);
+		}
+	}
+	
+	/**
+	 * <p>Must be called before iterating over {@link #entities}. Entities which are 
+	 * added during the iteration will only be added to the {@link #spatialIndex} 
+	 * after the iteration has returned, since the group will not contain them 
+	 * before either.</p>
+	 * @see #endEntityIteration()
+	 */
+	private void beginEntityIteration() {
+		entityIterations++;
+	}
+	
+	/**
+	 * <p>Must be called after an iteration over {@link #entities} has returned.</p>
+	 * @see #beginEntityIteration()
+	 */
+	private void endEntityIteration() {
+		entityIterations--;
+		if (entityIterations == 0 && !pendingIndexAdds.isEmpty()) {
+			for (int i = 0; i < pendingIndexAdds.size(); i++) {
+				Entity entity = pendingIndexAdds.get(i);
+				if (entity.getCurrentGame() == this) {
+					spatialIndex.add(entity);
+				}
+			}
+			pendingIndexAdds.clear();
+		}
+	}
+	
+	/**
+	 * <p>Called by an {@link Entity} of this game each time its position has changed.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param entity		a non-null entity which is part of this game
+	 * @see Entity#setPosition(double, double)
+	 */
+	void onEntityMoved(Entity entity) {
+		spatialIndex.update(entity);
+	}
+	
+	/**
+	 * <p>Sets the {@link CollisionBroadPhase} which is used to find all pairs of 
+	 * {@link Entity Entities} that need to be checked for collisions within each 
+	 * update cycle. By default a {@link SpatialHashBroadPhase} is used.</p>
+	 * <p>Use {@link CollisionBroadPhase#BRUTE_FORCE} to check all pairs of Entities.</p>
+	 * <p>This method should not be called during an update cycle.</p>
+	 * @param value							a non-null CollisionBroadPhase
+	 * @throws IllegalArgumentException		if value is null
+	 * @see #getCollisionBroadPhase()
+	 * @see #update()
+	 */
+	public void setCollisionBroadPhase(CollisionBroadPhase value) {
+		if (value == null) {
+			throw new IllegalArgumentException("value == null");
+		}
+		broadPhase = value;
+	}
+	
+	/**
+	 * <p>Returns the {@link CollisionBroadPhase} which is used to find all pairs of 
+	 * {@link Entity Entities} that need to be checked for collisions.</p>
+	 * @return		a non-null CollisionBroadPhase
+	 * @see #setCollisionBroadPhase(CollisionBroadPhase)
+	 */
+	public CollisionBroadPhase getCollisionBroadPhase() {
+		return broadPhase;
+	}
+	
+	/**
+	 * <p>Returns the {@link CollisionMatrix} which decides which pairs of 
+	 * {@link Entity Entities} are checked for collisions. The matrix can be changed 
+	 * to prevent whole {@link Entity#getCollisionLayer() collision layers} from 
+	 * colliding with each other.</p>
+	 * @return		the non-null CollisionMatrix of this game
+	 * @see Entity#setCollisionLayer(int)
+	 * @see Entity#setCollisionMask(int)
+	 */
+	public CollisionMatrix getCollisionMatrix() {
+		return collisionMatrix;
+	}
+	
+	/**
+	 * <p>Returns the number of candidate pairs of {@link Entity entities} which were 
+	 * checked for a collision during the last {@link #updateCollisions() collision phase}. 
+	 * This includes pairs which were rejected by the {@link #getCollisionMatrix() 
+	 * collision matrix}.</p>
+	 * @return		a non-negative number
+	 * @see #setCollisionBroadPhase(CollisionBroadPhase)
+	 */
+	public int getCollisionPairCount() {
+		return collisionPairCount;
 	}
 	
 	/**
@@ -259,6 +1241,10 @@ public class Game {
 		if (entity == null) {
 			throw new NullPointerException("entity == null");
 		}
+		if (inParallelUpdate) {
+			deferEvent(() -> addEntity(entity));
+			return;
+		}
 		if (entity.getCurrentGame() != null) {
 			throw new IllegalStateException(
 					entity+".getCurrentGame() == "+entity.getCurrentGame());
@@ -270,8 +1256,20 @@ public class Game {
 			fireEntityAddedEvent(entity);
 			entity.setCurrentGame(null);
 			fireEntityRemovedEvent(entity);
+			if (entity.isPooled()) {
+				removedPooledEntities.add(entity);
+			}
 		} else {
+			entity.addSequence = nextAddSequence++;
 			entities.add(entity);
+			awakeEntities.add(entity);
+			typeIndex.add(entity);
+			entity.attachToStore(entityStore);
+			if (entityIterations > 0) {
+				pendingIndexAdds.add(entity);
+			} else {
+				spatialIndex.add(entity);
+			}
 			fireEntityAddedEvent(entity);
 		}
 	}
@@ -281,20 +1279,197 @@ public class Game {
 	 * {@link Entity Entities} in the game which are not {@link Entity#isDisposed() 
 	 * disposed}. The EntityStream can be used to iterate over all Entities or 
 	 * over a subset of Entities based on various filters.</p>
+	 * <p>If the first radius query of the stream is 
+	 * {@link EntityStream#withinRadiusOfPoint(double, double, double)} or 
+	 * {@link EntityStream#withinRadiusOfEntity(Entity, double)} the stream will 
+	 * only look at Entities close to the center of the query instead of iterating 
+	 * over all Entities in the game.</p>
+	 * <p>If {@link EntityStream#ofType(Class)} is used before the first radius 
+	 * query the stream will only iterate over the Entities of that type.</p>
 	 * @return		a new non-null {@link EntityStream}
 	 * @see EntityStream
 	 * @see EntityStream#forEach(Consumer)
 	 */
 	public EntityStream<Entity> getAllEntities() {
-		return new EntityStream<Entity>() {
-			public void forEach(Consumer<Entity> action) {
-				entities.forEach(e -> {
-					if (!e.isDisposed()) {
+		return new GameEntityStream<>(null, entities);
+	}
+	
+	/**
+	 * <p>Returns the number of {@link Entity entities} which are currently part of 
+	 * this game. Entities which are added while the entities are being updated are 
+	 * only counted once the update is finished.</p>
+	 * @return		a non-negative number
+	 * @see #addEntity(Entity)
+	 */
+	public int getEntityCount() {
+		return entities.getSize();
+	}
+	
+	/**
+	 * <p>The {@link EntityStream} returned by {@link #getAllEntities()}. All 
+	 * filters are collected into a single condition until a radius query is made. 
+	 * The radius query is then answered with the help of the {@link #spatialIndex}.</p>
+	 * <p>A type filter made with {@link #ofType(Class)} replaces the Entities 
+	 * iterated over by the group of that type from the {@link #typeIndex}. Since all 
+	 * filters are tested for each Entity this does not depend on the order of the 
+	 * filters.</p>
+	 * 
+	 * @param <T> the type of {@link Entity Entities} within this stream
+	 * @see IndexedRadiusStream
+	 */
+	private class GameEntityStream<T extends Entity> implements EntityStream<T> {
+		
+		/**
+		 * All filters of this stream combined into one or null if there are none.
+		 */
+		protected final Predicate<T> condition;
+		/**
+		 * The Entities iterated over. Either {@link #entities} or a group of the 
+		 * {@link #typeIndex}.
+		 */
+		protected final Group<Entity> source;
+		
+		GameEntityStream(Predicate<T> condition, Group<Entity> source) {
+			this.condition = condition;
+			this.source = source;
+		}
+		
+		@SuppressWarnings("unchecked")
+		public void forEach(Consumer<T> action) {
+			beginEntityIteration();
+			try {
+				source.forEach(e -> {
+					if (!e.isDisposed() && (condition == null || condition.test((T) e))) {
+						action.accept((T) e);
+					}
+				});
+			} finally {
+				endEntityIteration();
+			}
+		}
+		
+		public EntityStream<T> filter(Predicate<T> filter) {
+			return new GameEntityStream<>(condition == null ? filter : condition.and(filter), source);
+		}
+		
+		@SuppressWarnings("unchecked")
+		public <K extends Entity> EntityStream<K> ofType(Class<K> entityType) {
+			if (entityType == null) {
+				throw new IllegalArgumentException("entityType == null");
+			}
+			if (entityType == Entity.class) {
+				return (EntityStream<K>) this;
+			}
+			Predicate<K> typeCondition = e -> entityType.isInstance(e);
+			if (condition != null) {
+				typeCondition = typeCondition.and((Predicate<K>) condition);
+			}
+			if (source != entities) {
+				// Already restricted to another type, the type condition keeps the stream correct
+				return new GameEntityStream<>(typeCondition, source);
+			}
+			return new GameEntityStream<>(typeCondition, typeIndex.getGroup(entityType));
+		}
+		
+		public EntityStream<T> withinRadiusOfPoint(double x, double y, double radius) {
+			if (radius < 0) {
+				throw new IllegalArgumentException("radius="+radius);
+			}
+			return new IndexedRadiusStream<>(condition, source, null, x, y, radius);
+		}
+		
+		public EntityStream<T> withinRadiusOfEntity(Entity other, double radius) {
+			if (other == null) {
+				throw new IllegalArgumentException("other == null");
+			}
+			if (radius < 0) {
+				throw new IllegalArgumentException("radius="+radius);
+			}
+			return new IndexedRadiusStream<>(condition, source, other, 0, 0, radius);
+		}
+	}
+	
+	/**
+	 * <p>An {@link EntityStream} containing all {@link Entity Entities} within a 
+	 * radius around a point or around another Entity which also pass the filters 
+	 * of the {@link GameEntityStream} it was created from.</p>
+	 * <p>The Entities close to the center are taken from the {@link #spatialIndex} 
+	 * at the beginning of an iteration and sorted in the order they were added to 
+	 * the game, which is the order of the source group. The filters and the 
+	 * distance are tested for each Entity right before it is passed on, exactly 
+	 * like a chain of {@link EntityStream.FilteredEntityStream filters} would. If 
+	 * the radius is so large that the index would look at more cells than there 
+	 * are Entities in the source of the stream, the source is iterated over 
+	 * instead.</p>
+	 * 
+	 * @param <T> the type of {@link Entity Entities} within this stream
+	 */
+	private class IndexedRadiusStream<T extends Entity> implements EntityStream<T> {
+		
+		private final Predicate<T> condition;
+		/**
+		 * The source of the {@link GameEntityStream} this stream was created from.
+		 */
+		private final Group<Entity> source;
+		/**
+		 * The Entity at the center of the query or null if the center is a point.
+		 */
+		private final Entity center;
+		private final double x;
+		private final double y;
+		private final double radius;
+		
+		IndexedRadiusStream(Predicate<T> condition, Group<Entity> source, Entity center, 
+				double x, double y, double radius) 
+		{
+			this.condition = condition;
+			this.source = source;
+			this.center = center;
+			this.x = x;
+			this.y = y;
+			this.radius = radius;
+		}
+		
+		@SuppressWarnings("unchecked")
+		public void forEach(Consumer<T> action) {
+			double centerX = center == null ? x : center.getX();
+			double centerY = center == null ? y : center.getY();
+			if (spatialIndex.getCellCount(centerX, centerY, radius) > source.getSize()) {
+				// The index would look at more cells than there are Entities
+				new GameEntityStream<>(condition, source).forEach(e -> {
+					if (isWithinRadius(e)) {
 						action.accept(e);
 					}
 				});
+				return;
+			}
+			if (radiusQueryDepth == radiusCandidates.size()) {
+				radiusCandidates.add(new EntitySpatialIndex.Candidates());
+			}
+			EntitySpatialIndex.Candidates candidates = radiusCandidates.get(radiusQueryDepth++);
+			try {
+				spatialIndex.collect(centerX, centerY, radius, candidates);
+				candidates.sort();
+				for (int i = 0; i < candidates.size; i++) {
+					T e = (T) candidates.entities[i];
+					if (!e.isDisposed() && (condition == null || condition.test(e)) 
+							&& isWithinRadius(e)) 
+					{
+						action.accept(e);
+					}
+				}
+			} finally {
+				candidates.clear();
+				radiusQueryDepth--;
 			}
-		};
+		}
+		
+		private boolean isWithinRadius(Entity e) {
+			if (center == null) {
+				return e.getDistanceTo(x, y) <= radius;
+			}
+			return e.getDistanceTo(center) <= radius;
+		}
 	}
 	
 	/**
@@ -332,6 +1507,28 @@ public class Game {
 		scripts.remove(script);
 	}
 	
+	/**
+	 * <p>Writes all {@link GameScript scripts} of this game in the order they are 
+	 * updated.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param out		a non-null encoder
+	 * @see GameSnapshot
+	 */
+	void writeScripts(SnapshotEncoder out) {
+		out.putGroup(scripts);
+	}
+	
+	/**
+	 * <p>Replaces all {@link GameScript scripts} of this game with those written 
+	 * by {@link #writeScripts(SnapshotEncoder)}.</p>
+	 * <p>This method is supposed to be used only internally.</p>
+	 * @param in		a non-null decoder
+	 * @see GameSnapshot
+	 */
+	void readScripts(SnapshotDecoder in) {
+		in.getGroup(scripts, GameScript.class);
+	}
+	
 	/**
 	 * <p>Adds a {@link GameObserver} to this game. A GameObserver will be notified 
 	 * every time an {@link Entity} has been added to or removed from this game.</p>
@@ -378,4 +1575,49 @@ public class Game {
 		observerList.forEach((obs) -> obs.onEntityRemoved(this, entity));
 	}
 	
+	/**
+	 * <p>The {@link Random} of a game. It generates exactly the same numbers as a 
+	 * Random with the same seed but its state can be read and set so that a 
+	 * {@link GameSnapshot} can continue the sequence.</p>
+	 */
+	private class SeededRandom extends Random {
+		
+		private static final long serialVersionUID = 1L;
+		private static final long MULTIPLIER = 0x5DEECE66DL;
+		private static final long ADDEND = 0xBL;
+		private static final long MASK = (1L << 48) - 1;
+		
+		/*
+		 * Set by setSeed, which is called by the constructor of Random. It 
+		 * must therefore not have an initializer.
+		 */
+		private long state;
+		
+		SeededRandom(long seed) {
+			super(seed);
+		}
+		
+		public synchronized void setSeed(long seed) {
+			super.setSeed(seed);
+			state = (seed ^ MULTIPLIER) & MASK;
+		}
+		
+		protected int next(int bits) {
+			if (inParallelUpdate) {
+				throw new IllegalStateException(
+						"Random numbers can not be used during a parallel update");
+			}
+			state = (state * MULTIPLIER + ADDEND) & MASK;
+			return (int) (state >>> (48 - bits));
+		}
+		
+		long getState() {
+			return state;
+		}
+		
+		void setState(long value) {
+			state = value & MASK;
+		}
+	}
+	
 }
\ No newline at end of file
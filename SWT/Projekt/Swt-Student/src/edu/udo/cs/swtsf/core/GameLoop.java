@@ -0,0 +1,321 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import edu.udo.cs.swtsf.util.Group;
+import edu.udo.cs.swtsf.util.GroupFactory;
+
+/**
+ * <p>Updates a {@link Game} at a fixed rate which does not depend on how often or
+ * how regularly the GameLoop itself is {@link #advance() advanced}. The time is
+ * measured with {@link System#nanoTime()}.</p>
+ *
+ * <p>Each time the GameLoop is advanced the time since the previous frame is added
+ * to an accumulator. As long as the accumulator holds at least one
+ * {@link #getTimestepNanos() timestep} the Game is updated and the timestep is taken
+ * from the accumulator. If the GameLoop falls behind, no more than
+ * {@link #getMaxUpdatesPerFrame()} update cycles are performed within a single frame.
+ * Any time that is left over after that is dropped and counted as
+ * {@link #getSkippedUpdates() skipped}, so that the Game slows down instead of trying
+ * to catch up forever.</p>
+ *
+ * <p>The GameLoop does not depend on any user interface. A user interface can call
+ * {@link #advance()} from its own timer and use the {@link GameLoopListener} to pass
+ * inputs to the Game and to render the frame. Without a user interface the GameLoop
+ * can be {@link #run() run} on its own thread or be {@link #runUpdates(long) updated}
+ * as fast as possible.</p>
+ *
+ * @see GameLoopListener
+ * @see Game#update()
+ */
+public class GameLoop {
+
+	/**
+	 * The default time in between two update cycles in nanoseconds; 25 milliseconds.
+	 */
+	public static final long DEFAULT_TIMESTEP_NANOS = TimeUnit.MILLISECONDS.toNanos(25);
+	/**
+	 * By default at most this many update cycles are performed per frame.
+	 */
+	public static final int DEFAULT_MAX_UPDATES_PER_FRAME = 5;
+
+	/**
+	 * Contains all {@link GameLoopListener listeners}.
+	 * @see #addListener(GameLoopListener)
+	 * @see #removeListener(GameLoopListener)
+	 */
+	private final Group<GameLoopListener> listeners = GroupFactory.get().createNewGroup();
+	private final Game game;
+	private long timestepNanos = DEFAULT_TIMESTEP_NANOS;
+	private int maxUpdatesPerFrame = DEFAULT_MAX_UPDATES_PER_FRAME;
+	/**
+	 * The time stamp of the previous frame or -1 if there was none yet.
+	 * @see #advance(long)
+	 * @see #reset()
+	 */
+	private long lastFrameNanos = -1;
+	/**
+	 * The time which has passed but has not yet been simulated.
+	 */
+	private long accumulatedNanos;
+	private long updateCount;
+	private long skippedUpdates;
+	private double interpolationAlpha;
+	/**
+	 * True while {@link #run()} is executing. Only one thread can set it.
+	 */
+	private final AtomicBoolean running = new AtomicBoolean();
+	/**
+	 * Set by {@link #stop()} to make {@link #run()} return.
+	 */
+	private volatile boolean stopRequested;
+
+	/**
+	 * Creates a new GameLoop for the given {@link Game}.
+	 * @param game							a non-null Game
+	 * @throws IllegalArgumentException		if game is null
+	 */
+	public GameLoop(Game game) {
+		if (game == null) {
+			throw new IllegalArgumentException("game == null");
+		}
+		this.game = game;
+	}
+
+	/**
+	 * Returns the {@link Game} which is updated by this GameLoop.
+	 * @return		a non-null Game
+	 */
+	public Game getGame() {
+		return game;
+	}
+
+	/**
+	 * <p>Sets the time in between two update cycles of the {@link Game} in nanoseconds.</p>
+	 * @param value							a positive number of nanoseconds
+	 * @throws IllegalArgumentException		if value is less than 1
+	 * @see #DEFAULT_TIMESTEP_NANOS
+	 */
+	public void setTimestepNanos(long value) {
+		if (value < 1) {
+			throw new IllegalArgumentException("value < 1");
+		}
+		timestepNanos = value;
+	}
+
+	/**
+	 * <p>Returns the time in between two update cycles of the {@link Game} in nanoseconds.</p>
+	 * @return		a positive number of nanoseconds
+	 * @see #setTimestepNanos(long)
+	 */
+	public long getTimestepNanos() {
+		return timestepNanos;
+	}
+
+	/**
+	 * <p>Sets the maximum number of update cycles which are performed within a single
+	 * call to {@link #advance()}. If more update cycles would be needed to catch up with
+	 * the passed time, the remaining time is dropped.</p>
+	 * @param value							a positive number
+	 * @throws IllegalArgumentException		if value is less than 1
+	 * @see #DEFAULT_MAX_UPDATES_PER_FRAME
+	 * @see #getSkippedUpdates()
+	 */
+	public void setMaxUpdatesPerFrame(int value) {
+		if (value < 1) {
+			throw new IllegalArgumentException("value < 1");
+		}
+		maxUpdatesPerFrame = value;
+	}
+
+	/**
+	 * <p>Returns the maximum number of update cycles which are performed within a single
+	 * call to {@link #advance()}.</p>
+	 * @return		a positive number
+	 * @see #setMaxUpdatesPerFrame(int)
+	 */
+	public int getMaxUpdatesPerFrame() {
+		return maxUpdatesPerFrame;
+	}
+
+	/**
+	 * <p>Returns the total number of update cycles performed by this GameLoop.</p>
+	 * @return		a non-negative number
+	 */
+	public long getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * <p>Returns the total number of update cycles which were dropped because the
+	 * GameLoop fell too far behind.</p>
+	 * @return		a non-negative number
+	 * @see #setMaxUpdatesPerFrame(int)
+	 */
+	public long getSkippedUpdates() {
+		return skippedUpdates;
+	}
+
+	/**
+	 * <p>Returns the interpolation alpha of the most recent frame. This is the fraction
+	 * of a timestep which has passed since the last update cycle.</p>
+	 * @return		a value from 0 (inclusive) to 1 (exclusive)
+	 * @see GameLoopListener#onFrame(GameLoop, double, long)
+	 */
+	public double getInterpolationAlpha() {
+		return interpolationAlpha;
+	}
+
+	/**
+	 * <p>Adds a {@link GameLoopListener} to this GameLoop.</p>
+	 * @param listener						a non-null GameLoopListener
+	 * @throws IllegalArgumentException		if listener is null
+	 * @see #removeListener(GameLoopListener)
+	 */
+	public void addListener(GameLoopListener listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("listener == null");
+		}
+		listeners.add(listener);
+	}
+
+	/**
+	 * <p>Removes a {@link GameLoopListener} from this GameLoop.</p>
+	 * @param listener						a non-null GameLoopListener
+	 * @throws IllegalArgumentException		if listener is null
+	 * @see #addListener(GameLoopListener)
+	 */
+	public void removeListener(GameLoopListener listener) {
+		if (listener == null) {
+			throw new IllegalArgumentException("listener == null");
+		}
+		listeners.remove(listener);
+	}
+
+	/**
+	 * <p>Forgets about the time of the previous frame and any accumulated time. The
+	 * next call to {@link #advance()} will not perform any update cycles. This should
+	 * be called after the GameLoop was paused to prevent it from catching up with the
+	 * time it was paused for.</p>
+	 */
+	public void reset() {
+		lastFrameNanos = -1;
+		accumulatedNanos = 0;
+		interpolationAlpha = 0;
+	}
+
+	/**
+	 * <p>Performs all update cycles which are due at the current time as returned by
+	 * {@link System#nanoTime()} and then notifies all listeners of the new frame.</p>
+	 * @return		the number of update cycles which were performed
+	 * @see #advance(long)
+	 */
+	public int advance() {
+		return advance(System.nanoTime());
+	}
+
+	/**
+	 * <p>Performs all update cycles which are due at the given time and then notifies
+	 * all listeners of the new frame. The first call after creation or after
+	 * {@link #reset()} only starts measuring the time.</p>
+	 * @param nowNanos		the current time in nanoseconds. The value must not be
+	 * 						smaller than the time given in the previous call
+	 * @return				the number of update cycles which were performed
+	 * @see #advance()
+	 */
+	public int advance(long nowNanos) {
+		long elapsedNanos = lastFrameNanos < 0 ? 0 : Math.max(0, nowNanos - lastFrameNanos);
+		lastFrameNanos = nowNanos;
+		accumulatedNanos += elapsedNanos;
+
+		int updates = 0;
+		while (accumulatedNanos >= timestepNanos && updates < maxUpdatesPerFrame) {
+			performUpdate();
+			accumulatedNanos -= timestepNanos;
+			updates++;
+		}
+		if (accumulatedNanos >= timestepNanos) {
+			// We are too far behind. Drop the rest instead of spiraling.
+			skippedUpdates += accumulatedNanos / timestepNanos;
+			accumulatedNanos %= timestepNanos;
+		}
+		interpolationAlpha = accumulatedNanos / (double) timestepNanos;
+
+		double alpha = interpolationAlpha;
+		listeners.forEach(listener -> listener.onFrame(this, alpha, elapsedNanos));
+		return updates;
+	}
+
+	/**
+	 * <p>Performs the given number of update cycles as fast as possible without
+	 * looking at the time. No frames are reported to the listeners.</p>
+	 * <p>This can be used to run the {@link Game} without any user interface, for
+	 * example in tests or benchmarks.</p>
+	 * @param count							the non-negative number of update cycles
+	 * @throws IllegalArgumentException		if count is negative
+	 */
+	public void runUpdates(long count) {
+		if (count < 0) {
+			throw new IllegalArgumentException("count < 0");
+		}
+		for (long i = 0; i < count; i++) {
+			performUpdate();
+		}
+	}
+
+	/**
+	 * <p>Advances this GameLoop on the calling thread until {@link #stop()} is called.
+	 * In between two frames the thread sleeps until the next update cycle is due.</p>
+	 * <p>This method does not return until the GameLoop was stopped or the thread was
+	 * interrupted.</p>
+	 * @throws IllegalStateException		if this GameLoop is already running
+	 * @see #stop()
+	 * @see #isRunning()
+	 */
+	public void run() {
+		if (!running.compareAndSet(false, true)) {
+			throw new IllegalStateException("running == true");
+		}
+		stopRequested = false;
+		reset();
+		try {
+			while (!stopRequested) {
+				advance();
+				long sleepNanos = timestepNanos - accumulatedNanos;
+				if (sleepNanos > 0) {
+					TimeUnit.NANOSECONDS.sleep(sleepNanos);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			running.set(false);
+		}
+	}
+
+	/**
+	 * <p>Makes {@link #run()} return after the current frame. This method may be called
+	 * from any thread.</p>
+	 * @see #run()
+	 */
+	public void stop() {
+		stopRequested = true;
+	}
+
+	/**
+	 * <p>Returns true while {@link #run()} is executing.</p>
+	 * @return		true if this GameLoop is running; otherwise false
+	 */
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	private void performUpdate() {
+		listeners.forEach(listener -> listener.beforeUpdate(game));
+		game.update();
+		updateCount++;
+		listeners.forEach(listener -> listener.afterUpdate(game));
+	}
+
+}
@@ -0,0 +1,59 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.ConcurrentModificationException;
+
+/**
+ * <p>GameLoopListener's can be registered at a {@link GameLoop}. Once registered
+ * the GameLoopListener will be notified before and after each update cycle of
+ * the {@link Game} and once for each frame after all update cycles for that
+ * frame have been performed.</p>
+ *
+ * <p>GameLoopListener's can be added to and removed from the GameLoop during a
+ * notification without throwing any {@link ConcurrentModificationException
+ * ConcurrentModificationExceptions}.</p>
+ *
+ * <p>As the name suggests, this interface is an implementation of the observer pattern.</p>
+ *
+ * @see GameLoop#addListener(GameLoopListener)
+ * @see GameLoop#removeListener(GameLoopListener)
+ */
+public interface GameLoopListener {
+
+	/**
+	 * <p>Called by the {@link GameLoop} immediately before {@link Game#update()}
+	 * is called. This is the place to pass the player inputs to the Game.</p>
+	 *
+	 * <p>This method is a default method with an empty body.</p>
+	 *
+	 * @param game		the Game which is about to be updated. This is never null
+	 * @see Game#bufferKey(GameKey)
+	 * @see Game#setMousePosition(double, double)
+	 */
+	public default void beforeUpdate(Game game) {}
+
+	/**
+	 * <p>Called by the {@link GameLoop} immediately after {@link Game#update()}
+	 * has returned.</p>
+	 *
+	 * <p>This method is a default method with an empty body.</p>
+	 *
+	 * @param game		the Game which has just been updated. This is never null
+	 */
+	public default void afterUpdate(Game game) {}
+
+	/**
+	 * <p>Called by the {@link GameLoop} once per frame after all update cycles of
+	 * the frame have been performed. The alpha is the fraction of an update cycle
+	 * which has passed since the last update cycle. The view can use it to
+	 * interpolate between the previous and the current state of the Game.</p>
+	 *
+	 * <p>This method is a default method with an empty body.</p>
+	 *
+	 * @param loop					the GameLoop which was advanced. This is never null
+	 * @param interpolationAlpha	a value from 0 (inclusive) to 1 (exclusive)
+	 * @param elapsedNanos			the time since the previous frame in nanoseconds
+	 * @see GameLoop#advance()
+	 */
+	public default void onFrame(GameLoop loop, double interpolationAlpha, long elapsedNanos) {}
+
+}
@@ -0,0 +1,360 @@
+package edu.udo.cs.swtsf.core;
+
+import java.nio.BufferUnderflowException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import edu.udo.cs.swtsf.core.player.Player;
+import edu.udo.cs.swtsf.core.player.ShootLaserAction;
+
+/**
+ * <p>Saves the complete state of a {@link Game} between two update cycles into a
+ * compact binary snapshot and restores it into a freshly created Game. A restored
+ * game continues exactly like the saved game would have, given the same inputs. This
+ * can be used to start a benchmark from a late state of a game without playing the
+ * game up to that point first.</p>
+ *
+ * <p>The snapshot contains all {@link Entity entities} with their position, velocity,
+ * size, rotation, collision layers and strategies, the state of {@link Target
+ * targets}, {@link Bullet bullets} and {@link PickUp pickups}, the score, pickups and
+ * {@link edu.udo.cs.swtsf.core.player.LaserUpgrade laser upgrades} of the
+ * {@link Player}, all {@link GameScript scripts} and the state of the
+ * {@link Game#getRandom() random numbers}. Strategies, scripts and laser upgrades which
+ * have a state of their own implement {@link Snapshotable}.</p>
+ *
+ * <p>Code can not be written to a snapshot. The objects of a game are therefore
+ * created again when the snapshot is restored:
+ * <ul>
+ * <li>Entities are created by the factory {@link #registerEntity(Class, Function)
+ * registered} for their class. Each class of Entity in the game must be registered,
+ * except for the Player which is taken from the restored game.</li>
+ * <li>Strategies, scripts and laser upgrades which are shared between many objects
+ * are {@link #registerConstant(String, Object) registered as constants}. The
+ * constants of the core package are registered by default.</li>
+ * <li>Strategies, scripts and laser upgrades which are added during the game are
+ * created by the factory {@link #registerType(Class, Supplier) registered} for their
+ * class.</li>
+ * <li>All other strategies and scripts must have been created together with their
+ * owner, for example by the constructor of an Entity or by the
+ * {@link edu.udo.cs.swtsf.view.GameInitializer} of the game. They are taken from
+ * the newly created owner. Lambdas can only be told apart by the class which declares
+ * them. Restoring fails if the owner holds a different number of lambdas of the same
+ * class than the snapshot. Lambdas with a state or identity of their own should be
+ * registered as constants.</li>
+ * </ul>
+ * Observers are not part of a snapshot. Those of the Player and the Game stay as they
+ * were set up for the restored game.</p>
+ *
+ * @see #save(Game)
+ * @see #restore(SnapshotDecoder, Game)
+ * @see Snapshotable
+ */
+public class GameSnapshot {
+
+	/**
+	 * The first four bytes of each snapshot.
+	 */
+	public static final int MAGIC = 0x53575353;
+	/**
+	 * The version of the format of the snapshot.
+	 */
+	public static final byte VERSION = 2;
+
+	private static final int INITIAL_CAPACITY = 1 << 16;
+
+	private final Map<String, Function<Game, ? extends Entity>> entityFactories = new HashMap<>();
+	private final Map<String, Supplier<?>> typeFactories = new HashMap<>();
+	private final Map<String, Object> constants = new HashMap<>();
+	private final Map<Object, String> constantNames = new IdentityHashMap<>();
+
+	/**
+	 * <p>Creates a GameSnapshot which knows the constants of the core package.</p>
+	 */
+	public GameSnapshot() {
+		registerConstant("Target.TARGET_DISPOSE_ON_DEATH", Target.TARGET_DISPOSE_ON_DEATH);
+		registerConstant("Bullet.BULLET_HIT_ON_COLLISION_STRAT", Bullet.BULLET_HIT_ON_COLLISION_STRAT);
+		registerConstant("Bullet.BULLET_SELF_DESTRUCT_ON_HIT_STRAT", Bullet.BULLET_SELF_DESTRUCT_ON_HIT_STRAT);
+		registerConstant("Bullet.BULLET_DAMAGE_ON_HIT_STRAT", Bullet.BULLET_DAMAGE_ON_HIT_STRAT);
+		registerConstant("Bullet.BULLET_LIFE_TIMER_STRAT", Bullet.BULLET_LIFE_TIMER_STRAT);
+		registerConstant("PickUp.PLAYER_PICK_UP_STRAT", PickUp.PLAYER_PICK_UP_STRAT);
+		registerConstant("PickUp.PICKUP_LIFE_TIMER_STRAT", PickUp.PICKUP_LIFE_TIMER_STRAT);
+		registerConstant("ShootLaserAction.BULLET_SCORE_ON_HIT_STRAT", ShootLaserAction.BULLET_SCORE_ON_HIT_STRAT);
+	}
+
+	/**
+	 * <p>Registers the factory which creates the {@link Entity entities} of the given
+	 * class when a snapshot is restored. The factory is given the restored {@link Game}.
+	 * The created Entity must have all the strategies an Entity of its class has when
+	 * it is created during the game. All other state is read from the snapshot.</p>
+	 * @param type							the non-null class of the entities
+	 * @param factory						a non-null factory
+	 * @throws IllegalArgumentException		if type or factory is null
+	 */
+	public <T extends Entity> void registerEntity(Class<T> type, Function<Game, ? extends T> factory) {
+		if (type == null) {
+			throw new IllegalArgumentException("type == null");
+		}
+		if (factory == null) {
+			throw new IllegalArgumentException("factory == null");
+		}
+		entityFactories.put(type.getName(), factory);
+	}
+
+	/**
+	 * <p>Registers the factory which creates the strategies, {@link GameScript scripts}
+	 * or {@link edu.udo.cs.swtsf.core.player.LaserUpgrade laser upgrades} of the given
+	 * class when a snapshot is restored. Their state is read from the snapshot if they
+	 * are {@link Snapshotable}.</p>
+	 * @param type							the non-null class of the objects
+	 * @param factory						a non-null factory
+	 * @throws IllegalArgumentException		if type or factory is null
+	 */
+	public <T> void registerType(Class<T> type, Supplier<? extends T> factory) {
+		if (type == null) {
+			throw new IllegalArgumentException("type == null");
+		}
+		if (factory == null) {
+			throw new IllegalArgumentException("factory == null");
+		}
+		typeFactories.put(type.getName(), factory);
+	}
+
+	/**
+	 * <p>Registers an object which is shared by many entities, such as a strategy
+	 * stored in a constant. The object is written to a snapshot by its name and
+	 * restored as the very same object.</p>
+	 * @param name							a non-null name which is unique among all constants
+	 * @param constant						the non-null object
+	 * @throws IllegalArgumentException		if name or constant is null
+	 * @throws IllegalStateException		if a different constant was registered with the same name
+	 */
+	public void registerConstant(String name, Object constant) {
+		if (name == null) {
+			throw new IllegalArgumentException("name == null");
+		}
+		if (constant == null) {
+			throw new IllegalArgumentException("constant == null");
+		}
+		Object previous = constants.get(name);
+		if (previous != null && previous != constant) {
+			throw new IllegalStateException("constant "+name+" is already registered");
+		}
+		constants.put(name, constant);
+		constantNames.put(constant, name);
+	}
+
+	String getConstantName(Object obj) {
+		return constantNames.get(obj);
+	}
+
+	boolean isRegisteredType(Class<?> type) {
+		return typeFactories.containsKey(type.getName());
+	}
+
+	Object getConstant(String name) {
+		Object constant = constants.get(name);
+		if (constant == null) {
+			throw new IllegalStateException("Unknown constant: "+name);
+		}
+		return constant;
+	}
+
+	Object newInstance(String typeName) {
+		Supplier<?> factory = typeFactories.get(typeName);
+		if (factory == null) {
+			throw new IllegalStateException("Unknown type: "+typeName);
+		}
+		return factory.get();
+	}
+
+	/**
+	 * <p>Writes the state of the given {@link Game} into a new snapshot. This must not
+	 * be called during an update cycle of the game.</p>
+	 * <p>The format of the snapshot is:
+	 * <pre>
+	 * int		{@link #MAGIC}
+	 * byte		{@link #VERSION}
+	 * long		the state of the random numbers
+	 * int		the ID of the next entity created by the game
+	 * int		the number of entity classes, followed by their names
+	 * int		the number of entities
+	 * int		the index of the Player among the entities
+	 * then for each entity:
+	 * int		the index of its class
+	 * int		its {@link Entity#getID() ID}
+	 * then for each entity:
+	 * boolean	whether the entity is asleep
+	 * ...		the state written by {@link Entity#writeSnapshot(SnapshotEncoder)}
+	 * then:
+	 * int		the number of scripts, followed by each script
+	 * </pre></p>
+	 * @param game							a non-null Game
+	 * @return								the encoder holding the snapshot
+	 * @throws IllegalArgumentException		if game is null
+	 * @throws IllegalStateException		if the Player is no longer part of the game or if 
+	 * 										an entity, strategy or script can not be written 
+	 * 										because its class is not registered
+	 * @see SnapshotEncoder#toByteBuffer()
+	 * @see SnapshotEncoder#writeTo(java.nio.file.Path)
+	 */
+	public SnapshotEncoder save(Game game) {
+		if (game == null) {
+			throw new IllegalArgumentException("game == null");
+		}
+		if (game.getPlayer().getCurrentGame() != game) {
+			throw new IllegalStateException("game.getPlayer() is no longer part of the game");
+		}
+		List<Entity> entities = new ArrayList<>(game.getEntityCount());
+		game.getAllEntities().forEach(entities::add);
+		Map<Entity, Integer> entityIndices = new IdentityHashMap<>();
+		Map<String, Integer> typeIndices = new LinkedHashMap<>();
+		for (int i = 0; i < entities.size(); i++) {
+			Entity entity = entities.get(i);
+			entityIndices.put(entity, i);
+			String typeName = entity.getClass().getName();
+			if (entity != game.getPlayer() && !entityFactories.containsKey(typeName)) {
+				throw new IllegalStateException(typeName+" is not registered");
+			}
+			typeIndices.putIfAbsent(typeName, typeIndices.size());
+		}
+
+		SnapshotEncoder out = new SnapshotEncoder(this, entityIndices, INITIAL_CAPACITY);
+		out.putInt(MAGIC);
+		out.putByte(VERSION);
+		out.putLong(game.getRandomState());
+		out.putInt(game.getNextEntityID());
+		out.putInt(typeIndices.size());
+		for (String typeName : typeIndices.keySet()) {
+			out.putString(typeName);
+		}
+		out.putInt(entities.size());
+		out.putInt(entityIndices.get(game.getPlayer()));
+		for (Entity entity : entities) {
+			out.putInt(typeIndices.get(entity.getClass().getName()));
+			out.putInt(entity.getID());
+		}
+		for (Entity entity : entities) {
+			out.putBoolean(entity.isAsleep());
+			entity.writeSnapshot(out);
+		}
+		game.writeScripts(out);
+		return out;
+	}
+
+	/**
+	 * <p>Restores a snapshot written by {@link #save(Game)} into the given {@link Game}.
+	 * The Game should have been created and set up in the same way as the saved game,
+	 * usually by the same {@link edu.udo.cs.swtsf.view.GameInitializer}, but must not
+	 * have been updated yet. Its {@link Player} takes the place of the saved Player and
+	 * its {@link GameScript scripts} are replaced with those of the snapshot.</p>
+	 * <p>The {@link Game#getSeed() seed} of the restored game is not changed, but its
+	 * random numbers continue where those of the saved game were. The restored entities
+	 * keep their {@link Entity#getID() IDs} and entities created afterwards are numbered
+	 * like in the saved game.</p>
+	 * @param in							a non-null decoder positioned at the start of the snapshot
+	 * @param game							a non-null Game which contains nothing but its Player
+	 * @throws IllegalArgumentException		if in or game is null or if in does not contain
+	 * 										a snapshot of a supported version
+	 * @throws IllegalStateException		if game contains other entities than its Player
+	 * 										or if the snapshot could not be restored
+	 */
+	public void restore(SnapshotDecoder in, Game game) {
+		if (in == null) {
+			throw new IllegalArgumentException("in == null");
+		}
+		if (game == null) {
+			throw new IllegalArgumentException("game == null");
+		}
+		if (game.getEntityCount() != 1) {
+			throw new IllegalStateException("game.getEntityCount() != 1");
+		}
+		if (in.getInt() != MAGIC) {
+			throw new IllegalArgumentException("Not a game snapshot");
+		}
+		int version = in.getByte();
+		if (version != VERSION) {
+			throw new IllegalArgumentException("Unsupported snapshot version: "+version);
+		}
+		// Entities created by the factories get their IDs and groups from the game
+		game.enterScope();
+		try {
+			restoreContent(in, game);
+		} catch (BufferUnderflowException e) {
+			throw new IllegalStateException("Snapshot is truncated", e);
+		} finally {
+			in.endRestore();
+			game.exitScope();
+		}
+	}
+
+	private void restoreContent(SnapshotDecoder in, Game game) {
+		long randomState = in.getLong();
+		int nextEntityID = in.getInt();
+		String[] typeNames = new String[in.getInt()];
+		for (int i = 0; i < typeNames.length; i++) {
+			typeNames[i] = in.getString();
+		}
+		Entity[] entities = new Entity[in.getInt()];
+		int playerIndex = in.getInt();
+		if (playerIndex < 0 || playerIndex >= entities.length) {
+			throw new IllegalStateException("Invalid player index: "+playerIndex);
+		}
+		Player player = game.getPlayer();
+		for (int i = 0; i < entities.length; i++) {
+			int typeIndex = in.getInt();
+			if (typeIndex < 0 || typeIndex >= typeNames.length) {
+				throw new IllegalStateException("Invalid entity class: "+typeIndex);
+			}
+			String typeName = typeNames[typeIndex];
+			if (i == playerIndex) {
+				if (!typeName.equals(player.getClass().getName())) {
+					throw new IllegalStateException("Player is a "+typeName);
+				}
+				entities[i] = player;
+			} else {
+				entities[i] = createEntity(typeName, game);
+			}
+			entities[i].setID(in.getInt());
+		}
+
+		in.beginRestore(this, entities);
+		boolean[] asleep = new boolean[entities.length];
+		for (int i = 0; i < entities.length; i++) {
+			asleep[i] = in.getBoolean();
+			entities[i].readSnapshot(in);
+		}
+		game.readScripts(in);
+
+		for (int i = 0; i < entities.length; i++) {
+			if (i != playerIndex) {
+				game.addEntity(entities[i]);
+			}
+		}
+		for (int i = 0; i < entities.length; i++) {
+			if (asleep[i]) {
+				game.sleepIfIdle(entities[i]);
+			}
+		}
+		game.setRandomState(randomState);
+		game.setNextEntityID(nextEntityID);
+	}
+
+	private Entity createEntity(String typeName, Game game) {
+		Function<Game, ? extends Entity> factory = entityFactories.get(typeName);
+		if (factory == null) {
+			throw new IllegalStateException(typeName+" is not registered");
+		}
+		Entity entity = factory.apply(game);
+		if (entity == null || !entity.getClass().getName().equals(typeName)) {
+			throw new IllegalStateException("The factory of "+typeName+" created "+entity);
+		}
+		return entity;
+	}
+
+}
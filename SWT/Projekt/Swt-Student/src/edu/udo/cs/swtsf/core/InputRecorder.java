@@ -0,0 +1,193 @@
+package edu.udo.cs.swtsf.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+import edu.udo.cs.swtsf.core.player.MovePlayerAction;
+import edu.udo.cs.swtsf.core.player.ShootLaserAction;
+
+/**
+ * <p>Writes the inputs of a {@link Game} to a compact binary log while the game is
+ * being played. Together with the {@link Game#getSeed() seed} of the game, which is
+ * written at the start of the log, the inputs are all that is needed to play the
+ * same game again with an {@link InputReplay}.</p>
+ *
+ * <p>The recorder is given the {@link Game#bufferKey(GameKey) pressed keys} and the
+ * {@link Game#setMousePosition(double, double) mouse position} at the beginning of
+ * each update cycle. The keys and the mouse position are only written if they have
+ * changed since the previous cycle, so a cycle without any change takes a single
+ * byte. The log is written to the stream as the game goes on.</p>
+ *
+ * <p>Since the recorder is used during an update cycle it does not throw any
+ * {@link IOException IOExceptions} there. The first exception stops the recording
+ * and is thrown by {@link #close()} instead. The recorder may be closed from another
+ * thread than the one updating the game.</p>
+ *
+ * <p>The format of the log is:
+ * <pre>
+ * int		{@link #MAGIC}
+ * byte		{@link #VERSION}
+ * long		the seed of the game
+ * byte[5]	the ordinals of the key bindings of the player
+ * then for each update cycle:
+ * byte		flags; {@link #FLAG_KEYS} and {@link #FLAG_MOUSE}
+ * long		the pressed keys as a bit set of ordinals, if FLAG_KEYS is set
+ * double[2]	the mouse position, if FLAG_MOUSE is set
+ * </pre></p>
+ *
+ * @see Game#setInputRecorder(InputRecorder)
+ * @see InputReplay
+ */
+public class InputRecorder implements Closeable {
+
+	/**
+	 * The first four bytes of each log.
+	 */
+	public static final int MAGIC = 0x53574950;
+	/**
+	 * The version of the format of the log.
+	 */
+	public static final byte VERSION = 1;
+	/**
+	 * Set if the pressed keys follow the flags of an update cycle.
+	 */
+	static final int FLAG_KEYS = 1;
+	/**
+	 * Set if the mouse position follows the flags of an update cycle.
+	 */
+	static final int FLAG_MOUSE = 2;
+
+	private final DataOutputStream out;
+	/*
+	 * The inputs of the previous update cycle. A replay starts with no keys and
+	 * the mouse at 0, 0.
+	 */
+	private long lastKeys;
+	private double lastMouseX;
+	private double lastMouseY;
+	private long updateCount;
+	private IOException error;
+	private boolean closed;
+
+	/**
+	 * <p>Creates a recorder for the given {@link Game} and writes the start of the log.
+	 * The recorder must still be {@link Game#setInputRecorder(InputRecorder) set}
+	 * for the game.</p>
+	 * <p>The current key bindings of the {@link MovePlayerAction} and
+	 * {@link ShootLaserAction} are written to the log as well since the game depends
+	 * on them.</p>
+	 * @param out							the non-null stream the log is written to.
+	 * 										It is closed when the recorder is closed.
+	 * @param game							the non-null game which is recorded
+	 * @throws IllegalArgumentException		if out or game is null
+	 * @throws IOException					if the start of the log could not be written
+	 */
+	public InputRecorder(OutputStream out, Game game) throws IOException {
+		if (out == null) {
+			throw new IllegalArgumentException("out == null");
+		}
+		if (game == null) {
+			throw new IllegalArgumentException("game == null");
+		}
+		this.out = new DataOutputStream(new BufferedOutputStream(out));
+		this.out.writeInt(MAGIC);
+		this.out.writeByte(VERSION);
+		this.out.writeLong(game.getSeed());
+		this.out.writeByte(MovePlayerAction.INPUT_MOVE_FORWARD.ordinal());
+		this.out.writeByte(MovePlayerAction.INPUT_SLOW_DOWN.ordinal());
+		this.out.writeByte(MovePlayerAction.INPUT_TURN_RIGHT.ordinal());
+		this.out.writeByte(MovePlayerAction.INPUT_TURN_LEFT.ordinal());
+		this.out.writeByte(ShootLaserAction.INPUT_SHOOT_LASER.ordinal());
+	}
+
+	/**
+	 * <p>Writes the inputs of a single update cycle. This is called by the
+	 * {@link Game} at the beginning of each update cycle.</p>
+	 * @param keys		the keys pressed during the update cycle
+	 * @param mouseX	the X-coordinate of the mouse during the update cycle
+	 * @param mouseY	the Y-coordinate of the mouse during the update cycle
+	 */
+	synchronized void recordUpdate(Set<GameKey> keys, double mouseX, double mouseY) {
+		if (closed || error != null) {
+			return;
+		}
+		long keyBits = 0;
+		for (GameKey key : keys) {
+			keyBits |= 1L << key.ordinal();
+		}
+		int flags = 0;
+		if (keyBits != lastKeys) {
+			flags |= FLAG_KEYS;
+		}
+		// Compared bitwise so that the log reproduces the exact values
+		if (Double.doubleToRawLongBits(mouseX) != Double.doubleToRawLongBits(lastMouseX)
+				|| Double.doubleToRawLongBits(mouseY) != Double.doubleToRawLongBits(lastMouseY))
+		{
+			flags |= FLAG_MOUSE;
+		}
+		try {
+			out.writeByte(flags);
+			if ((flags & FLAG_KEYS) != 0) {
+				out.writeLong(keyBits);
+			}
+			if ((flags & FLAG_MOUSE) != 0) {
+				out.writeDouble(mouseX);
+				out.writeDouble(mouseY);
+			}
+		} catch (IOException e) {
+			error = e;
+			return;
+		}
+		lastKeys = keyBits;
+		lastMouseX = mouseX;
+		lastMouseY = mouseY;
+		updateCount++;
+	}
+
+	/**
+	 * Returns the number of update cycles which have been recorded so far.
+	 * @return		a non-negative number
+	 */
+	public long getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * <p>Writes all buffered data to the underlying stream.</p>
+	 * @throws IOException		if the recording has failed
+	 */
+	public synchronized void flush() throws IOException {
+		if (error != null) {
+			throw error;
+		}
+		out.flush();
+	}
+
+	/**
+	 * <p>Writes all buffered data and closes the underlying stream. Further update
+	 * cycles are not recorded.</p>
+	 * @throws IOException		if the recording has failed at any point or the stream
+	 * 							could not be closed
+	 */
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			out.close();
+		} catch (IOException e) {
+			if (error == null) {
+				error = e;
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+	}
+
+}
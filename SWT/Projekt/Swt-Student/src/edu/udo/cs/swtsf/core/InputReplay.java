@@ -0,0 +1,179 @@
+package edu.udo.cs.swtsf.core;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import edu.udo.cs.swtsf.core.player.MovePlayerAction;
+import edu.udo.cs.swtsf.core.player.ShootLaserAction;
+
+/**
+ * <p>Reads a log written by an {@link InputRecorder} and passes the recorded inputs
+ * to a {@link Game}, one update cycle at a time. A game which is created with the
+ * {@link #getSeed() recorded seed} and set up the same way as the recorded game
+ * will then do exactly the same as the recorded game did.</p>
+ *
+ * <p>The log is read as the replay goes on. A log which ends in the middle of an
+ * update cycle, for example because the recording game crashed, is treated as if
+ * it ended after the last complete update cycle.</p>
+ *
+ * @see InputRecorder
+ * @see #replayAll(Game)
+ */
+public class InputReplay implements Closeable {
+
+	private static final GameKey[] KEYS = GameKey.values();
+
+	private final DataInputStream in;
+	private final long seed;
+	private final GameKey[] keyBindings = new GameKey[5];
+	private long keys;
+	private double mouseX;
+	private double mouseY;
+	private long updateCount;
+	private boolean ended;
+
+	/**
+	 * <p>Reads the start of the log from the given stream.</p>
+	 * @param in							the non-null stream the log is read from.
+	 * 										It is closed when the replay is closed.
+	 * @throws IllegalArgumentException		if in is null
+	 * @throws IOException					if the stream could not be read or does not
+	 * 										contain a log of a supported version
+	 */
+	public InputReplay(InputStream in) throws IOException {
+		if (in == null) {
+			throw new IllegalArgumentException("in == null");
+		}
+		this.in = new DataInputStream(new BufferedInputStream(in));
+		if (this.in.readInt() != InputRecorder.MAGIC) {
+			throw new IOException("Not an input log");
+		}
+		byte version = this.in.readByte();
+		if (version != InputRecorder.VERSION) {
+			throw new IOException("Unsupported input log version: "+version);
+		}
+		seed = this.in.readLong();
+		for (int i = 0; i < keyBindings.length; i++) {
+			keyBindings[i] = readKey();
+		}
+	}
+
+	private GameKey readKey() throws IOException {
+		int ordinal = in.readUnsignedByte();
+		if (ordinal >= KEYS.length) {
+			throw new IOException("Unknown key: "+ordinal);
+		}
+		return KEYS[ordinal];
+	}
+
+	/**
+	 * <p>Returns the {@link Game#getSeed() seed} of the recorded game.</p>
+	 * @return		the seed to {@link Game#Game(java.util.function.Supplier, long) create}
+	 * 				the replayed game with
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * <p>Sets the key bindings of the {@link MovePlayerAction} and
+	 * {@link ShootLaserAction} to those used by the recorded game. The recorded keys
+	 * only have the same effect with the same key bindings.</p>
+	 * <p>The key bindings are shared by all games. They should be restored before
+	 * the replay starts.</p>
+	 */
+	public void restoreKeyBindings() {
+		MovePlayerAction.INPUT_MOVE_FORWARD = keyBindings[0];
+		MovePlayerAction.INPUT_SLOW_DOWN = keyBindings[1];
+		MovePlayerAction.INPUT_TURN_RIGHT = keyBindings[2];
+		MovePlayerAction.INPUT_TURN_LEFT = keyBindings[3];
+		ShootLaserAction.INPUT_SHOOT_LASER = keyBindings[4];
+	}
+
+	/**
+	 * <p>Reads the inputs of the next update cycle and passes them to the given
+	 * {@link Game}. The game should be {@link Game#update() updated} afterwards.</p>
+	 * @param game							the non-null game the inputs are given to
+	 * @return								true if the inputs were passed to the game or
+	 * 										false if the log has ended
+	 * @throws IllegalArgumentException		if game is null
+	 * @throws IOException					if the log could not be read
+	 */
+	public boolean next(Game game) throws IOException {
+		if (game == null) {
+			throw new IllegalArgumentException("game == null");
+		}
+		if (ended || !readUpdate()) {
+			ended = true;
+			return false;
+		}
+		long remaining = keys;
+		while (remaining != 0) {
+			int ordinal = Long.numberOfTrailingZeros(remaining);
+			game.bufferKey(KEYS[ordinal]);
+			remaining &= remaining - 1;
+		}
+		game.setMousePosition(mouseX, mouseY);
+		updateCount++;
+		return true;
+	}
+
+	private boolean readUpdate() throws IOException {
+		int flags = in.read();
+		if (flags < 0) {
+			return false;
+		}
+		try {
+			if ((flags & InputRecorder.FLAG_KEYS) != 0) {
+				long value = in.readLong();
+				if (KEYS.length < Long.SIZE && (value >>> KEYS.length) != 0) {
+					throw new IOException("Unknown keys: "+Long.toBinaryString(value));
+				}
+				keys = value;
+			}
+			if ((flags & InputRecorder.FLAG_MOUSE) != 0) {
+				double x = in.readDouble();
+				double y = in.readDouble();
+				mouseX = x;
+				mouseY = y;
+			}
+		} catch (EOFException e) {
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * <p>Passes all remaining update cycles of the log to the given {@link Game} and
+	 * {@link Game#update() updates} the game after each one as fast as possible.</p>
+	 * @param game							the non-null game to replay
+	 * @return								the number of update cycles performed
+	 * @throws IllegalArgumentException		if game is null
+	 * @throws IOException					if the log could not be read
+	 */
+	public long replayAll(Game game) throws IOException {
+		long count = 0;
+		while (next(game)) {
+			game.update();
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of update cycles which have been read so far.
+	 * @return		a non-negative number
+	 */
+	public long getUpdateCount() {
+		return updateCount;
+	}
+
+	public void close() throws IOException {
+		in.close();
+	}
+
+}
@@ -0,0 +1,41 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.concurrent.ForkJoinPool;
+
+import edu.udo.cs.swtsf.core.player.Player;
+
+/**
+ * <p>An {@link EntityBehaviorStrategy} which may be {@link #act(Entity) acted out} on
+ * a worker thread when the {@link Game} updates its {@link Entity Entities} in
+ * parallel. An Entity is only updated in parallel if all of its behaviors implement
+ * this interface. All other Entities, for example the {@link Player}, are updated on
+ * the thread which called {@link Game#update()}.</p>
+ *
+ * <p>Implementations must follow these rules:</p>
+ * <ul>
+ * <li>Only the host may be changed. Changes to the host are allowed as usual. All
+ * {@link EntityObserver EntityObserver's} will be notified after the parallel part
+ * of the update cycle in the same order as they would have been notified without
+ * parallel updates.</li>
+ * <li>New Entities may be {@link Game#addEntity(Entity) added} to the Game. They will
+ * be added after the parallel part of the update cycle in the order they would have
+ * been added without parallel updates. Entities created on a worker thread are given
+ * their {@link Entity#getID() ID} at the same time, their ID must not be used
+ * before.</li>
+ * <li>The {@link Game#getRandom() random numbers} of the Game must not be used since
+ * their order would depend on the worker threads. An {@link IllegalStateException}
+ * is thrown if they are.</li>
+ * <li>Other Entities may only be read if they are not updated in parallel themselves,
+ * like the {@link Player}. Radius queries and other iterations over the Entities of
+ * the Game are not allowed.</li>
+ * </ul>
+ *
+ * <p>As long as these rules are followed the Game will produce exactly the same
+ * results with and without parallel updates.</p>
+ *
+ * @see Game#setParallelUpdatePool(ForkJoinPool)
+ */
+@FunctionalInterface
+public interface ParallelEntityBehaviorStrategy extends EntityBehaviorStrategy {
+
+}
@@ -48,7 +48,7 @@ public abstract class PickUp extends Entity {
 	 * @see #addBehaviorStrategy(EntityBehaviorStrategy)
 	 * @see #removeBehaviorStrategy(EntityBehaviorStrategy)
 	 */
-	public static final EntityBehaviorStrategy PICKUP_LIFE_TIMER_STRAT = 
+	public static final ParallelEntityBehaviorStrategy PICKUP_LIFE_TIMER_STRAT = 
 			(self) -> 
 	{
 		PickUp pickUp = (PickUp) self;
@@ -76,10 +76,43 @@ public abstract class PickUp extends Entity {
 	{
 		setRotation(-90);
 		setSize(32);
+		// A PickUp can only be picked up by the Player
+		setCollisionLayer(COLLISION_LAYER_PICKUP);
+		setCollisionMask(createCollisionMask(COLLISION_LAYER_PLAYER));
 		addCollisionStrategy(PLAYER_PICK_UP_STRAT);
 		addBehaviorStrategy(PICKUP_LIFE_TIMER_STRAT);
 	}
 	
+	/**
+	 * A PickUp is also idle if its only behavior is the {@link #PICKUP_LIFE_TIMER_STRAT} 
+	 * and the lifeTimer is deactivated. Such a PickUp can fall asleep until it is 
+	 * picked up.<br>
+	 */
+	protected boolean isIdle() {
+		if (getLifeTimer() < 0 && getBehaviorStrategyCount() == 1 
+				&& hasBehaviorStrategy(PICKUP_LIFE_TIMER_STRAT)) 
+		{
+			return true;
+		}
+		return super.isIdle();
+	}
+	
+	/**
+	 * Writes the life timer in addition to the state of an {@link Entity}.<br>
+	 */
+	protected void writeSnapshot(SnapshotEncoder out) {
+		super.writeSnapshot(out);
+		out.putInt(lifeTimer);
+	}
+	
+	/**
+	 * Reads the state written by {@link #writeSnapshot(SnapshotEncoder)}.<br>
+	 */
+	protected void readSnapshot(SnapshotDecoder in) {
+		super.readSnapshot(in);
+		lifeTimer = in.getInt();
+	}
+	
 	/**
 	 * This method is called by the {@link #PLAYER_PICK_UP_STRAT} when this {@link PickUp} 
 	 * is collected by the {@link Player}. By default this method will add this PickUp to 
@@ -115,6 +148,9 @@ public abstract class PickUp extends Entity {
 	 */
 	public void setLifeTimer(int value) {
 		lifeTimer = value;
+		if (value >= 0) {
+			wakeUp();
+		}
 	}
 	
 	/**
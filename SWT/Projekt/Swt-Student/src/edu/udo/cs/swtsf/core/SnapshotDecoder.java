@@ -0,0 +1,287 @@
+package edu.udo.cs.swtsf.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.udo.cs.swtsf.util.Group;
+
+/**
+ * <p>Reads a {@link GameSnapshot} written by a {@link SnapshotEncoder} from a
+ * {@link ByteBuffer}. Large snapshots can be {@link #map(Path) mapped} directly from a
+ * file instead of being read into memory first.</p>
+ *
+ * <p>{@link #getEntity() Entity references} and {@link #getObject(Class) registered
+ * objects} can only be read while the snapshot is being
+ * {@link GameSnapshot#restore(SnapshotDecoder, Game) restored}.</p>
+ *
+ * @see GameSnapshot#restore(SnapshotDecoder, Game)
+ * @see Snapshotable#readSnapshot(SnapshotDecoder)
+ * @see SnapshotEncoder
+ */
+public class SnapshotDecoder {
+
+	private final ByteBuffer buffer;
+	private GameSnapshot snapshot;
+	private Entity[] entities;
+
+	/**
+	 * <p>Creates a decoder which reads the remaining bytes of the given buffer. The
+	 * position of the given buffer is not changed.</p>
+	 * @param buffer						a non-null ByteBuffer
+	 * @throws IllegalArgumentException		if buffer is null
+	 * @see SnapshotEncoder#toByteBuffer()
+	 */
+	public SnapshotDecoder(ByteBuffer buffer) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("buffer == null");
+		}
+		this.buffer = buffer.slice();
+	}
+
+	/**
+	 * <p>Creates a decoder which reads the given file through a memory-mapped
+	 * {@link ByteBuffer}. The file is read by the operating system as the snapshot is
+	 * restored. The file should not be changed while the decoder is in use.</p>
+	 * @param file							a non-null path
+	 * @return								a new decoder
+	 * @throws IllegalArgumentException		if file is null
+	 * @throws IOException					if the file could not be mapped
+	 * @see SnapshotEncoder#writeTo(Path)
+	 */
+	public static SnapshotDecoder map(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("file == null");
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			// The mapping stays valid after the channel is closed
+			return new SnapshotDecoder(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/*
+	 * Called by the GameSnapshot once all entities have been created.
+	 */
+	void beginRestore(GameSnapshot snapshot, Entity[] entities) {
+		this.snapshot = snapshot;
+		this.entities = entities;
+	}
+
+	void endRestore() {
+		snapshot = null;
+		entities = null;
+	}
+
+	private void checkRestoring() {
+		if (snapshot == null) {
+			throw new IllegalStateException("snapshot is not being restored");
+		}
+	}
+
+	public boolean getBoolean() {
+		return buffer.get() != 0;
+	}
+
+	public int getByte() {
+		return buffer.get();
+	}
+
+	public int getInt() {
+		return buffer.getInt();
+	}
+
+	public long getLong() {
+		return buffer.getLong();
+	}
+
+	public double getDouble() {
+		return buffer.getDouble();
+	}
+
+	/**
+	 * <p>Reads a String written by {@link SnapshotEncoder#putString(String)}.</p>
+	 * @return		a String or null
+	 */
+	public String getString() {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * <p>Reads a {@link Class} written by {@link SnapshotEncoder#putType(Class)}.</p>
+	 * @param expected					the non-null type the class must be assignable to
+	 * @return							a non-null Class
+	 * @throws IllegalStateException	if the class does not exist or is not a sub type of expected
+	 */
+	public <T> Class<? extends T> getType(Class<T> expected) {
+		String name = getString();
+		Class<?> type;
+		try {
+			type = Class.forName(name, false, expected.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Unknown class: "+name, e);
+		}
+		if (!expected.isAssignableFrom(type)) {
+			throw new IllegalStateException(name+" is not a "+expected.getName());
+		}
+		return type.asSubclass(expected);
+	}
+
+	/**
+	 * <p>Reads a reference written by {@link SnapshotEncoder#putEntity(Entity)}. The
+	 * returned {@link Entity} has been created but its own state may not have been
+	 * read yet.</p>
+	 * @return							an Entity of the snapshot or null
+	 * @throws IllegalStateException	if the snapshot is not being restored or the
+	 * 									reference is invalid
+	 */
+	public Entity getEntity() {
+		checkRestoring();
+		int index = buffer.getInt();
+		if (index == -1) {
+			return null;
+		}
+		if (index < 0 || index >= entities.length) {
+			throw new IllegalStateException("Invalid entity reference: "+index);
+		}
+		return entities[index];
+	}
+
+	/**
+	 * <p>Reads an object written by {@link SnapshotEncoder#putObject(Object)}. A
+	 * registered constant is returned as it is. Otherwise a new object of the
+	 * registered type is created and its state is read.</p>
+	 * @param expected					the non-null type of the object
+	 * @return							a non-null object
+	 * @throws IllegalStateException	if the snapshot is not being restored or the
+	 * 									object could not be read
+	 */
+	public <T> T getObject(Class<T> expected) {
+		checkRestoring();
+		int kind = buffer.get();
+		if (kind == SnapshotEncoder.KIND_KEPT) {
+			throw new IllegalStateException("Object is not registered: "+getString());
+		}
+		return expected.cast(readObject(kind, expected, null, null));
+	}
+
+	/**
+	 * <p>Replaces the elements of the given {@link Group} with those written by
+	 * {@link SnapshotEncoder#putGroup(Group)}. Objects which were neither constants nor
+	 * of a registered type are taken from the current elements of the group: each one
+	 * is matched with the first unused element of the same class. Elements which are
+	 * not matched are dropped. Lambdas are matched by the class which declares them
+	 * and must therefore match all current lambdas of that class.</p>
+	 * <p>The group must not be iterated at the same time.</p>
+	 * @param group						a non-null Group
+	 * @param elementType				the type of the elements of the group
+	 * @throws IllegalStateException	if an element could not be restored or if lambdas 
+	 * 									could not be matched unambiguously
+	 */
+	<E> void getGroup(Group<E> group, Class<E> elementType) {
+		checkRestoring();
+		List<E> current = new ArrayList<>(group.getSize());
+		group.forEach(current::add);
+		boolean[] used = new boolean[current.size()];
+		group.clear();
+		int count = buffer.getInt();
+		for (int i = 0; i < count; i++) {
+			int kind = buffer.get();
+			group.add(elementType.cast(readObject(kind, elementType, current, used)));
+		}
+		checkLambdasMatched(current, used);
+	}
+
+	private Object readObject(int kind, Class<?> expected, List<?> current, boolean[] used) {
+		String name = getString();
+		Object obj;
+		switch (kind) {
+		case SnapshotEncoder.KIND_CONSTANT:
+			return snapshot.getConstant(name);
+		case SnapshotEncoder.KIND_NEW:
+			obj = snapshot.newInstance(name);
+			break;
+		case SnapshotEncoder.KIND_KEPT:
+			obj = takeMatching(name, current, used);
+			break;
+		default:
+			throw new IllegalStateException("Unknown kind of object: "+kind);
+		}
+		if (!expected.isInstance(obj)) {
+			throw new IllegalStateException(name+" is not a "+expected.getName());
+		}
+		if (getBoolean()) {
+			if (!(obj instanceof Snapshotable)) {
+				throw new IllegalStateException(name+" is not Snapshotable");
+			}
+			((Snapshotable) obj).readSnapshot(this);
+		}
+		return obj;
+	}
+
+	/*
+	 * Lambdas have generated class names which differ between runs of the JVM.
+	 * They are matched by the class they were declared in instead.
+	 */
+	private static Object takeMatching(String name, List<?> current, boolean[] used) {
+		String lambdaOwner = getLambdaOwner(name);
+		for (int i = 0; i < used.length; i++) {
+			if (used[i]) {
+				continue;
+			}
+			String candidate = current.get(i).getClass().getName();
+			if (candidate.equals(name)
+					|| (lambdaOwner != null && lambdaOwner.equals(getLambdaOwner(candidate))))
+			{
+				used[i] = true;
+				return current.get(i);
+			}
+		}
+		throw new IllegalStateException("Can not restore an instance of "+name
+				+". It must be registered or created by its owner.");
+	}
+
+	/*
+	 * If some but not all lambdas declared in the same class were matched it is not
+	 * known which of them have been removed since the snapshot was saved.
+	 */
+	private static void checkLambdasMatched(List<?> current, boolean[] used) {
+		for (int i = 0; i < used.length; i++) {
+			String owner = getLambdaOwner(current.get(i).getClass().getName());
+			if (used[i] || owner == null) {
+				continue;
+			}
+			for (int j = 0; j < used.length; j++) {
+				if (used[j] && owner.equals(getLambdaOwner(current.get(j).getClass().getName()))) {
+					throw new IllegalStateException("The lambdas declared in "+owner
+							+" can not be matched since their number has changed."
+							+" They must be registered as constants.");
+				}
+			}
+		}
+	}
+
+	private static String getLambdaOwner(String className) {
+		int index = className.indexOf("$$Lambda");
+		return index < 0 ? null : className.substring(0, index);
+	}
+
+	/**
+	 * Returns the number of bytes which have not been read yet.
+	 * @return		a non-negative number
+	 */
+	public int remaining() {
+		return buffer.remaining();
+	}
+
+}
@@ -0,0 +1,231 @@
+package edu.udo.cs.swtsf.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import edu.udo.cs.swtsf.util.Group;
+
+/**
+ * <p>Writes a {@link GameSnapshot} into a {@link ByteBuffer} which grows as needed.
+ * All numbers are written in big-endian byte order. The values must be read by a
+ * {@link SnapshotDecoder} in the same order they were written.</p>
+ *
+ * <p>Besides primitive values the encoder writes references to the {@link Entity
+ * entities} of the snapshot and objects such as strategies or
+ * {@link edu.udo.cs.swtsf.core.player.LaserUpgrade laser upgrades} which are
+ * {@link GameSnapshot#registerType(Class, java.util.function.Supplier) registered}
+ * with the GameSnapshot.</p>
+ *
+ * @see GameSnapshot#save(Game)
+ * @see Snapshotable#writeSnapshot(SnapshotEncoder)
+ * @see SnapshotDecoder
+ */
+public class SnapshotEncoder {
+
+	/**
+	 * An object which was {@link GameSnapshot#registerConstant(String, Object)
+	 * registered as a constant}. It is followed by the name of the constant.
+	 */
+	static final byte KIND_CONSTANT = 0;
+	/**
+	 * An object of a {@link GameSnapshot#registerType(Class, java.util.function.Supplier)
+	 * registered type}. It is followed by the name of its class and its state.
+	 */
+	static final byte KIND_NEW = 1;
+	/**
+	 * An object which is neither registered nor a constant. When the snapshot is
+	 * restored it is matched with an object of the same class which was created
+	 * together with its owner, for example by the constructor of an {@link Entity}.
+	 * It is followed by the name of its class and its state.
+	 */
+	static final byte KIND_KEPT = 2;
+
+	private final GameSnapshot snapshot;
+	private final Map<Entity, Integer> entityIndices;
+	private ByteBuffer buffer;
+
+	SnapshotEncoder(GameSnapshot snapshot, Map<Entity, Integer> entityIndices, int capacity) {
+		this.snapshot = snapshot;
+		this.entityIndices = entityIndices;
+		buffer = ByteBuffer.allocate(capacity);
+	}
+
+	private ByteBuffer ensureRemaining(int byteCount) {
+		if (buffer.remaining() < byteCount) {
+			int capacity = Math.max(buffer.capacity() * 2, buffer.position() + byteCount);
+			ByteBuffer grown = ByteBuffer.allocate(capacity);
+			buffer.flip();
+			grown.put(buffer);
+			buffer = grown;
+		}
+		return buffer;
+	}
+
+	public void putBoolean(boolean value) {
+		ensureRemaining(1).put(value ? (byte) 1 : (byte) 0);
+	}
+
+	public void putByte(int value) {
+		ensureRemaining(1).put((byte) value);
+	}
+
+	public void putInt(int value) {
+		ensureRemaining(4).putInt(value);
+	}
+
+	public void putLong(long value) {
+		ensureRemaining(8).putLong(value);
+	}
+
+	public void putDouble(double value) {
+		ensureRemaining(8).putDouble(value);
+	}
+
+	/**
+	 * <p>Writes a String as its length in bytes followed by its UTF-8 encoding.</p>
+	 * @param value		a String or null
+	 */
+	public void putString(String value) {
+		if (value == null) {
+			putInt(-1);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		putInt(bytes.length);
+		ensureRemaining(bytes.length).put(bytes);
+	}
+
+	/**
+	 * <p>Writes the name of the given {@link Class}.</p>
+	 * @param type							a non-null Class
+	 * @throws IllegalArgumentException		if type is null
+	 * @see SnapshotDecoder#getType(Class)
+	 */
+	public void putType(Class<?> type) {
+		if (type == null) {
+			throw new IllegalArgumentException("type == null");
+		}
+		putString(type.getName());
+	}
+
+	/**
+	 * <p>Writes a reference to an {@link Entity} of the snapshot. Entities which are
+	 * not part of the snapshot, because they are no longer part of the {@link Game},
+	 * are written as null.</p>
+	 * @param entity		an Entity or null
+	 * @see SnapshotDecoder#getEntity()
+	 */
+	public void putEntity(Entity entity) {
+		Integer index = entity == null ? null : entityIndices.get(entity);
+		putInt(index == null ? -1 : index.intValue());
+	}
+
+	/**
+	 * <p>Writes an object which is either a {@link GameSnapshot#registerConstant(String,
+	 * Object) registered constant} or of a {@link GameSnapshot#registerType(Class,
+	 * java.util.function.Supplier) registered type}. If the object is
+	 * {@link Snapshotable} its state is written as well.</p>
+	 * @param obj							a non-null object
+	 * @throws IllegalArgumentException		if obj is null
+	 * @throws IllegalStateException		if obj is neither a constant nor of a registered type
+	 * @see SnapshotDecoder#getObject(Class)
+	 */
+	public void putObject(Object obj) {
+		if (obj == null) {
+			throw new IllegalArgumentException("obj == null");
+		}
+		if (!putRegistered(obj)) {
+			throw new IllegalStateException(obj.getClass().getName()+" is not registered");
+		}
+	}
+
+	/**
+	 * <p>Writes all elements of the given {@link Group} in the order they are iterated.
+	 * Elements which are neither registered constants nor of a registered type are
+	 * written as {@link #KIND_KEPT}.</p>
+	 * @param group		a non-null Group
+	 * @see SnapshotDecoder#getGroup(Group, Class)
+	 */
+	void putGroup(Group<?> group) {
+		putInt(group.getSize());
+		group.forEach(element -> {
+			if (!putRegistered(element)) {
+				putByte(KIND_KEPT);
+				putString(element.getClass().getName());
+				putState(element);
+			}
+		});
+	}
+
+	private boolean putRegistered(Object obj) {
+		String constantName = snapshot.getConstantName(obj);
+		if (constantName != null) {
+			putByte(KIND_CONSTANT);
+			putString(constantName);
+			return true;
+		}
+		if (snapshot.isRegisteredType(obj.getClass())) {
+			putByte(KIND_NEW);
+			putString(obj.getClass().getName());
+			putState(obj);
+			return true;
+		}
+		return false;
+	}
+
+	private void putState(Object obj) {
+		boolean hasState = obj instanceof Snapshotable;
+		putBoolean(hasState);
+		if (hasState) {
+			((Snapshotable) obj).writeSnapshot(this);
+		}
+	}
+
+	/**
+	 * Returns the number of bytes written so far.
+	 * @return		a non-negative number
+	 */
+	public int size() {
+		return buffer.position();
+	}
+
+	/**
+	 * <p>Returns a read-only {@link ByteBuffer} with all bytes written so far. The
+	 * returned buffer is positioned at the first byte.</p>
+	 * @return		a new non-null ByteBuffer
+	 * @see SnapshotDecoder#SnapshotDecoder(ByteBuffer)
+	 */
+	public ByteBuffer toByteBuffer() {
+		ByteBuffer result = buffer.asReadOnlyBuffer();
+		result.flip();
+		return result;
+	}
+
+	/**
+	 * <p>Writes all bytes written so far to the given file. An existing file is
+	 * replaced.</p>
+	 * @param file							a non-null path
+	 * @throws IllegalArgumentException		if file is null
+	 * @throws IOException					if the file could not be written
+	 * @see SnapshotDecoder#map(Path)
+	 */
+	public void writeTo(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("file == null");
+		}
+		ByteBuffer bytes = toByteBuffer();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,34 @@
+package edu.udo.cs.swtsf.core;
+
+/**
+ * <p>Implemented by strategies, {@link GameScript scripts} and
+ * {@link edu.udo.cs.swtsf.core.player.LaserUpgrade laser upgrades} which have a state
+ * that changes during the game, for example a timer. The state is written to and
+ * read from a {@link GameSnapshot} so that a restored game continues where the
+ * saved game left off.</p>
+ * <p>Objects without such a state do not need to implement this interface.</p>
+ *
+ * @see GameSnapshot
+ */
+public interface Snapshotable {
+
+	/**
+	 * <p>Writes the state of this object. Only values which change during the game
+	 * need to be written.</p>
+	 * @param out		a non-null encoder
+	 * @see #readSnapshot(SnapshotDecoder)
+	 */
+	public void writeSnapshot(SnapshotEncoder out);
+
+	/**
+	 * <p>Reads the state written by {@link #writeSnapshot(SnapshotEncoder)}. The values
+	 * must be read in the same order they were written.</p>
+	 * <p>This is called after all {@link Entity entities} of the snapshot have been
+	 * created so that {@link SnapshotDecoder#getEntity() references} to them can be
+	 * read. The entities are added to the {@link Game} afterwards.</p>
+	 * @param in		a non-null decoder
+	 * @see #writeSnapshot(SnapshotEncoder)
+	 */
+	public void readSnapshot(SnapshotDecoder in);
+
+}
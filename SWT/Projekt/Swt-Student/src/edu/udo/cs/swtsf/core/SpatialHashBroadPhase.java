@@ -0,0 +1,307 @@
+package edu.udo.cs.swtsf.core;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import edu.udo.cs.swtsf.util.Group;
+
+/**
+ * <p>A {@link CollisionBroadPhase} which sorts all {@link Entity Entities} into a
+ * uniform grid of square cells. Only Entities sharing at least one cell are passed
+ * on as candidate pairs. The grid is rebuilt at the beginning of each pass.</p>
+ *
+ * <p>The size of the cells is derived from the average {@link Entity#getSize() size}
+ * of all Entities. Each Entity is entered into every cell its bounding box touches.
+ * Entities which would cover too many cells are treated as oversized and are paired
+ * with every other Entity instead.</p>
+ *
+ * <p>The cells are stored in a hash table of fixed width. Two cells which are mapped
+ * to the same bucket will produce some additional candidates, but no pair which is
+ * overlapping will ever be missed.</p>
+ *
+ * <p>The pairs are passed on in the same relative order as they would be passed on by
+ * {@link Group#forEachTuple(BiConsumer)}.</p>
+ *
+ * <p>If a {@link CollisionMatrix} is given, Entities which can not collide with any
+ * other Entity of the pass are not entered into the grid at all and pairs which are
+ * not {@link CollisionMatrix#isRelevant(Entity, Entity) relevant} are skipped before
+ * they are sorted and passed on.</p>
+ *
+ * @see CollisionBroadPhase#BRUTE_FORCE
+ * @see Game#setCollisionBroadPhase(CollisionBroadPhase)
+ */
+public class SpatialHashBroadPhase implements CollisionBroadPhase {
+
+	/**
+	 * Entities covering more cells than this are paired with all other entities.
+	 */
+	public static final int MAX_CELLS_PER_ENTITY = 16;
+	/**
+	 * The cells are this many times as large as the average entity size.
+	 */
+	public static final double CELL_SIZE_FACTOR = 2.0;
+
+	private static final int MIN_TABLE_SIZE = 64;
+
+	/**
+	 * Used to copy the entities from the group into {@link #snapshot}.
+	 */
+	private final Consumer<Entity> collector = e -> addToSnapshot(e);
+	/**
+	 * All entities of the current pass in the order of the group.
+	 */
+	private Entity[] snapshot = new Entity[64];
+	private int snapshotSize;
+	/**
+	 * The cell range covered by each entity of the snapshot. The range is
+	 * inclusive on both ends.
+	 */
+	private int[] cellMinX = new int[64];
+	private int[] cellMinY = new int[64];
+	private int[] cellMaxX = new int[64];
+	private int[] cellMaxY = new int[64];
+	/**
+	 * For each entity of the snapshot the {@link CollisionMatrix#getEffectiveMask(Entity) 
+	 * effective collision mask} and the bit of its own collision layer. Only used if a 
+	 * {@link CollisionMatrix} was given.
+	 */
+	private int[] wantedLayers = new int[64];
+	private int[] layerBits = new int[64];
+	private boolean filterPairs;
+	/**
+	 * The snapshot indices of all oversized entities in ascending order.
+	 */
+	private int[] oversized = new int[8];
+	private int oversizedCount;
+	/**
+	 * The first entry of each bucket or -1 if the bucket is empty.
+	 */
+	private int[] bucketHeads = new int[MIN_TABLE_SIZE];
+	/**
+	 * The entries are linked lists of snapshot indices.
+	 */
+	private int[] entryNext = new int[256];
+	private int[] entryIndex = new int[256];
+	private int entryCount;
+	/**
+	 * Used to make sure each candidate is only collected once per entity.
+	 */
+	private int[] visitStamp = new int[64];
+	private int[] candidates = new int[64];
+	private int candidateCount;
+	private double cellSize;
+
+	public void forEachCandidatePair(Group<Entity> entities,
+			BiConsumer<Entity, Entity> action)
+	{
+		forEachCandidatePair(entities, null, action);
+	}
+
+	/**
+	 * <p>Like {@link #forEachCandidatePair(Group, BiConsumer)} but skips all pairs which
+	 * are not relevant according to the matrix. If the matrix is null no pairs are
+	 * skipped.</p>
+	 */
+	public void forEachCandidatePair(Group<Entity> entities,
+			CollisionMatrix matrix, BiConsumer<Entity, Entity> action)
+	{
+		if (action == null) {
+			throw new IllegalArgumentException("action == null");
+		}
+		snapshotSize = 0;
+		entities.forEach(collector);
+		try {
+			filterPairs = matrix != null;
+			if (filterPairs) {
+				removeNonParticipants(matrix);
+			}
+			buildGrid();
+			for (int i = 0; i < snapshotSize - 1; i++) {
+				collectCandidates(i);
+				Entity a = snapshot[i];
+				for (int c = 0; c < candidateCount; c++) {
+					action.accept(a, snapshot[candidates[c]]);
+				}
+			}
+		} finally {
+			// Do not keep references to entities which might be removed from the game
+			Arrays.fill(snapshot, 0, snapshotSize, null);
+			snapshotSize = 0;
+		}
+	}
+
+	/**
+	 * Returns the edge length of the cells used in the last pass.
+	 * @return		a positive number, or 0 if there was no pass yet
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	private void addToSnapshot(Entity entity) {
+		if (snapshotSize == snapshot.length) {
+			int newLength = snapshot.length * 2;
+			snapshot = Arrays.copyOf(snapshot, newLength);
+			cellMinX = Arrays.copyOf(cellMinX, newLength);
+			cellMinY = Arrays.copyOf(cellMinY, newLength);
+			cellMaxX = Arrays.copyOf(cellMaxX, newLength);
+			cellMaxY = Arrays.copyOf(cellMaxY, newLength);
+			wantedLayers = new int[newLength];
+			layerBits = new int[newLength];
+			visitStamp = new int[newLength];
+			candidates = new int[newLength];
+		}
+		snapshot[snapshotSize++] = entity;
+	}
+
+	/**
+	 * Computes the {@link #wantedLayers} and {@link #layerBits} of all entities of the 
+	 * snapshot and removes those which neither want to collide with anything nor are 
+	 * wanted by any other entity. The order of the snapshot is kept.
+	 */
+	private void removeNonParticipants(CollisionMatrix matrix) {
+		int wantedByAny = 0;
+		for (int i = 0; i < snapshotSize; i++) {
+			Entity entity = snapshot[i];
+			int wanted = matrix.getEffectiveMask(entity);
+			wantedLayers[i] = wanted;
+			layerBits[i] = 1 << entity.getCollisionLayer();
+			wantedByAny |= wanted;
+		}
+		int kept = 0;
+		for (int i = 0; i < snapshotSize; i++) {
+			if (wantedLayers[i] != 0 || (wantedByAny & layerBits[i]) != 0) {
+				snapshot[kept] = snapshot[i];
+				wantedLayers[kept] = wantedLayers[i];
+				layerBits[kept] = layerBits[i];
+				kept++;
+			}
+		}
+		Arrays.fill(snapshot, kept, snapshotSize, null);
+		snapshotSize = kept;
+	}
+
+	/**
+	 * Returns true if the entities at both indices of the snapshot may need to be 
+	 * checked for a collision.
+	 */
+	private boolean isRelevant(int a, int b) {
+		return !filterPairs
+				|| (wantedLayers[a] & layerBits[b]) != 0
+				|| (wantedLayers[b] & layerBits[a]) != 0;
+	}
+
+	private void buildGrid() {
+		long totalSize = 0;
+		for (int i = 0; i < snapshotSize; i++) {
+			totalSize += snapshot[i].getSize();
+		}
+		double averageSize = snapshotSize == 0 ? 1 : totalSize / (double) snapshotSize;
+		cellSize = Math.max(1, averageSize * CELL_SIZE_FACTOR);
+
+		int tableSize = MIN_TABLE_SIZE;
+		while (tableSize < snapshotSize * 2) {
+			tableSize *= 2;
+		}
+		if (bucketHeads.length != tableSize) {
+			bucketHeads = new int[tableSize];
+		}
+		Arrays.fill(bucketHeads, -1);
+		Arrays.fill(visitStamp, 0, snapshotSize, -1);
+		entryCount = 0;
+		oversizedCount = 0;
+
+		for (int i = 0; i < snapshotSize; i++) {
+			Entity entity = snapshot[i];
+			double radius = entity.getSize() / 2.0;
+			int minX = toCell(entity.getX() - radius);
+			int minY = toCell(entity.getY() - radius);
+			int maxX = toCell(entity.getX() + radius);
+			int maxY = toCell(entity.getY() + radius);
+			cellMinX[i] = minX;
+			cellMinY[i] = minY;
+			cellMaxX[i] = maxX;
+			cellMaxY[i] = maxY;
+
+			long cellCount = (maxX - (long) minX + 1) * (maxY - (long) minY + 1);
+			if (cellCount > MAX_CELLS_PER_ENTITY) {
+				if (oversizedCount == oversized.length) {
+					oversized = Arrays.copyOf(oversized, oversizedCount * 2);
+				}
+				oversized[oversizedCount++] = i;
+				cellMaxX[i] = cellMinX[i] - 1;// marks the entity as oversized
+				continue;
+			}
+			for (int cy = minY; cy <= maxY; cy++) {
+				for (int cx = minX; cx <= maxX; cx++) {
+					insert(bucketOf(cx, cy), i);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fills {@link #candidates} with the snapshot indices of all entities which
+	 * come after the entity at index in the snapshot and might overlap with it.
+	 * The candidates are sorted in ascending order.
+	 */
+	private void collectCandidates(int index) {
+		candidateCount = 0;
+		if (cellMaxX[index] < cellMinX[index]) {
+			// oversized entities are paired with everything
+			for (int j = index + 1; j < snapshotSize; j++) {
+				if (isRelevant(index, j)) {
+					candidates[candidateCount++] = j;
+				}
+			}
+			return;
+		}
+		for (int cy = cellMinY[index]; cy <= cellMaxY[index]; cy++) {
+			for (int cx = cellMinX[index]; cx <= cellMaxX[index]; cx++) {
+				int entry = bucketHeads[bucketOf(cx, cy)];
+				while (entry != -1) {
+					int other = entryIndex[entry];
+					if (other > index && visitStamp[other] != index) {
+						visitStamp[other] = index;
+						if (isRelevant(index, other)) {
+							candidates[candidateCount++] = other;
+						}
+					}
+					entry = entryNext[entry];
+				}
+			}
+		}
+		for (int k = 0; k < oversizedCount; k++) {
+			int other = oversized[k];
+			if (other > index && isRelevant(index, other)) {
+				candidates[candidateCount++] = other;
+			}
+		}
+		Arrays.sort(candidates, 0, candidateCount);
+	}
+
+	private void insert(int bucket, int index) {
+		if (entryCount == entryIndex.length) {
+			entryIndex = Arrays.copyOf(entryIndex, entryCount * 2);
+			entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+		}
+		entryIndex[entryCount] = index;
+		entryNext[entryCount] = bucketHeads[bucket];
+		bucketHeads[bucket] = entryCount;
+		entryCount++;
+	}
+
+	private int toCell(double coordinate) {
+		double cell = Math.floor(coordinate / cellSize);
+		// Clamp so the cell loops can not overflow for Entities which have flown far away
+		return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2, cell));
+	}
+
+	private int bucketOf(int cellX, int cellY) {
+		int hash = (cellX * 73856093) ^ (cellY * 19349663);
+		hash ^= (hash >>> 16);
+		return hash & (bucketHeads.length - 1);
+	}
+
+}
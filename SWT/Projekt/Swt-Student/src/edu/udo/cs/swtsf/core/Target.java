@@ -22,7 +22,7 @@ public abstract class Target extends Entity {
 	 * <p>This strategy assumes that the host is always an instance of Target.</p>
 	 * <p>This strategy is automatically added to all Target's when they are created.</p>
 	 */
-	public static final EntityBehaviorStrategy TARGET_DISPOSE_ON_DEATH = 
+	public static final ParallelEntityBehaviorStrategy TARGET_DISPOSE_ON_DEATH = 
 			(self) -> 
 	{
 		Target target = (Target) self;
@@ -62,6 +62,7 @@ public abstract class Target extends Entity {
 	private boolean hitpointsReadOnly;
 	
 	{
+		setCollisionLayer(COLLISION_LAYER_TARGET);
 		addBehaviorStrategy(TARGET_DISPOSE_ON_DEATH);
 	}
 	
@@ -261,6 +262,36 @@ public abstract class Target extends Entity {
 		observers.remove(observer);
 	}
 	
+	/**
+	 * <p>Writes the {@link #getHitpoints() hitpoints}, the {@link #getMaxHitpoints() 
+	 * maximum hitpoints} and whether the hitpoints are {@link #isHitpointsReadOnly() 
+	 * read-only} in addition to the state of an {@link Entity}.</p>
+	 * @see Entity#writeSnapshot(SnapshotEncoder)
+	 */
+	protected void writeSnapshot(SnapshotEncoder out) {
+		super.writeSnapshot(out);
+		out.putInt(getMaxHitpoints());
+		out.putInt(getHitpoints());
+		out.putBoolean(isHitpointsReadOnly());
+	}
+	
+	/**
+	 * <p>Reads the state written by {@link #writeSnapshot(SnapshotEncoder)}. The 
+	 * hitpoints are set with {@link #setHitpoints(int)} so that all 
+	 * {@link TargetObserver observers} are notified of the change.</p>
+	 * @see Entity#readSnapshot(SnapshotDecoder)
+	 */
+	protected void readSnapshot(SnapshotDecoder in) {
+		super.readSnapshot(in);
+		int maxValue = in.getInt();
+		int value = in.getInt();
+		boolean readOnly = in.getBoolean();
+		setHitpointsReadOnly(false);
+		setMaxHitpoints(maxValue);
+		setHitpoints(value);
+		setHitpointsReadOnly(readOnly);
+	}
+	
 	/**
 	 * Called by {@link #setHitpoints(int)}. Only used internally.
 	 * @param delta				how much the hitpoints are about to change
@@ -2,18 +2,60 @@ package edu.udo.cs.swtsf.core.player;
 
 import edu.udo.cs.swtsf.core.Bullet;
 import edu.udo.cs.swtsf.core.Entity;
+import edu.udo.cs.swtsf.core.EntityPool;
+import edu.udo.cs.swtsf.core.Game;
 
-/**
- * BasicBullets are Bullets which are automatically disposed after hitting a target.
- */
 public class BasicBullet extends Bullet {
 	
-	/**
-	 * @see Bullet#Bullet(Entity)
-	 */
 	public BasicBullet(Entity sourceEntity) {
 		super(sourceEntity);
 		addHitStrategy(BULLET_SELF_DESTRUCT_ON_HIT_STRAT);
 	}
 	
-}
\ No newline at end of file
+	/*
+	 * Used by the pool. The source is set when the Bullet is obtained.
+	 */
+	private BasicBullet() {
+		super();
+		addHitStrategy(BULLET_SELF_DESTRUCT_ON_HIT_STRAT);
+	}
+	
+	protected void reset() {
+		super.reset();
+		addHitStrategy(BULLET_SELF_DESTRUCT_ON_HIT_STRAT);
+	}
+	
+	/**
+	 * <p>Creates an empty {@link EntityPool} for BasicBullets.</p>
+	 * @param capacity		the number of free Bullets the pool holds at most
+	 * @return				a new EntityPool
+	 * @see Game#setEntityPool(Class, EntityPool)
+	 */
+	public static EntityPool<BasicBullet> createPool(int capacity) {
+		return new EntityPool<>(BasicBullet::new, capacity);
+	}
+	
+	/**
+	 * <p>Returns a BasicBullet for the given source. The Bullet is taken from the 
+	 * {@link Game#getEntityPool(Class) pool} of the game of the source if there is one. 
+	 * Otherwise a new Bullet is created.</p>
+	 * @param sourceEntity					a non-null Entity which will be the source of the Bullet
+	 * @return								a non-null BasicBullet
+	 * @throws IllegalArgumentException		if sourceEntity is null
+	 * @see #BasicBullet(Entity)
+	 */
+	public static BasicBullet obtain(Entity sourceEntity) {
+		if (sourceEntity == null) {
+			throw new IllegalArgumentException("sourceEntity == null");
+		}
+		Game game = sourceEntity.getCurrentGame();
+		EntityPool<BasicBullet> pool = game == null ? null : game.getEntityPool(BasicBullet.class);
+		if (pool == null) {
+			return new BasicBullet(sourceEntity);
+		}
+		BasicBullet bullet = pool.acquire();
+		bullet.initialize(sourceEntity);
+		return bullet;
+	}
+	
+}
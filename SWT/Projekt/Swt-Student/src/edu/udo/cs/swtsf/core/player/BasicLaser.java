@@ -61,7 +61,7 @@ public class BasicLaser implements Laser {
 	
 	public List<Bullet> createBullets(Entity src) {
 		List<Bullet> list = new ArrayList<>(1);
-		list.add(new BasicBullet(src));
+		list.add(BasicBullet.obtain(src));
 		return list;
 	}
 	
@@ -4,6 +4,9 @@ import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.EntityBehaviorStrategy;
 import edu.udo.cs.swtsf.core.Game;
 import edu.udo.cs.swtsf.core.GameKey;
+import edu.udo.cs.swtsf.core.SnapshotDecoder;
+import edu.udo.cs.swtsf.core.SnapshotEncoder;
+import edu.udo.cs.swtsf.core.Snapshotable;
 
 /**
  * <p>This {@link EntityBehaviorStrategy} is used by the {@link Player} to implement the 
@@ -11,24 +14,24 @@ import edu.udo.cs.swtsf.core.GameKey;
  * key} inputs and changes the {@link Entity#getRotation() rotation} and {@link Entity#getSpeed() 
  * velocity} of the Player object accordingly.</p>
  */
-public class MovePlayerAction implements EntityBehaviorStrategy {
+public class MovePlayerAction implements EntityBehaviorStrategy, Snapshotable {
 	
 	/**
 	 * The {@link GameKey} used to move forward (speed up).
 	 */
-	public static GameKey INPUT_MOVE_FORWARD	= GameKey.UP;
+	public static volatile GameKey INPUT_MOVE_FORWARD	= GameKey.UP;
 	/**
 	 * The {@link GameKey} used to slow down.
 	 */
-	public static GameKey INPUT_SLOW_DOWN		= GameKey.DOWN;
+	public static volatile GameKey INPUT_SLOW_DOWN		= GameKey.DOWN;
 	/**
 	 * The {@link GameKey} used to turn clockwise.
 	 */
-	public static GameKey INPUT_TURN_RIGHT		= GameKey.RIGHT;
+	public static volatile GameKey INPUT_TURN_RIGHT		= GameKey.RIGHT;
 	/**
 	 * The {@link GameKey} used to turn counter-clockwise.
 	 */
-	public static GameKey INPUT_TURN_LEFT		= GameKey.LEFT;
+	public static volatile GameKey INPUT_TURN_LEFT		= GameKey.LEFT;
 	/**
 	 * The speed (in angles degrees) at which the Player object is changing its rotation
 	 */
@@ -112,6 +115,24 @@ public class MovePlayerAction implements EntityBehaviorStrategy {
 		turnLeftFlag = true;
 	}
 	
+	/**
+	 * <p>Writes the inputs which were given by the methods of this action but have 
+	 * not been used yet.</p>
+	 */
+	public void writeSnapshot(SnapshotEncoder out) {
+		out.putBoolean(moveForwardFlag);
+		out.putBoolean(slowDownFlag);
+		out.putBoolean(turnLeftFlag);
+		out.putBoolean(turnRightFlag);
+	}
+	
+	public void readSnapshot(SnapshotDecoder in) {
+		moveForwardFlag = in.getBoolean();
+		slowDownFlag = in.getBoolean();
+		turnLeftFlag = in.getBoolean();
+		turnRightFlag = in.getBoolean();
+	}
+	
 	/**
 	 * <p>Returns how the {@link Player} needs to turn in order to face the given targetAngle 
 	 * within an error margin of epsilon. The returned value is 
@@ -1,15 +1,21 @@
 package edu.udo.cs.swtsf.core.player;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import edu.udo.cs.swtsf.core.Bullet;
 import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.EntityBehaviorStrategy;
 import edu.udo.cs.swtsf.core.Game;
+import edu.udo.cs.swtsf.core.GameSnapshot;
 import edu.udo.cs.swtsf.core.PickUp;
+import edu.udo.cs.swtsf.core.SnapshotDecoder;
+import edu.udo.cs.swtsf.core.SnapshotEncoder;
 import edu.udo.cs.swtsf.core.Target;
 import edu.udo.cs.swtsf.util.Group;
 import edu.udo.cs.swtsf.util.GroupFactory;
@@ -86,6 +92,7 @@ public class Player extends Target {
 	 * <p>Constructs a Player with a {@link #getSize() size} of 32, a position of 
 	 * ({@link #getX() 200}, {@link #getY() 200}), a {@link #getMaxHitpoints() maximum 
 	 * number of hitpoints} of 100 and 5 {@link #getHitpoints() current hitpoints}.</p>
+	 * <p>The Player is on the {@link #COLLISION_LAYER_PLAYER player collision layer}.</p>
 	 * 
 	 * <p>The player also has the {@link ShootLaserAction} and {@link MovePlayerAction} 
 	 * added by default.</p> 
@@ -93,6 +100,7 @@ public class Player extends Target {
 	public Player() {
 		super();
 		setSize(32);
+		setCollisionLayer(COLLISION_LAYER_PLAYER);
 		setPosition(200, 200);
 		setMaxHitpoints(100);
 		setHitpoints(5);
@@ -434,6 +442,80 @@ public class Player extends Target {
 		return score;
 	}
 	
+	/**
+	 * <p>Writes the {@link #getScore() score}, the number of each type of 
+	 * {@link #getPickUpCount(Class) PickUp} and all {@link LaserUpgrade LaserUpgrades} 
+	 * in addition to the state of a {@link Target}. The LaserUpgrades must be registered 
+	 * with the {@link GameSnapshot}.</p>
+	 * @see Entity#writeSnapshot(SnapshotEncoder)
+	 * @see GameSnapshot#registerType(Class, java.util.function.Supplier)
+	 */
+	protected void writeSnapshot(SnapshotEncoder out) {
+		super.writeSnapshot(out);
+		out.putInt(score);
+		out.putBoolean(hasMoveInput);
+		List<Class<? extends PickUp>> pickUpTypes = new ArrayList<>();
+		for (Map.Entry<Class<? extends PickUp>, Integer> entry : pickUpMap.entrySet()) {
+			if (entry.getValue() > 0) {
+				pickUpTypes.add(entry.getKey());
+			}
+		}
+		// Sorted so that the same state is always written the same way
+		pickUpTypes.sort(Comparator.comparing(Class::getName));
+		out.putInt(pickUpTypes.size());
+		for (Class<? extends PickUp> pickUpCls : pickUpTypes) {
+			out.putType(pickUpCls);
+			out.putInt(pickUpMap.get(pickUpCls));
+		}
+		// The upgrades are written in the order they have to be added again
+		List<LaserUpgrade> upgrades = new ArrayList<>();
+		for (Laser laser : curLaser) {
+			if (laser instanceof LaserUpgrade) {
+				upgrades.add(0, (LaserUpgrade) laser);
+			}
+		}
+		out.putInt(upgrades.size());
+		for (LaserUpgrade upgrade : upgrades) {
+			out.putObject(upgrade);
+		}
+	}
+	
+	/**
+	 * <p>Reads the state written by {@link #writeSnapshot(SnapshotEncoder)}. The score, 
+	 * PickUps and LaserUpgrades are changed with the methods of this Player so that all 
+	 * {@link PlayerObserver observers} are notified of the changes.</p>
+	 * @see Entity#readSnapshot(SnapshotDecoder)
+	 */
+	protected void readSnapshot(SnapshotDecoder in) {
+		super.readSnapshot(in);
+		addScore(in.getInt() - score);
+		hasMoveInput = in.getBoolean();
+		Map<Class<? extends PickUp>, Integer> pickUpCounts = new HashMap<>();
+		for (Class<? extends PickUp> pickUpCls : pickUpMap.keySet()) {
+			pickUpCounts.put(pickUpCls, 0);
+		}
+		int pickUpTypeCount = in.getInt();
+		for (int i = 0; i < pickUpTypeCount; i++) {
+			Class<? extends PickUp> pickUpCls = in.getType(PickUp.class);
+			pickUpCounts.put(pickUpCls, in.getInt());
+		}
+		for (Map.Entry<Class<? extends PickUp>, Integer> entry : pickUpCounts.entrySet()) {
+			int delta = entry.getValue() - getPickUpCount(entry.getKey());
+			if (delta > 0) {
+				addPickUp(entry.getKey(), delta);
+			} else if (delta < 0) {
+				removePickUp(entry.getKey(), -delta);
+			}
+		}
+		while (curLaser instanceof LaserUpgrade) {
+			removeLaserUpgrade((LaserUpgrade) curLaser);
+		}
+		int upgradeCount = in.getInt();
+		for (int i = 0; i < upgradeCount; i++) {
+			addLaserUpgrade(in.getObject(LaserUpgrade.class));
+		}
+	}
+	
 	/**
 	 * <p>Adds the given {@link PlayerObserver} to the observers of this {@link Player}.</p>
 	 * <p>Once added, an PlayerObserver will be notified of many changes and events happening 
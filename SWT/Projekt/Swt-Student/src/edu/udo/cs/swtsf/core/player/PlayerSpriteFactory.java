@@ -4,6 +4,7 @@ import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.Target;
 import edu.udo.cs.swtsf.view.GraphicalElement;
 import edu.udo.cs.swtsf.view.GraphicalElementFactory;
+import edu.udo.cs.swtsf.view.ParticleEffect;
 import edu.udo.cs.swtsf.view.Sprite;
 import edu.udo.cs.swtsf.view.SpriteSet;
 import edu.udo.cs.swtsf.view.ViewManager;
@@ -23,6 +24,11 @@ public class PlayerSpriteFactory implements GraphicalElementFactory {
 	public static final int TIME_BETWEEN_SMOKE_PUFFS = 4;
 	public static final double SMOKE_PUFF_MIN_SPEED = 2;
 	public static final int CUTOUT_SIZE = 32;
+	// the time (in milliseconds) a smoke puff stays still before its animation starts
+	public static final int SMOKE_PUFF_START_DELAY = 300;
+	// the smoke puffs are shown as particles. They have 4 frames of 40 milliseconds each.
+	public static final ParticleEffect SMOKE_PUFF_EFFECT = new ParticleEffect(
+			SMOKE_PUFF_SPRITE_PATH, CUTOUT_SIZE, CUTOUT_SIZE, 4, 40, SMOKE_PUFF_START_DELAY);
 	
 	public GraphicalElement createForEntity(ViewManager view, Entity entity) {
 		// We encapsulate the complex animation of the player within a new object
@@ -106,25 +112,17 @@ public class PlayerSpriteFactory implements GraphicalElementFactory {
 					smokeTimer = TIME_BETWEEN_SMOKE_PUFFS;
 					
 					ViewManager viewMngr = spriteSet.getViewManager();
-					Sprite smokePuffSprite = viewMngr.newSprite();
-					smokePuffSprite.setAnimator(new SmokePuffAnimator());
-					smokePuffSprite.setImagePath(SMOKE_PUFF_SPRITE_PATH);
-					smokePuffSprite.setImageCutoutWidth(CUTOUT_SIZE);
-					smokePuffSprite.setImageCutoutHeight(CUTOUT_SIZE);
-					
 					double rotation = player.getRotation();
 					double playerSize = player.getSize();
 					double direction = rotation + 180;
 					double offsetX = Entity.getOffsetX(direction, playerSize / 2);
 					double offsetY = Entity.getOffsetY(direction, playerSize / 2);
 					
-					smokePuffSprite.setTranslation(
+					// the smoke puff removes itself once its animation is over
+					viewMngr.emitParticle(SMOKE_PUFF_EFFECT, 
 							spriteSet.getTranslateX() + offsetX, 
-							spriteSet.getTranslateY() + offsetY);
-					smokePuffSprite.setScale(0.4);
-					smokePuffSprite.setRotation(rotation);
-					
-					viewMngr.addSprite(smokePuffSprite);
+							spriteSet.getTranslateY() + offsetY, 
+							rotation, 0.4);
 				}
 			}
 		}
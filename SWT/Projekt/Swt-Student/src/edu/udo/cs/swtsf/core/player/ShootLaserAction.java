@@ -8,6 +8,9 @@ import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.EntityBehaviorStrategy;
 import edu.udo.cs.swtsf.core.Game;
 import edu.udo.cs.swtsf.core.GameKey;
+import edu.udo.cs.swtsf.core.SnapshotDecoder;
+import edu.udo.cs.swtsf.core.SnapshotEncoder;
+import edu.udo.cs.swtsf.core.Snapshotable;
 import edu.udo.cs.swtsf.core.Target;
 
 /**
@@ -20,7 +23,7 @@ import edu.udo.cs.swtsf.core.Target;
  * score} on a successful hit and for notifying all {@link PlayerObserver PlayerObservers} 
  * when the Player destroys a {@link Target}.</p>
  */
-public class ShootLaserAction implements EntityBehaviorStrategy {
+public class ShootLaserAction implements EntityBehaviorStrategy, Snapshotable {
 	
 	/**
 	 * Each destroyed {@link Target} gives this many points.
@@ -37,9 +40,9 @@ public class ShootLaserAction implements EntityBehaviorStrategy {
 			new BulletScoreStrat(SCORE_BONUS_PER_MONSTER_HIT);
 	/**
 	 * The {@link GameKey} used to fire the {@link Laser}. This can be changed by 
-	 * a key binding screen in the menu.
+	 * a key binding screen in the menu while games are running on other threads.
 	 */
-	public static GameKey INPUT_SHOOT_LASER = GameKey.SPACE;
+	public static volatile GameKey INPUT_SHOOT_LASER = GameKey.SPACE;
 	
 	/**
 	 * The time (in update cycles) between two consecutive shots.
@@ -115,6 +118,17 @@ public class ShootLaserAction implements EntityBehaviorStrategy {
 		player.fireLaserFired(bullets);
 	}
 	
+	/**
+	 * <p>Writes the remaining {@link #laserCoolDownTime cooldown} of the {@link Laser}.</p>
+	 */
+	public void writeSnapshot(SnapshotEncoder out) {
+		out.putInt(laserCoolDownTime);
+	}
+	
+	public void readSnapshot(SnapshotDecoder in) {
+		laserCoolDownTime = in.getInt();
+	}
+	
 	/**
 	 * <p>Increments the {@link Player Players} {@link Player#getScore() score} on 
 	 * each kill of a {@link Target}. Also notifies {@link PlayerObserver} instances 
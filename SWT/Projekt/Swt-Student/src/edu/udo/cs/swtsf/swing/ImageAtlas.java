@@ -0,0 +1,136 @@
+package edu.udo.cs.swtsf.swing;
+
+import java.awt.Graphics;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Packs many small images into a few large, hardware accelerated pages. Each
+ * packed image is represented by a sub-image of its page. Drawing the sub-image
+ * draws directly from the page.</p>
+ *
+ * <p>The images are packed row by row, starting with the highest image. An image
+ * which does not fit into a page with {@link #PADDING} is not packed.</p>
+ *
+ * @see ImageCache#buildAtlas()
+ */
+public class ImageAtlas {
+
+	public static final int DEFAULT_PAGE_SIZE = 1024;
+	/**
+	 * The number of transparent pixels between two images on a page. This keeps
+	 * the filtering of one image from picking up the pixels of its neighbors.
+	 */
+	public static final int PADDING = 1;
+
+	private final List<BufferedImage> pages = new ArrayList<>();
+	private final Map<String, BufferedImage> regions = new HashMap<>();
+	private final int pageSize;
+
+	/**
+	 * <p>Packs all given images into pages of the given size. Images which are
+	 * larger than half of a page are not packed so they do not waste a page of
+	 * their own.</p>
+	 * @param images						the images to pack by their paths. Not null.
+	 * @param pageSize						the width and height of each page
+	 * @throws IllegalArgumentException		if images is null or if pageSize is less than 1
+	 */
+	public ImageAtlas(Map<String, BufferedImage> images, int pageSize) {
+		if (images == null) {
+			throw new IllegalArgumentException("images == null");
+		}
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("pageSize < 1");
+		}
+		this.pageSize = pageSize;
+
+		List<String> paths = new ArrayList<>();
+		int maxSize = pageSize / 2;
+		for (Map.Entry<String, BufferedImage> entry : images.entrySet()) {
+			BufferedImage img = entry.getValue();
+			if (img.getWidth() <= maxSize && img.getHeight() <= maxSize) {
+				paths.add(entry.getKey());
+			}
+		}
+		// Highest images first, equal heights sorted by path to always get the same result
+		Collections.sort(paths, (a, b) -> {
+			int cmp = Integer.compare(images.get(b).getHeight(), images.get(a).getHeight());
+			return cmp != 0 ? cmp : a.compareTo(b);
+		});
+		pack(paths, images);
+	}
+
+	private void pack(List<String> paths, Map<String, BufferedImage> images) {
+		BufferedImage page = null;
+		Graphics g = null;
+		int x = 0;
+		int y = 0;
+		int rowHeight = 0;
+		for (String path : paths) {
+			BufferedImage img = images.get(path);
+			int w = img.getWidth();
+			int h = img.getHeight();
+			if (page != null && x + w > pageSize) {
+				// next row
+				x = 0;
+				y += rowHeight + PADDING;
+				rowHeight = 0;
+			}
+			if (page == null || y + h > pageSize) {
+				// next page
+				if (g != null) {
+					g.dispose();
+				}
+				page = ImageCache.createAcceleratedImg(pageSize, pageSize, Transparency.TRANSLUCENT);
+				pages.add(page);
+				g = page.createGraphics();
+				x = 0;
+				y = 0;
+				rowHeight = 0;
+			}
+			g.drawImage(img, x, y, null);
+			regions.put(path, page.getSubimage(x, y, w, h));
+			x += w + PADDING;
+			rowHeight = Math.max(rowHeight, h);
+		}
+		if (g != null) {
+			g.dispose();
+		}
+	}
+
+	/**
+	 * <p>Returns the region of the packed image with the given path or null if
+	 * the image was not packed. The same instance is returned for each call.</p>
+	 * @param path		the path of the image as it was given to the constructor
+	 * @return			a sub-image of a page or null
+	 */
+	public BufferedImage getImage(String path) {
+		return regions.get(path);
+	}
+
+	/**
+	 * Returns the number of packed images.
+	 * @return		a non-negative number
+	 */
+	public int getImageCount() {
+		return regions.size();
+	}
+
+	/**
+	 * Returns the number of pages.
+	 * @return		a non-negative number
+	 */
+	public int getPageCount() {
+		return pages.size();
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+}
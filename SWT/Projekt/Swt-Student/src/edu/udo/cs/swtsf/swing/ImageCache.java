@@ -7,48 +7,515 @@ import java.awt.GraphicsEnvironment;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.imageio.ImageIO;
 
+/**
+ * <p>Loads images from {@link #IMAGE_PATH_PREFIX} and keeps them in memory. The cache 
+ * holds at most {@link #getByteBudget()} bytes of images. When it is full the least 
+ * recently used images are dropped and will be loaded again when they are needed.</p>
+ * 
+ * <p>Images can be {@link #preload(Collection) preloaded} on background threads so 
+ * they do not have to be loaded while the game is running. 
+ * {@link #getIfPresent(String)} never loads an image and never blocks. Code which 
+ * paints frames uses {@link #getOrPreload(String)} which starts to load a missing 
+ * image in the background instead of waiting for it.</p>
+ * 
+ * <p>All methods of this class may be called from any thread.</p>
+ */
 public class ImageCache {
 	
 	public static final String IMAGE_PATH_PREFIX = "images/";
 	public static final String IMAGE_PATH_SUFFIX = ".png";
+	public static final long DEFAULT_BYTE_BUDGET = 64 * 1024 * 1024;
+	private static final int BYTES_PER_PIXEL = 4;
+	private static final int PRELOAD_THREADS = 
+			Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
 	
 	/*
-	 * This will keep a reference to any loaded image for as long as possible.
-	 * If the application is running out of memory images that are no longer used 
-	 * will be freed. Any images that are still in use will stay cached.
+	 * All loaded images which are not part of the atlas. The least recently used 
+	 * image comes first.
 	 */
-	private final Map<String, SoftReference<BufferedImage>> imgMap = new HashMap<>();
+	private final Map<String, BufferedImage> imgMap = new LinkedHashMap<>(16, 0.75f, true);
+	/*
+	 * The images which are currently being preloaded. An image is put into the 
+	 * imgMap before it is removed from this map.
+	 */
+	private final Map<String, CompletableFuture<BufferedImage>> loadingMap = new HashMap<>();
+	/*
+	 * Sub-images are shared by all sprites showing the same part of an image. They 
+	 * are dropped together with their image.
+	 */
+	private final Map<SubImageKey, BufferedImage> subImgMap = new HashMap<>();
+	/*
+	 * The errors of images which could not be preloaded. They are reported by 
+	 * getOrPreload instead of loading the image again in every frame.
+	 */
+	private final Map<String, Throwable> failedMap = new HashMap<>();
+	/*
+	 * Contains all small images once the atlas was built. Null before.
+	 */
+	private volatile ImageAtlas atlas;
+	private final RotatedImageCache rotatedImgCache = 
+			new RotatedImageCache(RotatedImageCache.DEFAULT_BYTE_BUDGET);
+	private final long byteBudget;
+	private long byteCount;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	private long decodeCount;
+	private long decodeNanos;
+	/*
+	 * Created when the first images are preloaded.
+	 */
+	private ExecutorService preloadPool;
+	
+	/**
+	 * <p>Creates an empty cache with the {@link #DEFAULT_BYTE_BUDGET default budget}.</p>
+	 */
+	public ImageCache() {
+		this(DEFAULT_BYTE_BUDGET);
+	}
+	
+	/**
+	 * <p>Creates an empty cache which holds at most the given number of bytes. 
+	 * Images in the {@link #getAtlas() atlas} do not count towards the budget.</p>
+	 * @param byteBudget					the maximum size of all cached images
+	 * @throws IllegalArgumentException		if byteBudget is negative
+	 */
+	public ImageCache(long byteBudget) {
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("byteBudget < 0");
+		}
+		this.byteBudget = byteBudget;
+	}
+	
+	/**
+	 * <p>Loads all PNG images within {@link #IMAGE_PATH_PREFIX} and its sub directories 
+	 * and packs them into an {@link ImageAtlas}. From now on {@link #fetchImage(String)} 
+	 * returns the region of the atlas for all packed images.</p>
+	 * @throws IOException		if an image could not be read
+	 * @see #getAtlas()
+	 */
+	public void buildAtlas() throws IOException {
+		Map<String, BufferedImage> images = new HashMap<>();
+		collectImages(new File(IMAGE_PATH_PREFIX), "", images);
+		ImageAtlas newAtlas = new ImageAtlas(images, ImageAtlas.DEFAULT_PAGE_SIZE);
+		synchronized (this) {
+			atlas = newAtlas;
+			subImgMap.clear();
+		}
+		rotatedImgCache.clear();
+	}
+	
+	private static void collectImages(File dir, String pathPrefix, 
+			Map<String, BufferedImage> images) throws IOException 
+	{
+		File[] files = dir.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			String name = file.getName();
+			if (file.isDirectory()) {
+				collectImages(file, pathPrefix + name + "/", images);
+			} else if (name.endsWith(IMAGE_PATH_SUFFIX)) {
+				String path = pathPrefix 
+						+ name.substring(0, name.length() - IMAGE_PATH_SUFFIX.length());
+				BufferedImage img = ImageIO.read(file);
+				if (img == null) {
+					throw new IOException("Unsupported image: "+file);
+				}
+				images.put(path, img);
+			}
+		}
+	}
+	
+	/**
+	 * <p>Returns the {@link ImageAtlas} or null if it has not been built yet.</p>
+	 * @return		the atlas or null
+	 * @see #buildAtlas()
+	 */
+	public ImageAtlas getAtlas() {
+		return atlas;
+	}
+	
+	/**
+	 * <p>Returns the cache for rotated copies of the images of this cache.</p>
+	 * @return		a non-null RotatedImageCache
+	 */
+	public RotatedImageCache getRotatedImageCache() {
+		return rotatedImgCache;
+	}
 	
+	/**
+	 * <p>Returns the image with the given path. The image is loaded if it is not 
+	 * cached yet. If the image is being preloaded this method waits for it.</p>
+	 * @param imagePath		the path of the image relative to {@link #IMAGE_PATH_PREFIX}. 
+	 * 						{@link #IMAGE_PATH_SUFFIX} is added if the path has no suffix.
+	 * @return				a non-null image which must not be changed
+	 * @throws IOException	if the image could not be read
+	 * @see #getIfPresent(String)
+	 * @see #preload(Collection)
+	 */
 	public BufferedImage fetchImage(String imagePath) throws IOException {
 		if (imagePath == null) {
 			throw new IllegalArgumentException("imagePath == null");
 		}
-		SoftReference<BufferedImage> imgRef = imgMap.get(imagePath);
-		if (imgRef == null || imgRef.get() == null) {
-			File imgFile;
-			if (imagePath.lastIndexOf('.') == -1) {
-				imgFile = new File(IMAGE_PATH_PREFIX 
-						+ imagePath + IMAGE_PATH_SUFFIX);
+		BufferedImage region = fetchAtlasRegion(imagePath);
+		if (region != null) {
+			return region;
+		}
+		CompletableFuture<BufferedImage> loading;
+		synchronized (this) {
+			BufferedImage img = imgMap.get(imagePath);
+			if (img != null) {
+				hitCount++;
+				return img;
+			}
+			missCount++;
+			loading = loadingMap.get(imagePath);
+		}
+		if (loading != null) {
+			try {
+				return loading.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				// The image is loaded again below to report the error
+			}
+		}
+		return load(imagePath);
+	}
+	
+	/**
+	 * <p>Returns the image with the given path if it is cached or null otherwise. 
+	 * This method never loads an image and never waits for an image which is 
+	 * being preloaded.</p>
+	 * @param imagePath		the path of the image as used by {@link #fetchImage(String)}
+	 * @return				the cached image or null
+	 * @see #preload(Collection)
+	 */
+	public BufferedImage getIfPresent(String imagePath) {
+		if (imagePath == null) {
+			throw new IllegalArgumentException("imagePath == null");
+		}
+		BufferedImage region = fetchAtlasRegion(imagePath);
+		if (region != null) {
+			return region;
+		}
+		synchronized (this) {
+			BufferedImage img = imgMap.get(imagePath);
+			if (img != null) {
+				hitCount++;
 			} else {
-				imgFile = new File(IMAGE_PATH_PREFIX + imagePath);
+				missCount++;
 			}
-			
+			return img;
+		}
+	}
+	
+	/**
+	 * <p>Returns the image with the given path if it is cached. Otherwise the image 
+	 * is preloaded on a background thread and null is returned, so the caller can 
+	 * skip the image for the current frame. This method never blocks.</p>
+	 * @param imagePath		the path of the image as used by {@link #fetchImage(String)}
+	 * @return				the cached image or null
+	 * @throws IOException	if an earlier attempt to preload the image failed
+	 * @see #getIfPresent(String)
+	 */
+	public BufferedImage getOrPreload(String imagePath) throws IOException {
+		BufferedImage img = getIfPresent(imagePath);
+		if (img != null) {
+			return img;
+		}
+		synchronized (this) {
+			Throwable failure = failedMap.get(imagePath);
+			if (failure != null) {
+				throw new IOException("Could not load "+imagePath, failure);
+			}
+			if (!loadingMap.containsKey(imagePath)) {
+				CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+				loadingMap.put(imagePath, future);
+				getPreloadPool().execute(newPreloadTask(imagePath, future));
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * <p>Like {@link #fetchSubImage(String, int, int, int, int)} but returns null and 
+	 * preloads the image in the background if it is not cached yet.</p>
+	 * @param imagePath		the path of the image as used by {@link #fetchImage(String)}
+	 * @param x				the X-coordinate of the upper left corner of the part
+	 * @param y				the Y-coordinate of the upper left corner of the part
+	 * @param w				the width of the part
+	 * @param h				the height of the part
+	 * @return				the sub-image or null
+	 * @throws IOException	if an earlier attempt to preload the image failed
+	 * @see #getOrPreload(String)
+	 */
+	public BufferedImage getSubImageOrPreload(String imagePath, int x, int y, int w, int h) 
+			throws IOException 
+	{
+		if (imagePath == null) {
+			throw new IllegalArgumentException("imagePath == null");
+		}
+		SubImageKey key = new SubImageKey(imagePath, x, y, w, h);
+		synchronized (this) {
+			BufferedImage subImg = subImgMap.get(key);
+			if (subImg != null) {
+				return subImg;
+			}
+		}
+		BufferedImage img = getOrPreload(imagePath);
+		if (img == null) {
+			return null;
+		}
+		BufferedImage subImg = img.getSubimage(x, y, w, h);
+		synchronized (this) {
+			BufferedImage other = subImgMap.putIfAbsent(key, subImg);
+			return other == null ? subImg : other;
+		}
+	}
+	
+	/**
+	 * <p>Loads all given images which are not cached yet on background threads. 
+	 * The returned future is completed once all images are loaded. It is completed 
+	 * exceptionally if any image could not be loaded. All other images are still 
+	 * cached in this case.</p>
+	 * <p>Preloading more images than fit into the {@link #getByteBudget() budget} 
+	 * drops the least recently used images.</p>
+	 * @param imagePaths	the paths of the images as used by {@link #fetchImage(String)}
+	 * @return				a non-null future
+	 * @throws IllegalArgumentException		if imagePaths is null or contains null
+	 * @see #getIfPresent(String)
+	 */
+	public CompletableFuture<Void> preload(Collection<String> imagePaths) {
+		if (imagePaths == null) {
+			throw new IllegalArgumentException("imagePaths == null");
+		}
+		List<CompletableFuture<BufferedImage>> futures = new ArrayList<>();
+		synchronized (this) {
+			for (String imagePath : imagePaths) {
+				if (imagePath == null) {
+					throw new IllegalArgumentException("imagePaths.contains(null)");
+				}
+				if (fetchAtlasRegion(imagePath) != null || imgMap.containsKey(imagePath)) {
+					continue;
+				}
+				CompletableFuture<BufferedImage> future = loadingMap.get(imagePath);
+				if (future == null) {
+					future = new CompletableFuture<>();
+					loadingMap.put(imagePath, future);
+					getPreloadPool().execute(newPreloadTask(imagePath, future));
+				}
+				futures.add(future);
+			}
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()]));
+	}
+	
+	private Runnable newPreloadTask(String imagePath, CompletableFuture<BufferedImage> future) {
+		return () -> {
 			try {
-				BufferedImage img = createAcceleratedImgCopy(ImageIO.read(imgFile));
-				imgRef = new SoftReference<>(img);
-				imgMap.put(imagePath, imgRef);
-			} catch (Exception e) {
-				System.err.println("File: "+imgFile);
-				throw e;
+				future.complete(load(imagePath));
+			} catch (Throwable e) {
+				synchronized (this) {
+					loadingMap.remove(imagePath);
+					failedMap.put(imagePath, e);
+				}
+				future.completeExceptionally(e);
 			}
+		};
+	}
+	
+	private ExecutorService getPreloadPool() {
+		if (preloadPool == null) {
+			preloadPool = Executors.newFixedThreadPool(PRELOAD_THREADS, (task) -> {
+				Thread thread = new Thread(task, "ImageCache-preload");
+				thread.setDaemon(true);
+				return thread;
+			});
 		}
-		return imgRef.get();
+		return preloadPool;
+	}
+	
+	private BufferedImage fetchAtlasRegion(String imagePath) {
+		ImageAtlas currentAtlas = atlas;
+		if (currentAtlas == null) {
+			return null;
+		}
+		String atlasPath = imagePath;
+		if (atlasPath.endsWith(IMAGE_PATH_SUFFIX)) {
+			atlasPath = atlasPath.substring(0, atlasPath.length() - IMAGE_PATH_SUFFIX.length());
+		}
+		return currentAtlas.getImage(atlasPath);
+	}
+	
+	/*
+	 * Reads the image from its file and puts it into the cache. The image is not 
+	 * cached if it is larger than the budget.
+	 */
+	private BufferedImage load(String imagePath) throws IOException {
+		File imgFile;
+		if (imagePath.lastIndexOf('.') == -1) {
+			imgFile = new File(IMAGE_PATH_PREFIX 
+					+ imagePath + IMAGE_PATH_SUFFIX);
+		} else {
+			imgFile = new File(IMAGE_PATH_PREFIX + imagePath);
+		}
+		
+		BufferedImage img;
+		long startNanos = System.nanoTime();
+		try {
+			BufferedImage fileImg = ImageIO.read(imgFile);
+			if (fileImg == null) {
+				throw new IOException("Unsupported image: "+imgFile);
+			}
+			img = createAcceleratedImgCopy(fileImg);
+		} catch (IOException | RuntimeException e) {
+			System.err.println("File: "+imgFile);
+			throw e;
+		}
+		long nanos = System.nanoTime() - startNanos;
+		synchronized (this) {
+			decodeCount++;
+			decodeNanos += nanos;
+			put(imagePath, img);
+			loadingMap.remove(imagePath);
+			failedMap.remove(imagePath);
+		}
+		return img;
+	}
+	
+	private void put(String imagePath, BufferedImage img) {
+		long bytes = byteSize(img);
+		if (bytes > byteBudget) {
+			return;
+		}
+		BufferedImage old = imgMap.put(imagePath, img);
+		if (old != null) {
+			byteCount -= byteSize(old);
+		}
+		byteCount += bytes;
+		evict();
+	}
+	
+	private void evict() {
+		Iterator<Map.Entry<String, BufferedImage>> iter = imgMap.entrySet().iterator();
+		while (byteCount > byteBudget && iter.hasNext()) {
+			Map.Entry<String, BufferedImage> eldest = iter.next();
+			byteCount -= byteSize(eldest.getValue());
+			iter.remove();
+			evictionCount++;
+			String path = eldest.getKey();
+			subImgMap.keySet().removeIf((key) -> key.imagePath.equals(path));
+		}
+	}
+	
+	private static long byteSize(BufferedImage img) {
+		return (long) img.getWidth() * img.getHeight() * BYTES_PER_PIXEL;
+	}
+	
+	/**
+	 * <p>Returns the given part of an image. All callers asking for the same part 
+	 * of the same image get the same instance. The returned image must not be 
+	 * changed.</p>
+	 * @param imagePath		the path of the image as used by {@link #fetchImage(String)}
+	 * @param x				the X-coordinate of the upper left corner of the part
+	 * @param y				the Y-coordinate of the upper left corner of the part
+	 * @param w				the width of the part
+	 * @param h				the height of the part
+	 * @return				a non-null sub-image
+	 * @throws IOException	if the image could not be read
+	 * @see BufferedImage#getSubimage(int, int, int, int)
+	 */
+	public BufferedImage fetchSubImage(String imagePath, int x, int y, int w, int h) 
+			throws IOException 
+	{
+		if (imagePath == null) {
+			throw new IllegalArgumentException("imagePath == null");
+		}
+		SubImageKey key = new SubImageKey(imagePath, x, y, w, h);
+		synchronized (this) {
+			BufferedImage subImg = subImgMap.get(key);
+			if (subImg != null) {
+				return subImg;
+			}
+		}
+		BufferedImage subImg = fetchImage(imagePath).getSubimage(x, y, w, h);
+		synchronized (this) {
+			BufferedImage other = subImgMap.putIfAbsent(key, subImg);
+			return other == null ? subImg : other;
+		}
+	}
+	
+	public long getByteBudget() {
+		return byteBudget;
+	}
+	
+	/**
+	 * <p>Returns the size of all cached images in bytes. Images in the atlas are 
+	 * not counted.</p>
+	 * @return		a value between 0 and {@link #getByteBudget()}
+	 */
+	public synchronized long getByteCount() {
+		return byteCount;
+	}
+	
+	/**
+	 * <p>Returns how often a requested image was found in the cache. Requests for 
+	 * images in the atlas are not counted.</p>
+	 * @return		a non-negative number
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+	
+	/**
+	 * <p>Returns how often a requested image was not cached yet.</p>
+	 * @return		a non-negative number
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+	
+	/**
+	 * <p>Returns how many images were dropped to stay within the budget.</p>
+	 * @return		a non-negative number
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+	
+	/**
+	 * <p>Returns how many images were read from their files.</p>
+	 * @return		a non-negative number
+	 */
+	public synchronized long getDecodeCount() {
+		return decodeCount;
+	}
+	
+	/**
+	 * <p>Returns the total time spent reading images from their files in nanoseconds. 
+	 * Images read in parallel are counted separately.</p>
+	 * @return		a non-negative number
+	 */
+	public synchronized long getDecodeNanos() {
+		return decodeNanos;
 	}
 	
 	/**
@@ -83,4 +550,33 @@ public class ImageCache {
 		return copyImg;
 	}
 	
+	private static final class SubImageKey {
+		private final String imagePath;
+		private final int x;
+		private final int y;
+		private final int w;
+		private final int h;
+		
+		SubImageKey(String imagePath, int x, int y, int w, int h) {
+			this.imagePath = imagePath;
+			this.x = x;
+			this.y = y;
+			this.w = w;
+			this.h = h;
+		}
+		
+		public int hashCode() {
+			return Objects.hash(imagePath, x, y, w, h);
+		}
+		
+		public boolean equals(Object obj) {
+			if (!(obj instanceof SubImageKey)) {
+				return false;
+			}
+			SubImageKey other = (SubImageKey) obj;
+			return x == other.x && y == other.y && w == other.w && h == other.h 
+					&& imagePath.equals(other.imagePath);
+		}
+	}
+	
 }
\ No newline at end of file
@@ -0,0 +1,202 @@
+package edu.udo.cs.swtsf.swing;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Caches rotated and scaled copies of images. A copy is rendered once with
+ * bilinear interpolation and can then be drawn without any transformation.</p>
+ *
+ * <p>Angles are rounded to multiples of 360 / {@link #ANGLE_STEPS} degrees and scale
+ * factors are rounded to multiples of 1 / {@link #SCALE_STEPS}. The cache holds at
+ * most {@link #getByteBudget()} bytes of pixels. When it is full the least recently
+ * used copies are dropped.</p>
+ *
+ * <p>Images are compared by identity. This works best with the shared images of
+ * {@link ImageCache#fetchSubImage(String, int, int, int, int)}.</p>
+ *
+ * @see ImageCache#getRotatedImageCache()
+ */
+public class RotatedImageCache {
+
+	public static final int ANGLE_STEPS = 64;
+	public static final int SCALE_STEPS = 32;
+	public static final long DEFAULT_BYTE_BUDGET = 16 * 1024 * 1024;
+	private static final int BYTES_PER_PIXEL = 4;
+
+	private final Map<Key, BufferedImage> map = new LinkedHashMap<>(16, 0.75f, true);
+	/*
+	 * Reused to look up copies without creating a new key. A new key is only 
+	 * created when a copy is added to the map.
+	 */
+	private final Key probe = new Key(null, 0, 0);
+	private final long byteBudget;
+	private long byteCount;
+	private long hitCount;
+	private long missCount;
+
+	/**
+	 * Creates an empty cache which holds at most the given number of bytes.
+	 * @param byteBudget					the maximum size of all cached copies
+	 * @throws IllegalArgumentException		if byteBudget is negative
+	 */
+	public RotatedImageCache(long byteBudget) {
+		if (byteBudget < 0) {
+			throw new IllegalArgumentException("byteBudget < 0");
+		}
+		this.byteBudget = byteBudget;
+	}
+
+	/**
+	 * <p>Returns a copy of the image which is rotated by angle degrees clockwise
+	 * around its center and scaled by scale. The center of the image is in the center
+	 * of the returned copy, whose width and height are always even. Returns null if
+	 * the copy would be larger than the budget of this cache.</p>
+	 * @param image							a non-null image which is never changed
+	 * @param angle							the rotation in degrees
+	 * @param scale							a positive scale factor
+	 * @return								a rotated copy or null
+	 * @throws IllegalArgumentException		if image is null
+	 */
+	public BufferedImage fetch(BufferedImage image, double angle, double scale) {
+		if (image == null) {
+			throw new IllegalArgumentException("image == null");
+		}
+		int angleStep = (int) Math.round(angle * ANGLE_STEPS / 360) % ANGLE_STEPS;
+		if (angleStep < 0) {
+			angleStep += ANGLE_STEPS;
+		}
+		int scaleStep = (int) Math.round(scale * SCALE_STEPS);
+		if (scaleStep < 1) {
+			return null;
+		}
+		probe.set(image, angleStep, scaleStep);
+		BufferedImage rotated = map.get(probe);
+		probe.set(null, 0, 0);
+		if (rotated != null) {
+			hitCount++;
+			return rotated;
+		}
+		missCount++;
+		int w = image.getWidth();
+		int h = image.getHeight();
+		double quantizedScale = scaleStep / (double) SCALE_STEPS;
+		int size = (int) Math.ceil(Math.sqrt(w * w + h * h) * quantizedScale) + 2;
+		// An even size puts the center of the image exactly between two pixels
+		size += size & 1;
+		long bytes = (long) size * size * BYTES_PER_PIXEL;
+		if (bytes > byteBudget) {
+			return null;
+		}
+		rotated = render(image, Math.toRadians(angleStep * 360.0 / ANGLE_STEPS),
+				quantizedScale, size);
+		byteCount += bytes;
+		map.put(new Key(image, angleStep, scaleStep), rotated);
+		evict();
+		return rotated;
+	}
+
+	private static BufferedImage render(BufferedImage image, double radians,
+			double scale, int size)
+	{
+		BufferedImage rotated = ImageCache.createAcceleratedImg(
+				size, size, Transparency.TRANSLUCENT);
+		Graphics2D g = rotated.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+				RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g.setRenderingHint(RenderingHints.KEY_RENDERING,
+				RenderingHints.VALUE_RENDER_QUALITY);
+		g.translate(size / 2, size / 2);
+		g.rotate(radians);
+		g.scale(scale, scale);
+		g.drawImage(image, -image.getWidth() / 2, -image.getHeight() / 2, null);
+		g.dispose();
+		return rotated;
+	}
+
+	private void evict() {
+		Iterator<BufferedImage> iter = map.values().iterator();
+		while (byteCount > byteBudget && iter.hasNext()) {
+			BufferedImage eldest = iter.next();
+			byteCount -= (long) eldest.getWidth() * eldest.getHeight() * BYTES_PER_PIXEL;
+			iter.remove();
+		}
+	}
+
+	/**
+	 * Removes all cached copies. The hit and miss counts are kept.
+	 */
+	public void clear() {
+		map.clear();
+		byteCount = 0;
+	}
+
+	public long getByteBudget() {
+		return byteBudget;
+	}
+
+	/**
+	 * Returns the size of all cached copies in bytes.
+	 * @return		a value between 0 and {@link #getByteBudget()}
+	 */
+	public long getByteCount() {
+		return byteCount;
+	}
+
+	public int getEntryCount() {
+		return map.size();
+	}
+
+	public long getHitCount() {
+		return hitCount;
+	}
+
+	public long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Returns the fraction of calls to {@link #fetch(BufferedImage, double, double)}
+	 * which found a cached copy.
+	 * @return		a value from 0 to 1
+	 */
+	public double getHitRate() {
+		long total = hitCount + missCount;
+		return total == 0 ? 0 : hitCount / (double) total;
+	}
+
+	private static final class Key {
+		private BufferedImage image;
+		private int angleStep;
+		private int scaleStep;
+
+		Key(BufferedImage image, int angleStep, int scaleStep) {
+			set(image, angleStep, scaleStep);
+		}
+
+		void set(BufferedImage image, int angleStep, int scaleStep) {
+			this.image = image;
+			this.angleStep = angleStep;
+			this.scaleStep = scaleStep;
+		}
+
+		public int hashCode() {
+			return (System.identityHashCode(image) * 31 + angleStep) * 31 + scaleStep;
+		}
+
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return image == other.image && angleStep == other.angleStep
+					&& scaleStep == other.scaleStep;
+		}
+	}
+
+}
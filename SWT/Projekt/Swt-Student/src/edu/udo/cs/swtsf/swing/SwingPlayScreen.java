@@ -1,5 +1,6 @@
 package edu.udo.cs.swtsf.swing;
 
+import java.awt.Component;
 import java.awt.EventQueue;
 import java.awt.MouseInfo;
 import java.awt.Point;
@@ -7,8 +8,13 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.EnumSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
@@ -17,53 +23,112 @@ import javax.swing.Timer;
 import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.Game;
 import edu.udo.cs.swtsf.core.GameKey;
+import edu.udo.cs.swtsf.core.GameLoop;
+import edu.udo.cs.swtsf.core.GameLoopListener;
 import edu.udo.cs.swtsf.core.GameObserver;
+import edu.udo.cs.swtsf.core.InputRecorder;
 import edu.udo.cs.swtsf.swing.SwingHighScoreScreen.HighScore;
+import edu.udo.cs.swtsf.swing.game.FrameStats;
 import edu.udo.cs.swtsf.swing.game.SwingPainter;
+import edu.udo.cs.swtsf.swing.game.SwingRenderLoop;
 import edu.udo.cs.swtsf.view.GameInitializer;
+import edu.udo.cs.swtsf.view.RgbColor;
 import exercise.starfighter.SwtStarFighter;
 
 public class SwingPlayScreen extends SwingGameScreen {
 	
-	private static final int TIMER_UPDATE_DELAY_MS = 25;
+	/**
+	 * How often the {@link GameLoop} is advanced. The game itself is updated at the 
+	 * fixed rate of the GameLoop, independent of this delay.
+	 */
+	private static final int TIMER_FRAME_DELAY_MS = 15;
+	/**
+	 * If true, frames are rendered by a {@link SwingRenderLoop} on its own thread. 
+	 * Otherwise, or if active rendering fails, the {@link #updateTimer} advances the 
+	 * {@link GameLoop} and Swing paints the frames.
+	 */
+	private static final boolean ACTIVE_RENDERING = true;
 	
 	private final Set<GameKey> keysPressed = EnumSet.noneOf(GameKey.class);
 	private final Set<GameKey> keysReleased = EnumSet.noneOf(GameKey.class);
+	private final KeyAdapter keyListener = new KeyAdapter() {
+		public void keyPressed(KeyEvent e) {
+			SwingPlayScreen.this.onKeyPressed(e);
+		}
+		public void keyReleased(KeyEvent e) {
+			SwingPlayScreen.this.onKeyReleased(e);
+		}
+	};
+	private final MouseAdapter mouseListener = new MouseAdapter() {
+		public void mousePressed(MouseEvent e) {
+			onMousePressed(e);
+		}
+		public void mouseReleased(MouseEvent e) {
+			onMouseReleased(e);
+		}
+	};
 	private final SwingPainter painter;
 	private final Timer updateTimer;
+	private SwingRenderLoop renderLoop;
+	
+	/**
+	 * The frame statistics are written to this file when F4 is pressed.
+	 */
+	private static final String FRAME_STATS_FILE = "frame-stats.csv";
+	/**
+	 * If this system property is set, the inputs of each game are recorded so the 
+	 * game can be replayed with {@link SwtReplayMain}. The value is the path of the 
+	 * log or empty to use the {@link #INPUT_LOG_FILE}. Recording is off by default.
+	 * @see SwtGameMain#main(String[])
+	 */
+	static final String RECORD_INPUT_PROPERTY = "swtsf.recordInput";
+	/**
+	 * The inputs of the last game are written to this file unless another path is 
+	 * given by the {@link #RECORD_INPUT_PROPERTY}.
+	 */
+	static final String INPUT_LOG_FILE = "input.swtlog";
 	
 	private final Game game;
+	private final GameLoop gameLoop;
+	private InputRecorder inputRecorder;
 	private Timer gameEndTimer;
-	private long lastFrameTimeStamp;
+	private long updateStartNanos;
+	/*
+	 * The F3 and F4 keys are handled by the frame step, which is the only code 
+	 * allowed to change the painter. These flags are only used on the EDT.
+	 */
+	private boolean statsOverlayToggleRequested;
+	private boolean frameStatsSaveRequested;
+	/**
+	 * True while the frame statistics are written on a background thread.
+	 */
+	private volatile boolean savingFrameStats;
+	/**
+	 * A text set by the background thread which is shown by the next frame step.
+	 */
+	private volatile String pendingShowText;
 	
 	public SwingPlayScreen() {
 		painter = new SwingPainter(this);
-		painter.getAsJComponent().setFocusable(true);
-		painter.getAsJComponent().addKeyListener(new KeyAdapter() {
-			public void keyPressed(KeyEvent e) {
-				SwingPlayScreen.this.onKeyPressed(e);
-			}
-			public void keyReleased(KeyEvent e) {
-				SwingPlayScreen.this.onKeyReleased(e);
-			}
-		});
-		painter.getAsJComponent().addMouseListener(new MouseAdapter() {
-			public void mousePressed(MouseEvent e) {
-				onMousePressed(e);
-			}
-			public void mouseReleased(MouseEvent e) {
-				onMouseReleased(e);
-			}
-		});
+		painter.setActiveRendering(ACTIVE_RENDERING);
+		addInputListeners();
 		
-		updateTimer = new Timer(TIMER_UPDATE_DELAY_MS, 
+		updateTimer = new Timer(TIMER_FRAME_DELAY_MS, 
 				(e) -> onTimerTick());
 		updateTimer.setRepeats(true);
-		updateTimer.start();
+		if (ACTIVE_RENDERING) {
+			renderLoop = new SwingRenderLoop(painter, 
+					this::onTimerTick, this::fallBackToPassiveRendering);
+			renderLoop.start();
+		} else {
+			updateTimer.start();
+		}
 		
 		GameInitializer initializer = new SwtStarFighter();
 		initializer.beforeGameStart(painter);
 		game = new Game(painter.getPlayerFactory());
+		// Sprites only need the final state of their entity after each update cycle
+		game.setEntityEventsBatched(true);
 		game.addObserver(new GameObserver() {
 			public void onEntityAdded(Game game, Entity entity) {
 				painter.addSpriteFor(entity);
@@ -75,6 +140,10 @@ public class SwingPlayScreen extends SwingGameScreen {
 		game.getAllEntities().forEach(e -> painter.addSpriteFor(e));
 //		game.forEachEntity((entity) -> painter.addSpriteFor(entity));
 		initializer.atGameStart(painter, game);
+		String inputLogFile = System.getProperty(RECORD_INPUT_PROPERTY);
+		if (inputLogFile != null) {
+			startRecording(Paths.get(inputLogFile.isEmpty() ? INPUT_LOG_FILE : inputLogFile));
+		}
 		
 		painter.setPlayer(game.getPlayer());
 		game.addObserver(new GameObserver() {
@@ -85,11 +154,48 @@ public class SwingPlayScreen extends SwingGameScreen {
 			}
 		});
 		
-		EventQueue.invokeLater(() -> painter.getAsJComponent().requestFocusInWindow());
+		gameLoop = new GameLoop(game);
+		gameLoop.addListener(new GameLoopListener() {
+			public void beforeUpdate(Game game) {
+				onBeforeUpdate();
+				updateStartNanos = System.nanoTime();
+			}
+			public void afterUpdate(Game game) {
+				recordUpdateStats();
+				painter.panCameraToEntity(painter.getPlayer());
+			}
+			public void onFrame(GameLoop loop, double interpolationAlpha, long elapsedNanos) {
+				painter.getFrameStats().getTickIntervals().record(elapsedNanos);
+				painter.setInterpolationAlpha(interpolationAlpha);
+				painter.updateAnimations(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+			}
+		});
+		
+		EventQueue.invokeLater(() -> painter.getInputComponent().requestFocusInWindow());
 		
 		setJComponent(painter.getAsJComponent());
-		
-		lastFrameTimeStamp = System.currentTimeMillis();
+	}
+	
+	private void addInputListeners() {
+		Component input = painter.getInputComponent();
+		input.setFocusable(true);
+		input.addKeyListener(keyListener);
+		input.addMouseListener(mouseListener);
+	}
+	
+	private void removeInputListeners() {
+		Component input = painter.getInputComponent();
+		input.removeKeyListener(keyListener);
+		input.removeMouseListener(mouseListener);
+	}
+	
+	private void fallBackToPassiveRendering() {
+		renderLoop = null;
+		removeInputListeners();
+		painter.setActiveRendering(false);
+		addInputListeners();
+		painter.getInputComponent().requestFocusInWindow();
+		updateTimer.start();
 	}
 	
 	private void onPlayerDeath() {
@@ -111,25 +217,65 @@ public class SwingPlayScreen extends SwingGameScreen {
 	}
 	
 	public void initialize() {
-		updateTimer.start();
+		painter.startPreloading();
+		startFrames();
 	}
 	
 	public void terminate() {
-		updateTimer.stop();
+		stopFrames();
+		stopRecording();
 		if (gameEndTimer != null) {
 			gameEndTimer.stop();
 		}
 	}
 	
 	public void pause() {
-		updateTimer.stop();
+		stopFrames();
 	}
 	
 	public void unpause() {
-		updateTimer.start();
+		// Do not catch up with the time the game was paused for
+		gameLoop.reset();
+		startFrames();
+	}
+	
+	private void startFrames() {
+		if (renderLoop != null) {
+			renderLoop.start();
+		} else {
+			updateTimer.start();
+		}
+	}
+	
+	private void stopFrames() {
+		if (renderLoop != null) {
+			renderLoop.stop();
+		}
+		updateTimer.stop();
 	}
 	
 	private void onTimerTick() {
+		applyRequestedActions();
+		gameLoop.advance();
+	}
+	
+	private void applyRequestedActions() {
+		if (statsOverlayToggleRequested) {
+			statsOverlayToggleRequested = false;
+			painter.setStatsOverlayVisible(!painter.isStatsOverlayVisible());
+		}
+		if (frameStatsSaveRequested) {
+			frameStatsSaveRequested = false;
+			saveFrameStats();
+		}
+		String text = pendingShowText;
+		if (text != null) {
+			pendingShowText = null;
+			painter.showText(text, 2, RgbColor.WHITE);
+		}
+	}
+	
+	private void onBeforeUpdate() {
 		for (GameKey key : keysPressed) {
 			game.bufferKey(key);
 		}
@@ -137,15 +283,59 @@ public class SwingPlayScreen extends SwingGameScreen {
 		
 		keysPressed.removeAll(keysReleased);
 		keysReleased.clear();
-		
-		game.update();
-		painter.panCameraToEntity(painter.getPlayer());
-		
-		long previousTimeStamp = lastFrameTimeStamp;
-		lastFrameTimeStamp = System.currentTimeMillis();
-		long timeSince = lastFrameTimeStamp - previousTimeStamp;
-		
-		painter.updateAnimations(timeSince);
+	}
+	
+	private void recordUpdateStats() {
+		FrameStats stats = painter.getFrameStats();
+		stats.getUpdateTimes().record(System.nanoTime() - updateStartNanos);
+		stats.getEntityCounts().record(game.getEntityCount());
+		stats.getCollisionPairCounts().record(game.getCollisionPairCount());
+	}
+	
+	private void startRecording(Path file) {
+		try {
+			inputRecorder = new InputRecorder(Files.newOutputStream(file), game);
+			game.setInputRecorder(inputRecorder);
+			System.out.println("Recording input to "+file.toAbsolutePath());
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
+	private void stopRecording() {
+		if (inputRecorder == null) {
+			return;
+		}
+		game.setInputRecorder(null);
+		try {
+			inputRecorder.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		inputRecorder = null;
+	}
+	
+	/*
+	 * The sample windows are synchronized, so the file can be written on another 
+	 * thread while new samples are being recorded.
+	 */
+	private void saveFrameStats() {
+		if (savingFrameStats) {
+			return;
+		}
+		savingFrameStats = true;
+		FrameStats stats = painter.getFrameStats();
+		Thread writer = new Thread(() -> {
+			try {
+				stats.writeCsv(Paths.get(FRAME_STATS_FILE));
+				pendingShowText = "Saved "+FRAME_STATS_FILE;
+			} catch (IOException e) {
+				e.printStackTrace();
+			} finally {
+				savingFrameStats = false;
+			}
+		}, "Frame Stats Writer");
+		writer.start();
 	}
 	
 	private void calculateMousePosition() {
@@ -153,7 +343,7 @@ public class SwingPlayScreen extends SwingGameScreen {
 		double cameraY = painter.getCameraCenterY();
 		
 		Point mousePos = MouseInfo.getPointerInfo().getLocation();
-		SwingUtilities.convertPointFromScreen(mousePos, painter.getAsJComponent());
+		SwingUtilities.convertPointFromScreen(mousePos, painter.getInputComponent());
 		game.setMousePosition(mousePos.x - cameraX, mousePos.y - cameraY);
 	}
 	
@@ -189,6 +379,14 @@ public class SwingPlayScreen extends SwingGameScreen {
 			onClickRestart();
 			return;
 		}
+		if (e.getKeyCode() == KeyEvent.VK_F3) {
+			statsOverlayToggleRequested = !statsOverlayToggleRequested;
+			return;
+		}
+		if (e.getKeyCode() == KeyEvent.VK_F4) {
+			frameStatsSaveRequested = true;
+			return;
+		}
 		GameKey gameInput = forAwtKey(e.getKeyCode());
 		if (gameInput != null) {
 			keysPressed.add(gameInput);
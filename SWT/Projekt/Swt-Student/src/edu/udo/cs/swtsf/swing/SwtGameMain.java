@@ -3,6 +3,7 @@ package edu.udo.cs.swtsf.swing;
 import java.awt.EventQueue;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
 
 import javax.swing.JFrame;
 
@@ -12,7 +13,21 @@ public class SwtGameMain {
 	public static final int DEFAULT_WIDTH = 640;
 	public static final int DEFAULT_HEIGHT = (int) (DEFAULT_WIDTH * 0.75);
 	
+	/**
+	 * Starts the game. The argument {@code --record-input} records the inputs of each 
+	 * game to the default log, {@code --record-input=<path>} records them to the given 
+	 * file. The logs can be replayed with {@link SwtReplayMain}.
+	 * @param args		the command line arguments
+	 */
 	public static void main(String[] args) {
+		for (String arg : args) {
+			if (arg.equals("--record-input")) {
+				System.setProperty(SwingPlayScreen.RECORD_INPUT_PROPERTY, "");
+			} else if (arg.startsWith("--record-input=")) {
+				System.setProperty(SwingPlayScreen.RECORD_INPUT_PROPERTY, 
+						arg.substring("--record-input=".length()));
+			}
+		}
 		/*
 		 * Swing Applications must be started this way.
 		 * This makes sure that all Swing actions are run on the 
@@ -27,6 +42,12 @@ public class SwtGameMain {
 	private SwingGameScreen currentScreen;
 	
 	public SwtGameMain() {
+		try {
+			imgCache.buildAtlas();
+		} catch (IOException e) {
+			// Images will be loaded one by one when needed
+			e.printStackTrace();
+		}
 		frame = new JFrame();
 		
 		frame.setTitle(TITLE_TEXT);
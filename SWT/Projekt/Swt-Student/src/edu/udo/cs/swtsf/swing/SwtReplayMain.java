@@ -0,0 +1,43 @@
+package edu.udo.cs.swtsf.swing;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import edu.udo.cs.swtsf.core.Game;
+import edu.udo.cs.swtsf.core.InputReplay;
+import edu.udo.cs.swtsf.view.HeadlessViewManager;
+import exercise.starfighter.SwtStarFighter;
+
+/**
+ * <p>Replays a game which was recorded by the {@link SwingPlayScreen} without a user
+ * interface and as fast as possible. The game does exactly the same as the recorded
+ * game did, so a slow session can be profiled afterwards.</p>
+ *
+ * <p>The path of the log is given as the first argument. By default the log of the
+ * last game is used. Games are only recorded if the recording was enabled with the
+ * {@code --record-input} argument of {@link SwtGameMain} or the system property
+ * {@code swtsf.recordInput}.</p>
+ */
+public class SwtReplayMain {
+
+	public static void main(String[] args) throws IOException {
+		String path = args.length > 0 ? args[0] : SwingPlayScreen.INPUT_LOG_FILE;
+		try (InputReplay replay = new InputReplay(Files.newInputStream(Paths.get(path)))) {
+			replay.restoreKeyBindings();
+			HeadlessViewManager view = new HeadlessViewManager(
+					SwtGameMain.DEFAULT_WIDTH, SwtGameMain.DEFAULT_HEIGHT);
+			Game game = view.startGame(new SwtStarFighter(), replay.getSeed());
+
+			long startNanos = System.nanoTime();
+			long updates = replay.replayAll(game);
+			long elapsedNanos = System.nanoTime() - startNanos;
+
+			System.out.println("Replayed "+updates+" update cycles in "
+					+(elapsedNanos / 1000000)+" ms");
+			System.out.println("Score: "+game.getPlayer().getScore()
+					+", entities: "+game.getEntityCount());
+		}
+	}
+
+}
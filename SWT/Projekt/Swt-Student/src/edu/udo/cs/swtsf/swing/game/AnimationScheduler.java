@@ -0,0 +1,270 @@
+package edu.udo.cs.swtsf.swing.game;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.udo.cs.swtsf.view.Animator;
+import edu.udo.cs.swtsf.view.GraphicalElement;
+
+/**
+ * <p>Decides which {@link Animator Animators} of a {@link SwingPainter} are updated
+ * in each frame. An Animator which reports a positive delay with
+ * {@link Animator#getMillisUntilNextUpdate(GraphicalElement)} is put into a
+ * hierarchical timer wheel and is not updated again until the delay has passed. All
+ * other Animators are updated in every frame.</p>
+ *
+ * <p>The timer wheel has {@link #LEVELS} levels of {@link #SLOTS} slots each. A slot
+ * of the first level covers one millisecond, a slot of each further level covers
+ * as much time as the whole level below. When the time reaches a slot of a higher
+ * level, its elements are spread out over the lower levels. Each element is moved
+ * at most once per level, so the cost of a frame depends on the number of due
+ * Animators and not on the number of animated elements.</p>
+ *
+ * <p>When an Animator is updated it is given the time since its last update. An
+ * Animator which is woken up after a delay therefore sees the same total time as if
+ * it had been updated in every frame.</p>
+ *
+ * @see SwingPainter#updateAnimations(long)
+ */
+public class AnimationScheduler {
+
+	public static final int SLOT_BITS = 6;
+	public static final int SLOTS = 1 << SLOT_BITS;
+	public static final int LEVELS = 4;
+	/**
+	 * Longer delays are cut down to this many milliseconds. The Animator is then
+	 * updated early and asked for its delay again.
+	 */
+	public static final long MAX_DELAY = (1L << (SLOT_BITS * LEVELS)) - 1;
+	private static final int SLOT_MASK = SLOTS - 1;
+
+	private final Map<GraphicalElement, Entry> entries = new IdentityHashMap<>();
+	/**
+	 * The entries of all elements which are updated in every frame.
+	 */
+	private final List<Entry> everyFrame = new ArrayList<>();
+	/**
+	 * The first entry of each slot of each level. The entries of a slot form a
+	 * doubly linked list.
+	 */
+	private final Entry[][] wheel = new Entry[LEVELS][SLOTS];
+	/*
+	 * Reused in each frame to hold the entries which are updated.
+	 */
+	private Entry[] dueEntries = new Entry[16];
+	private long now;
+	private int lastUpdateCount;
+
+	/**
+	 * <p>Adds an element whose {@link Animator} will be updated from now on. The
+	 * Animator is asked for its delay right away.</p>
+	 * @param element						a non-null element with an Animator
+	 * @throws IllegalArgumentException		if element is null
+	 * @throws IllegalStateException		if element was added already
+	 */
+	public void add(GraphicalElement element) {
+		if (element == null) {
+			throw new IllegalArgumentException("element == null");
+		}
+		if (entries.containsKey(element)) {
+			throw new IllegalStateException("contains("+element+") == true");
+		}
+		Entry entry = new Entry(element);
+		entry.lastUpdate = now;
+		entries.put(element, entry);
+		schedule(entry);
+	}
+
+	/**
+	 * <p>Removes an element. Its Animator will not be updated anymore, even if the
+	 * element is removed during {@link #advance(long)}. Does nothing if the element
+	 * was not added.</p>
+	 * @param element		the element to remove
+	 */
+	public void remove(GraphicalElement element) {
+		Entry entry = entries.remove(element);
+		if (entry != null) {
+			unschedule(entry);
+			entry.removed = true;
+		}
+	}
+
+	public boolean contains(GraphicalElement element) {
+		return entries.containsKey(element);
+	}
+
+	/**
+	 * Returns the number of added elements.
+	 * @return		a non-negative number
+	 */
+	public int getSize() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of Animators updated by the last call to {@link #advance(long)}.
+	 * @return		a non-negative number
+	 */
+	public int getLastUpdateCount() {
+		return lastUpdateCount;
+	}
+
+	/**
+	 * <p>Moves the time forward and updates all Animators which want to be updated
+	 * in every frame and all Animators whose delay has passed. Elements added while
+	 * the Animators are updated are not updated before the next call.</p>
+	 * @param millis		the time since the last call in milliseconds
+	 */
+	public void advance(long millis) {
+		int dueCount = 0;
+		for (Entry entry : everyFrame) {
+			dueCount = addDue(entry, dueCount);
+		}
+		long target = now + Math.max(millis, 0);
+		while (now < target) {
+			now++;
+			cascade();
+			int slot = (int) now & SLOT_MASK;
+			Entry entry = wheel[0][slot];
+			wheel[0][slot] = null;
+			while (entry != null) {
+				Entry next = entry.next;
+				entry.prev = null;
+				entry.next = null;
+				entry.level = -1;
+				dueCount = addDue(entry, dueCount);
+				entry = next;
+			}
+		}
+		lastUpdateCount = dueCount;
+		for (int i = 0; i < dueCount; i++) {
+			Entry entry = dueEntries[i];
+			dueEntries[i] = null;
+			if (entry.removed) {
+				continue;
+			}
+			long elapsed = now - entry.lastUpdate;
+			entry.lastUpdate = now;
+			Animator animator = entry.element.getAnimator();
+			if (animator == null) {
+				continue;
+			}
+			animator.updateAnimation(entry.element, elapsed);
+			if (!entry.removed) {
+				unschedule(entry);
+				schedule(entry);
+			}
+		}
+	}
+
+	private int addDue(Entry entry, int dueCount) {
+		if (dueCount == dueEntries.length) {
+			Entry[] bigger = new Entry[dueEntries.length * 2];
+			System.arraycopy(dueEntries, 0, bigger, 0, dueCount);
+			dueEntries = bigger;
+		}
+		dueEntries[dueCount] = entry;
+		return dueCount + 1;
+	}
+
+	/*
+	 * Spreads out the entries of the higher level slots which start at the current
+	 * time over the lower levels.
+	 */
+	private void cascade() {
+		for (int level = 1; level < LEVELS; level++) {
+			if ((now & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+				return;
+			}
+			int slot = (int) (now >>> (SLOT_BITS * level)) & SLOT_MASK;
+			Entry entry = wheel[level][slot];
+			wheel[level][slot] = null;
+			while (entry != null) {
+				Entry next = entry.next;
+				entry.prev = null;
+				entry.next = null;
+				entry.level = -1;
+				insert(entry);
+				entry = next;
+			}
+		}
+	}
+
+	private void schedule(Entry entry) {
+		Animator animator = entry.element.getAnimator();
+		long delay = animator == null ? 0 : animator.getMillisUntilNextUpdate(entry.element);
+		if (delay <= 0) {
+			entry.everyFrameIndex = everyFrame.size();
+			everyFrame.add(entry);
+			return;
+		}
+		entry.due = now + Math.min(delay, MAX_DELAY);
+		insert(entry);
+	}
+
+	private void insert(Entry entry) {
+		long delta = entry.due - now;
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+			level++;
+		}
+		int slot = (int) (entry.due >>> (SLOT_BITS * level)) & SLOT_MASK;
+		Entry head = wheel[level][slot];
+		entry.next = head;
+		if (head != null) {
+			head.prev = entry;
+		}
+		wheel[level][slot] = entry;
+		entry.level = level;
+		entry.slot = slot;
+	}
+
+	private void unschedule(Entry entry) {
+		if (entry.everyFrameIndex >= 0) {
+			// The last entry takes the place of the removed one
+			Entry last = everyFrame.remove(everyFrame.size() - 1);
+			if (last != entry) {
+				everyFrame.set(entry.everyFrameIndex, last);
+				last.everyFrameIndex = entry.everyFrameIndex;
+			}
+			entry.everyFrameIndex = -1;
+		} else if (entry.level >= 0) {
+			if (entry.prev != null) {
+				entry.prev.next = entry.next;
+			} else {
+				wheel[entry.level][entry.slot] = entry.next;
+			}
+			if (entry.next != null) {
+				entry.next.prev = entry.prev;
+			}
+			entry.prev = null;
+			entry.next = null;
+			entry.level = -1;
+		}
+	}
+
+	private static final class Entry {
+		final GraphicalElement element;
+		long lastUpdate;
+		long due;
+		/**
+		 * The position within everyFrame or -1.
+		 */
+		int everyFrameIndex = -1;
+		/**
+		 * The level of the wheel this entry is in or -1.
+		 */
+		int level = -1;
+		int slot;
+		Entry prev;
+		Entry next;
+		boolean removed;
+
+		Entry(GraphicalElement element) {
+			this.element = element;
+		}
+	}
+
+}
@@ -0,0 +1,296 @@
+package edu.udo.cs.swtsf.swing.game;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import edu.udo.cs.swtsf.core.Game;
+import edu.udo.cs.swtsf.swing.ImageCache;
+import edu.udo.cs.swtsf.util.SampleWindow;
+import edu.udo.cs.swtsf.view.Animator;
+
+/**
+ * <p>Collects the timing and load of the most recent frames and update cycles in
+ * {@link SampleWindow SampleWindows}. The {@link SwingPainter} records the paint time
+ * and the number of animated sprites itself. All other values are recorded by the
+ * screen driving the {@link Game}.</p>
+ *
+ * <p>The 50th, 95th and 99th percentile of each value can be shown in an overlay
+ * and all samples can be written to a CSV file. Painting the overlay does not
+ * allocate any memory so showing it does not change the measured values.</p>
+ *
+ * @see SwingPainter#getFrameStats()
+ * @see SwingPainter#setStatsOverlayVisible(boolean)
+ */
+public class FrameStats {
+
+	public static final Font OVERLAY_FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+	private static final Color OVERLAY_BACKGROUND = new Color(0, 0, 0, 160);
+	private static final AffineTransform IDENTITY = new AffineTransform();
+	private static final int OVERLAY_PADDING = 4;
+	private static final double[] PERCENTILES = {50, 95, 99};
+	private static final int LABEL_WIDTH = 10;
+	private static final int VALUE_WIDTH = 9;
+	private static final int LINE_WIDTH = LABEL_WIDTH + PERCENTILES.length * VALUE_WIDTH;
+	private static final char[] HEADER =
+			String.format("%-"+LABEL_WIDTH+"s%"+VALUE_WIDTH+"s%"+VALUE_WIDTH+"s%"+VALUE_WIDTH+"s",
+					"", "p50", "p95", "p99").toCharArray();
+
+	private final SampleWindow updateTimes = new SampleWindow("update_nanos");
+	private final SampleWindow paintTimes = new SampleWindow("paint_nanos");
+	private final SampleWindow tickIntervals = new SampleWindow("tick_interval_nanos");
+	private final SampleWindow entityCounts = new SampleWindow("entities");
+	private final SampleWindow animatedSpriteCounts = new SampleWindow("animated_sprites");
+	private final SampleWindow animatorUpdateCounts = new SampleWindow("animator_updates");
+	private final SampleWindow collisionPairCounts = new SampleWindow("collision_pairs");
+	private final SampleWindow particleCounts = new SampleWindow("particles");
+	private final SampleWindow[] allSeries = {
+			updateTimes, paintTimes, tickIntervals,
+			entityCounts, animatedSpriteCounts, animatorUpdateCounts, collisionPairCounts,
+			particleCounts,
+	};
+	/**
+	 * The label shown in the overlay for each of {@link #allSeries}.
+	 */
+	private final char[][] labels = {
+			label("update ms"), label("paint ms"), label("tick ms"),
+			label("entities"), label("animated"), label("anim upd"), label("pairs"),
+			label("particles"),
+	};
+	/**
+	 * True for each of {@link #allSeries} which holds nanoseconds. These are shown
+	 * as milliseconds in the overlay.
+	 */
+	private final boolean[] isTime = {true, true, true, false, false, false, false, false};
+	/*
+	 * Reused for each line of the overlay.
+	 */
+	private final char[] lineBuffer = new char[LINE_WIDTH];
+	private int lineHeight = -1;
+	private int lineAscent;
+	private int overlayWidth;
+	/*
+	 * The translucent background of the overlay. Filling a rectangle with a 
+	 * translucent color allocates memory whenever the color was changed before, 
+	 * drawing an image does not.
+	 */
+	private BufferedImage overlayBackground;
+
+	private static char[] label(String text) {
+		return String.format("%-"+LABEL_WIDTH+"s", text).toCharArray();
+	}
+
+	/**
+	 * Holds the duration of each {@link Game#update() update cycle} in nanoseconds.
+	 * @return		a non-null SampleWindow
+	 */
+	public SampleWindow getUpdateTimes() {
+		return updateTimes;
+	}
+
+	/**
+	 * Holds the time needed to paint each frame in nanoseconds. The overlay itself
+	 * is not included.
+	 * @return		a non-null SampleWindow
+	 */
+	public SampleWindow getPaintTimes() {
+		return paintTimes;
+	}
+
+	/**
+	 * Holds the time in between two ticks of the screen in nanoseconds.
+	 * @return		a non-null SampleWindow
+	 */
+	public SampleWindow getTickIntervals() {
+		return tickIntervals;
+	}
+
+	/**
+	 * Holds the {@link Game#getEntityCount() number of entities} after each update cycle.
+	 * @return		a non-null SampleWindow
+	 */
+	public SampleWindow getEntityCounts() {
+		return entityCounts;
+	}
+
+	/**
+	 * Holds the number of animated sprites in each frame.
+	 * @return		a non-null SampleWindow
+	 */
+	public SampleWindow getAnimatedSpriteCounts() {
+		return animatedSpriteCounts;
+	}
+
+	/**
+	 * Holds the number of {@link Animator Animators} which were updated in each frame.
+	 * @return		a non-null SampleWindow
+	 * @see AnimationScheduler
+	 */
+	public SampleWindow getAnimatorUpdateCounts() {
+		return animatorUpdateCounts;
+	}
+
+	/**
+	 * Holds the {@link Game#getCollisionPairCount() number of collision pairs}
+	 * tested in each update cycle.
+	 * @return		a non-null SampleWindow
+	 */
+	public SampleWindow getCollisionPairCounts() {
+		return collisionPairCounts;
+	}
+
+	/**
+	 * Holds the number of particles shown in each frame.
+	 * @return		a non-null SampleWindow
+	 * @see ParticleSystem
+	 */
+	public SampleWindow getParticleCounts() {
+		return particleCounts;
+	}
+
+	/**
+	 * Removes all samples.
+	 */
+	public void clear() {
+		for (SampleWindow series : allSeries) {
+			series.clear();
+		}
+	}
+
+	/**
+	 * <p>Writes all samples to the given file in CSV format. Each line holds the
+	 * name of a value, the index of the sample, starting with the oldest sample,
+	 * and the sample itself. Times are written in nanoseconds.</p>
+	 * @param file							a non-null path which is overwritten
+	 * @throws IOException					if the file could not be written
+	 * @throws IllegalArgumentException		if file is null
+	 * @see #writeCsv(Writer)
+	 */
+	public void writeCsv(Path file) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("file == null");
+		}
+		try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writeCsv(out);
+		}
+	}
+
+	/**
+	 * <p>Writes all samples to out in CSV format.</p>
+	 * @param out							a non-null Writer which is not closed
+	 * @throws IOException					if writing fails
+	 * @throws IllegalArgumentException		if out is null
+	 * @see #writeCsv(Path)
+	 */
+	public void writeCsv(Writer out) throws IOException {
+		if (out == null) {
+			throw new IllegalArgumentException("out == null");
+		}
+		out.write("series,sample,value\n");
+		for (SampleWindow series : allSeries) {
+			int count = series.getSampleCount();
+			for (int i = 0; i < count; i++) {
+				out.write(series.getName());
+				out.write(',');
+				out.write(Integer.toString(i));
+				out.write(',');
+				out.write(Long.toString(series.getSample(i)));
+				out.write('\n');
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * Paints the percentiles of all values into a box whose top left corner is at x, y
+	 * in screen coordinates.
+	 */
+	void paintOverlay(Graphics2D g, int x, int y) {
+		g.setTransform(IDENTITY);
+		g.setFont(OVERLAY_FONT);
+		if (lineHeight < 0) {
+			FontMetrics fm = g.getFontMetrics();
+			lineHeight = fm.getHeight();
+			lineAscent = fm.getAscent();
+			overlayWidth = fm.charWidth('0') * LINE_WIDTH;
+			overlayBackground = createBackground(
+					overlayWidth + 2 * OVERLAY_PADDING, 
+					(allSeries.length + 1) * lineHeight + 2 * OVERLAY_PADDING);
+		}
+		g.drawImage(overlayBackground, x, y, null);
+
+		g.setColor(Color.WHITE);
+		int textX = x + OVERLAY_PADDING;
+		int textY = y + OVERLAY_PADDING + lineAscent;
+		g.drawChars(HEADER, 0, HEADER.length, textX, textY);
+		for (int i = 0; i < allSeries.length; i++) {
+			textY += lineHeight;
+			char[] label = labels[i];
+			System.arraycopy(label, 0, lineBuffer, 0, LABEL_WIDTH);
+			for (int p = 0; p < PERCENTILES.length; p++) {
+				long value = allSeries[i].getPercentile(PERCENTILES[p]);
+				int end = LABEL_WIDTH + (p + 1) * VALUE_WIDTH;
+				if (isTime[i]) {
+					// Hundredths of milliseconds
+					formatFixedPoint(value / 10_000, 2, end);
+				} else {
+					formatFixedPoint(value, 0, end);
+				}
+			}
+			g.drawChars(lineBuffer, 0, LINE_WIDTH, textX, textY);
+		}
+	}
+
+	private static BufferedImage createBackground(int width, int height) {
+		BufferedImage img = ImageCache.createAcceleratedImg(width, height, Transparency.TRANSLUCENT);
+		Graphics2D g = img.createGraphics();
+		g.setColor(OVERLAY_BACKGROUND);
+		g.fillRect(0, 0, width, height);
+		g.dispose();
+		return img;
+	}
+
+	/*
+	 * Writes value into the lineBuffer right aligned to end. The last fractionDigits
+	 * digits of value are written after a decimal point. The field is filled with
+	 * spaces from the left. A value which does not fit is shown as a row of '#'.
+	 */
+	private void formatFixedPoint(long value, int fractionDigits, int end) {
+		int start = end - VALUE_WIDTH;
+		boolean negative = value < 0;
+		long rest = Math.abs(value);
+		int pos = end - 1;
+		int digits = 0;
+		while (pos > start && (rest > 0 || digits <= fractionDigits)) {
+			if (fractionDigits > 0 && digits == fractionDigits) {
+				lineBuffer[pos--] = '.';
+			}
+			lineBuffer[pos--] = (char) ('0' + rest % 10);
+			rest /= 10;
+			digits++;
+		}
+		if (negative && pos > start) {
+			lineBuffer[pos--] = '-';
+		}
+		if (rest > 0 || negative && pos <= start) {
+			// Does not fit into the field
+			Arrays.fill(lineBuffer, start + 1, end, '#');
+			pos = start;
+		}
+		while (pos >= start) {
+			lineBuffer[pos--] = ' ';
+		}
+	}
+
+}
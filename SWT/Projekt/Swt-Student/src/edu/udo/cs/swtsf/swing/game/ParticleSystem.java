@@ -0,0 +1,297 @@
+package edu.udo.cs.swtsf.swing.game;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.udo.cs.swtsf.swing.RotatedImageCache;
+import edu.udo.cs.swtsf.view.ParticleEffect;
+
+/**
+ * <p>Holds the particles of a {@link SwingPainter}. The state of all particles is
+ * kept in arrays of a fixed capacity. Emitting, updating and removing a particle
+ * does not create any objects and all particles are drawn together in a single
+ * pass after the sprites.</p>
+ *
+ * <p>When the system is full new particles are dropped. The number of dropped
+ * particles is counted.</p>
+ *
+ * <p>The frames of each {@link ParticleEffect} are fetched from the
+ * {@link edu.udo.cs.swtsf.swing.ImageCache ImageCache} when the effect is drawn for
+ * the first time. Until its image has been loaded in the background the effect is
+ * skipped. An effect whose image can not be loaded is not drawn at all.</p>
+ *
+ * @see SwingPainter#emitParticle(ParticleEffect, double, double, double, double)
+ */
+public class ParticleSystem {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+	private static final AffineTransform IDENTITY = new AffineTransform();
+
+	private final SwingPainter painter;
+	private final Map<ParticleEffect, Integer> effectIndices = new IdentityHashMap<>();
+	private final List<EffectFrames> effects = new ArrayList<>();
+	/*
+	 * The state of particle i is found at index i of each of these arrays. Only the
+	 * first count entries are in use.
+	 */
+	private final int[] effectIndex;
+	private final double[] posX;
+	private final double[] posY;
+	private final double[] angle;
+	private final double[] scale;
+	private final long[] age;
+	/*
+	 * The frame and image which were drawn for each particle in the last frame.
+	 * The rotated copy only needs to be fetched again when the frame changes.
+	 */
+	private final int[] shownFrame;
+	private final BufferedImage[] shownImage;
+	/*
+	 * Reused to draw particles without the RotatedImageCache.
+	 */
+	private final AffineTransform transform = new AffineTransform();
+	private int count;
+	private long droppedCount;
+
+	/**
+	 * Creates an empty system with the {@link #DEFAULT_CAPACITY default capacity}.
+	 * @param painter						the non-null painter used to fetch images
+	 * @throws IllegalArgumentException		if painter is null
+	 */
+	public ParticleSystem(SwingPainter painter) {
+		this(painter, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an empty system which shows at most capacity particles at a time.
+	 * @param painter						the non-null painter used to fetch images
+	 * @param capacity						a positive number
+	 * @throws IllegalArgumentException		if painter is null or capacity is less than 1
+	 */
+	public ParticleSystem(SwingPainter painter, int capacity) {
+		if (painter == null) {
+			throw new IllegalArgumentException("painter == null");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity < 1");
+		}
+		this.painter = painter;
+		effectIndex = new int[capacity];
+		posX = new double[capacity];
+		posY = new double[capacity];
+		angle = new double[capacity];
+		scale = new double[capacity];
+		age = new long[capacity];
+		shownFrame = new int[capacity];
+		shownImage = new BufferedImage[capacity];
+	}
+
+	/**
+	 * <p>Adds a particle. The particle is dropped if the system is full.</p>
+	 * @param effect						a non-null ParticleEffect
+	 * @param x								the X-coordinate of the center in game coordinates
+	 * @param y								the Y-coordinate of the center in game coordinates
+	 * @param angle							the rotation of the image in degrees clockwise
+	 * @param scale							the scale of the image
+	 * @return								true if the particle was added, false if it
+	 * 										was dropped
+	 * @throws IllegalArgumentException		if effect is null
+	 */
+	public boolean emit(ParticleEffect effect, double x, double y, double angle, double scale) {
+		if (effect == null) {
+			throw new IllegalArgumentException("effect == null");
+		}
+		if (count == effectIndex.length) {
+			droppedCount++;
+			return false;
+		}
+		Integer index = effectIndices.get(effect);
+		if (index == null) {
+			index = effects.size();
+			effects.add(new EffectFrames(effect));
+			effectIndices.put(effect, index);
+		}
+		int i = count++;
+		effectIndex[i] = index;
+		posX[i] = x;
+		posY[i] = y;
+		this.angle[i] = angle;
+		this.scale[i] = scale;
+		age[i] = 0;
+		shownFrame[i] = -1;
+		return true;
+	}
+
+	/**
+	 * <p>Ages all particles. Particles whose life time has passed are removed.</p>
+	 * @param millis		the time since the last call in milliseconds
+	 */
+	public void advance(long millis) {
+		int i = 0;
+		while (i < count) {
+			age[i] += millis;
+			if (age[i] >= effects.get(effectIndex[i]).lifeTime) {
+				// The last particle takes the place of the removed one and is aged next
+				remove(i);
+			} else {
+				i++;
+			}
+		}
+	}
+
+	private void remove(int i) {
+		int last = --count;
+		effectIndex[i] = effectIndex[last];
+		posX[i] = posX[last];
+		posY[i] = posY[last];
+		angle[i] = angle[last];
+		scale[i] = scale[last];
+		age[i] = age[last];
+		shownFrame[i] = shownFrame[last];
+		shownImage[i] = shownImage[last];
+		shownImage[last] = null;
+	}
+
+	/**
+	 * Removes all particles. The number of dropped particles is kept.
+	 */
+	public void clear() {
+		for (int i = 0; i < count; i++) {
+			shownImage[i] = null;
+		}
+		count = 0;
+	}
+
+	/**
+	 * <p>Draws all particles which are at least partially within the given
+	 * rectangle of the screen.</p>
+	 * @param g					the graphics to draw with. Its transformation is changed.
+	 * @param offsetX			added to the X-coordinate of each particle to get its
+	 * 							position on the screen
+	 * @param offsetY			added to the Y-coordinate of each particle to get its
+	 * 							position on the screen
+	 * @param screenW			the width of the visible part of the screen
+	 * @param screenH			the height of the visible part of the screen
+	 * @param rotatedCache		the cache of rotated images or null to draw with
+	 * 							a transformation
+	 */
+	void paint(Graphics2D g, double offsetX, double offsetY,
+			double screenW, double screenH, RotatedImageCache rotatedCache)
+	{
+		g.setTransform(IDENTITY);
+		boolean isIdentity = true;
+		for (int i = 0; i < count; i++) {
+			EffectFrames frames = effects.get(effectIndex[i]);
+			double s = scale[i];
+			if (frames.broken || s <= 0) {
+				continue;
+			}
+			double x = posX[i] + offsetX;
+			double y = posY[i] + offsetY;
+			double radius = frames.halfDiagonal * s;
+			if (x + radius < 0 || y + radius < 0
+					|| x - radius > screenW || y - radius > screenH)
+			{
+				continue;
+			}
+			int frame = frames.effect.getFrameAt(age[i]);
+			BufferedImage img = frames.getFrame(frame);
+			if (img == null) {
+				continue;
+			}
+			if (rotatedCache != null) {
+				if (shownFrame[i] != frame || shownImage[i] == null) {
+					shownImage[i] = rotatedCache.fetch(img, angle[i], s);
+					shownFrame[i] = frame;
+				}
+				BufferedImage rotated = shownImage[i];
+				if (rotated != null) {
+					if (!isIdentity) {
+						g.setTransform(IDENTITY);
+						isIdentity = true;
+					}
+					g.drawImage(rotated,
+							(int) Math.round(x) - rotated.getWidth() / 2,
+							(int) Math.round(y) - rotated.getHeight() / 2, null);
+					continue;
+				}
+			}
+			transform.setToTranslation(x, y);
+			transform.rotate(Math.toRadians(angle[i]));
+			transform.scale(s, s);
+			g.setTransform(transform);
+			isIdentity = false;
+			g.drawImage(img, -img.getWidth() / 2, -img.getHeight() / 2, null);
+		}
+	}
+
+	/**
+	 * Returns the number of particles which are currently shown.
+	 * @return		a number from 0 to {@link #getCapacity()}
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	public int getCapacity() {
+		return effectIndex.length;
+	}
+
+	/**
+	 * Returns the number of particles which were dropped because the system was full.
+	 * @return		a non-negative number
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/*
+	 * The frames of a single ParticleEffect. They are fetched the first time the
+	 * effect is drawn.
+	 */
+	private class EffectFrames {
+		final ParticleEffect effect;
+		final long lifeTime;
+		final double halfDiagonal;
+		BufferedImage[] images;
+		boolean broken;
+
+		EffectFrames(ParticleEffect effect) {
+			this.effect = effect;
+			lifeTime = effect.getLifeTime();
+			double w = effect.getImageCutoutWidth();
+			double h = effect.getImageCutoutHeight();
+			halfDiagonal = Math.sqrt(w * w + h * h) / 2;
+		}
+
+		BufferedImage getFrame(int frame) {
+			if (images == null) {
+				int w = effect.getImageCutoutWidth();
+				int h = effect.getImageCutoutHeight();
+				BufferedImage[] loaded = new BufferedImage[effect.getFrameCount()];
+				try {
+					for (int i = 0; i < loaded.length; i++) {
+						loaded[i] = painter.getSubImageOrPreload(effect.getImagePath(), i * w, 0, w, h);
+						if (loaded[i] == null) {
+							// The effect is drawn once its image has been loaded
+							return null;
+						}
+					}
+				} catch (IOException | RuntimeException e) {
+					e.printStackTrace();
+					broken = true;
+					return null;
+				}
+				images = loaded;
+			}
+			return images[frame];
+		}
+	}
+
+}
@@ -16,4 +16,11 @@ public interface SwingGraphicalElement {
 	
 	public void paint(Graphics2D g);
 	
+	/**
+	 * Returns the radius of a circle around the translation of this element which 
+	 * contains everything this element paints. The radius is measured in the 
+	 * coordinate system of the parent.
+	 */
+	public double getBoundingRadius();
+	
 }
\ No newline at end of file
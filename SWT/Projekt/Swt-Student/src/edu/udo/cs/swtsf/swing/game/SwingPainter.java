@@ -1,16 +1,26 @@
 package edu.udo.cs.swtsf.swing.game;
 
+import java.awt.AlphaComposite;
+import java.awt.BorderLayout;
+import java.awt.Canvas;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
+import java.awt.Toolkit;
+import java.awt.Transparency;
 import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Supplier;
@@ -21,13 +31,14 @@ import javax.swing.JPanel;
 import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.Game;
 import edu.udo.cs.swtsf.core.player.Player;
+import edu.udo.cs.swtsf.swing.ImageCache;
+import edu.udo.cs.swtsf.swing.RotatedImageCache;
 import edu.udo.cs.swtsf.swing.SwingPlayScreen;
-import edu.udo.cs.swtsf.util.BufferedGroup;
-import edu.udo.cs.swtsf.util.Group;
 import edu.udo.cs.swtsf.view.GraphicalElement;
 import edu.udo.cs.swtsf.view.GraphicalElementFactory;
 import edu.udo.cs.swtsf.view.HudElement;
 import edu.udo.cs.swtsf.view.HudElementOrientation;
+import edu.udo.cs.swtsf.view.ParticleEffect;
 import edu.udo.cs.swtsf.view.RgbColor;
 import edu.udo.cs.swtsf.view.Sprite;
 import edu.udo.cs.swtsf.view.SpriteSet;
@@ -57,16 +68,52 @@ public class SwingPainter extends ViewManager {
 	private final JPanel jPanel = new JPanel() {
 		private static final long serialVersionUID = 1L;
 		public void paintComponent(Graphics g) {
-			SwingPainter.this.paintAll((Graphics2D) g);
+			// In active rendering mode the canvas covers this panel
+			if (!activeRendering) {
+				SwingPainter.this.paintAll((Graphics2D) g);
+			}
 		}
 	};
+	/*
+	 * Used instead of the jPanel in active rendering mode. It is added to the 
+	 * jPanel and covers it completely.
+	 */
+	private final Canvas canvas = new Canvas();
+	private volatile boolean activeRendering;
 	private final Set<HudElement>						errorHudElems = new HashSet<>();
 	private final Map<Object, SwingGraphicalElement>	spriteMap = new HashMap<>();
-	private final Group<GraphicalElement>				updateSpriteList = new BufferedGroup<>();
+	private final AnimationScheduler					animationScheduler = new AnimationScheduler();
 	private final SwingSpriteSet						rootSpriteSet = new SwingSpriteSet();
+	private final ParticleSystem						particleSystem = new ParticleSystem(this);
 	private final SwingPlayScreen screen;
 	
 	private boolean hudPaintingHasErrors = false;
+	private boolean cullingEnabled = true;
+	private boolean rotationCacheEnabled = true;
+	/*
+	 * The tiled background. Created from bgTileImg and only repainted when its 
+	 * contents are lost, the panel is resized or the background image changes.
+	 */
+	private VolatileImage bgCache;
+	private BufferedImage bgTileImg;
+	private boolean bgCacheValid;
+	/*
+	 * The retained HUD layer. All HudElements are drawn into hudImg which is only 
+	 * redrawn when an element was added, removed or changed, or when the panel was 
+	 * resized. Each frame only the top and bottom rows of hudImg are drawn.
+	 */
+	private BufferedImage hudImg;
+	private boolean hudValid;
+	private int hudTopHeight;
+	private int hudBottomHeight;
+	/*
+	 * Images declared by preloadImages before the screen was initialized.
+	 */
+	private final Set<String> pendingPreloads = new LinkedHashSet<>();
+	private final FrameStats frameStats = new FrameStats();
+	private volatile boolean statsOverlayVisible;
+	private int drawnSpriteCount;
+	private int culledElementCount;
 	
 	private Player player;
 	
@@ -84,6 +131,78 @@ public class SwingPainter extends ViewManager {
 		return jPanel;
 	}
 	
+	/**
+	 * Returns the component which receives the keyboard and mouse input. This is the 
+	 * canvas in active rendering mode and the JComponent otherwise.
+	 * @see #getAsJComponent()
+	 */
+	public Component getInputComponent() {
+		return activeRendering ? canvas : jPanel;
+	}
+	
+	/**
+	 * <p>Sets whether frames are painted actively to a {@link Canvas} with a 
+	 * {@link BufferStrategy} by calling {@link #renderFrame()} or passively by Swing 
+	 * after each call to {@link #repaint()}. Passive rendering is the default.</p>
+	 * <p>Input listeners should be added to the {@link #getInputComponent() input 
+	 * component} after this method was called. This method must be called on the 
+	 * event dispatch thread.</p>
+	 * @see SwingRenderLoop
+	 */
+	public void setActiveRendering(boolean value) {
+		if (activeRendering == value) {
+			return;
+		}
+		activeRendering = value;
+		if (value) {
+			canvas.setIgnoreRepaint(true);
+			jPanel.setLayout(new BorderLayout());
+			jPanel.add(canvas, BorderLayout.CENTER);
+		} else {
+			jPanel.remove(canvas);
+		}
+		jPanel.revalidate();
+		jPanel.repaint();
+	}
+	
+	public boolean isActiveRendering() {
+		return activeRendering;
+	}
+	
+	/**
+	 * <p>Paints a frame to the back buffer of the canvas and shows it. Does nothing 
+	 * if the painter is not in active rendering mode or the canvas is not yet 
+	 * displayable.</p>
+	 * <p>This method may be called from any thread as long as the scene graph is 
+	 * not changed at the same time. Only one thread can render at a time.</p>
+	 * @see #setActiveRendering(boolean)
+	 */
+	public synchronized void renderFrame() {
+		if (!activeRendering || !canvas.isDisplayable() 
+				|| canvas.getWidth() <= 0 || canvas.getHeight() <= 0) 
+		{
+			return;
+		}
+		BufferStrategy strategy = canvas.getBufferStrategy();
+		if (strategy == null) {
+			canvas.createBufferStrategy(2);
+			strategy = canvas.getBufferStrategy();
+		}
+		// The buffers may be lost at any time and must be painted again
+		do {
+			do {
+				Graphics2D g = (Graphics2D) strategy.getDrawGraphics();
+				try {
+					paintAll(g);
+				} finally {
+					g.dispose();
+				}
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
+	}
+	
 	public void setPlayer(Player player) {
 		this.player = player;
 	}
@@ -101,22 +220,22 @@ public class SwingPainter extends ViewManager {
 	}
 	
 	public void updateAnimations(long timeSince) {
-		updateSpriteList.forEach((elem) 
-				-> elem.getAnimator().updateAnimation(elem, timeSince));
+		animationScheduler.advance(timeSince);
+		particleSystem.advance(timeSince);
 		
+		frameStats.getParticleCounts().record(particleSystem.getCount());
+		frameStats.getAnimatedSpriteCounts().record(animationScheduler.getSize());
+		frameStats.getAnimatorUpdateCounts().record(animationScheduler.getLastUpdateCount());
 		updateShowText(timeSince);
 		repaint();
 	}
 	
 	void addToAnimatedSpritesList(GraphicalElement elem) {
-		if (updateSpriteList.contains(elem)) {
-			throw new IllegalStateException("updateSpriteList.contains("+elem+") == true");
-		}
-		updateSpriteList.add(elem);
+		animationScheduler.add(elem);
 	}
 	
 	void removeFromAnimatedSpritesList(GraphicalElement elem) {
-		updateSpriteList.remove(elem);
+		animationScheduler.remove(elem);
 	}
 	
 	private SwingGraphicalElement createSpriteFor(Entity entity) {
@@ -185,7 +304,10 @@ public class SwingPainter extends ViewManager {
 	}
 	
 	public void repaint() {
-		jPanel.repaint();
+		// In active rendering mode frames are rendered by the render loop
+		if (!activeRendering) {
+			jPanel.repaint();
+		}
 	}
 	
 	public void setCameraCenter(double offsetX, double offsetY) {
@@ -230,13 +352,125 @@ public class SwingPainter extends ViewManager {
 		if (graphics == null) {
 			throw new IllegalArgumentException("graphics == null");
 		}
+		long startNanos = System.nanoTime();
 		paintBackgroundImage(graphics);
 		
 		paintHUD(graphics);
 		
 		graphics.setRenderingHints(RENDERING_HINTS);
 		
-		rootSpriteSet.paint(graphics);
+		drawnSpriteCount = 0;
+		culledElementCount = 0;
+		if (cullingEnabled) {
+			// The root set translates the game into screen coordinates. In the coordinate 
+			// system of its parent the camera is the rectangle covering the panel.
+			rootSpriteSet.paintVisible(graphics, 0, 0, getCameraWidth(), getCameraHeight());
+		} else {
+			rootSpriteSet.paint(graphics);
+		}
+		particleSystem.paint(graphics, getCameraCenterX(), getCameraCenterY(), 
+				getCameraWidth(), getCameraHeight(), getRotatedImageCache());
+		frameStats.getPaintTimes().record(System.nanoTime() - startNanos);
+		
+		if (statsOverlayVisible) {
+			frameStats.paintOverlay(graphics, 4, hudTopHeight + 4);
+		}
+	}
+	
+	/**
+	 * Returns the statistics about the most recent frames. The paint time and the 
+	 * number of animated sprites are recorded by this painter.
+	 * @return		a non-null FrameStats
+	 * @see #setStatsOverlayVisible(boolean)
+	 */
+	public FrameStats getFrameStats() {
+		return frameStats;
+	}
+	
+	/**
+	 * Returns the particles which were emitted with 
+	 * {@link #emitParticle(ParticleEffect, double, double, double, double)}.
+	 * @return		a non-null ParticleSystem
+	 */
+	public ParticleSystem getParticleSystem() {
+		return particleSystem;
+	}
+	
+	/**
+	 * Sets whether the percentiles of the {@link #getFrameStats() frame statistics} 
+	 * are shown in the top left corner of each frame.
+	 * @param value		true to show the statistics
+	 */
+	public void setStatsOverlayVisible(boolean value) {
+		statsOverlayVisible = value;
+	}
+	
+	public boolean isStatsOverlayVisible() {
+		return statsOverlayVisible;
+	}
+	
+	/**
+	 * Sets whether sprites and sprite sets which are completely outside of the 
+	 * camera are skipped while painting. Culling is enabled by default.
+	 */
+	public void setCullingEnabled(boolean value) {
+		cullingEnabled = value;
+	}
+	
+	public boolean isCullingEnabled() {
+		return cullingEnabled;
+	}
+	
+	/**
+	 * Returns the number of sprites which were drawn in the last frame.
+	 */
+	public int getDrawnSpriteCount() {
+		return drawnSpriteCount;
+	}
+	
+	/**
+	 * Returns the number of sprites and sprite sets which were skipped in the last 
+	 * frame because they were outside of the camera. A skipped sprite set is 
+	 * counted once, its children are not counted.
+	 */
+	public int getCulledElementCount() {
+		return culledElementCount;
+	}
+	
+	/**
+	 * Sets whether rotated sprites are drawn from pre-rendered copies of their 
+	 * images. The cache is enabled by default.
+	 * @see RotatedImageCache
+	 */
+	public void setRotationCacheEnabled(boolean value) {
+		rotationCacheEnabled = value;
+	}
+	
+	public boolean isRotationCacheEnabled() {
+		return rotationCacheEnabled;
+	}
+	
+	/**
+	 * Returns the cache of pre-rendered rotated images or null if it is disabled.
+	 */
+	public RotatedImageCache getRotatedImageCache() {
+		if (!rotationCacheEnabled) {
+			return null;
+		}
+		return screen.getSwtGameMain().getImageCache().getRotatedImageCache();
+	}
+	
+	void countDrawnSprite() {
+		drawnSpriteCount++;
+	}
+	
+	void countCulledElement() {
+		culledElementCount++;
+	}
+	
+	protected void setBackgroundImagePathInternal() {
+		bgTileImg = null;
+		bgCacheValid = false;
 	}
 	
 	private void paintBackgroundImage(Graphics2D g) {
@@ -246,11 +480,19 @@ public class SwingPainter extends ViewManager {
 			g.fillRect(0, 0, jPanel.getWidth(), jPanel.getHeight());
 			return;
 		}
+		if (paintCachedBackground(g)) {
+			return;
+		}
 		try {
 			int totalW = jPanel.getWidth();
 			int totalH = jPanel.getHeight();
 			
-			BufferedImage bgImg = fetchImage(getBackgroundImagePath());
+			BufferedImage bgImg = getImageOrPreload(getBackgroundImagePath());
+			if (bgImg == null) {
+				g.setColor(Color.BLACK);
+				g.fillRect(0, 0, totalW, totalH);
+				return;
+			}
 			int imgW = bgImg.getWidth();
 			int imgH = bgImg.getHeight();
 			
@@ -274,31 +516,147 @@ public class SwingPainter extends ViewManager {
 		}
 	}
 	
+	/*
+	 * Draws the background with a single blit from the bgCache. The cache is one 
+	 * tile larger than the panel in each direction so that it can be moved by up to 
+	 * one tile to follow the camera. Returns false if no cache could be created.
+	 */
+	private boolean paintCachedBackground(Graphics2D g) {
+		int totalW = jPanel.getWidth();
+		int totalH = jPanel.getHeight();
+		if (totalW <= 0 || totalH <= 0) {
+			return true;
+		}
+		try {
+			if (bgTileImg == null) {
+				bgTileImg = getImageOrPreload(getBackgroundImagePath());
+				if (bgTileImg == null) {
+					// The background is drawn once its image has been loaded
+					g.setColor(Color.BLACK);
+					g.fillRect(0, 0, totalW, totalH);
+					return true;
+				}
+				bgCacheValid = false;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			return false;
+		}
+		int imgW = bgTileImg.getWidth();
+		int imgH = bgTileImg.getHeight();
+		int cacheW = totalW + imgW;
+		int cacheH = totalH + imgH;
+		
+		// The contents of a VolatileImage can be lost at any time
+		do {
+			if (bgCache == null || bgCache.getWidth() != cacheW || bgCache.getHeight() != cacheH 
+					|| bgCache.validate(jPanel.getGraphicsConfiguration()) 
+					== VolatileImage.IMAGE_INCOMPATIBLE) 
+			{
+				if (bgCache != null) {
+					bgCache.flush();
+				}
+				bgCache = jPanel.createVolatileImage(cacheW, cacheH);
+				if (bgCache == null) {
+					return false;
+				}
+				bgCacheValid = false;
+			} else if (bgCache.contentsLost()) {
+				bgCacheValid = false;
+			}
+			if (!bgCacheValid) {
+				Graphics2D cacheG = bgCache.createGraphics();
+				for (int y = 0; y < cacheH; y += imgH) {
+					for (int x = 0; x < cacheW; x += imgW) {
+						cacheG.drawImage(bgTileImg, x, y, null);
+					}
+				}
+				cacheG.dispose();
+				bgCacheValid = true;
+			}
+			int offsetX = Math.floorMod((int) getCameraCenterX(), imgW) - imgW;
+			int offsetY = Math.floorMod((int) getCameraCenterY(), imgH) - imgH;
+			g.drawImage(bgCache, offsetX, offsetY, null);
+		} while (bgCache.contentsLost());
+		return true;
+	}
+	
 	private void paintHUD(Graphics2D graphics) {
 		if (hudPaintingHasErrors) {
 			return;
 		}
 		try {
+			int screenW = (int) getCameraWidth();
+			int screenH = (int) getCameraHeight();
+			if (screenW > 0 && screenH > 0) {
+				if (!hudValid || hudImg == null 
+						|| hudImg.getWidth() != screenW || hudImg.getHeight() != screenH) 
+				{
+					redrawHUD(screenW, screenH);
+				}
+				graphics.drawImage(hudImg, 
+						0, 0, screenW, hudTopHeight, 
+						0, 0, screenW, hudTopHeight, null);
+				int bottomY = screenH - hudBottomHeight;
+				graphics.drawImage(hudImg, 
+						0, bottomY, screenW, screenH, 
+						0, bottomY, screenW, screenH, null);
+			}
+			
+			drawShowText(graphics);
+		} catch (Exception e) {
+			e.printStackTrace();
+			hudPaintingHasErrors = true;
+		}
+	}
+	
+	private void redrawHUD(int screenW, int screenH) throws IOException {
+		if (hudImg == null || hudImg.getWidth() != screenW || hudImg.getHeight() != screenH) {
+			hudImg = ImageCache.createAcceleratedImg(screenW, screenH, Transparency.TRANSLUCENT);
+		}
+		Graphics2D g = hudImg.createGraphics();
+		try {
+			g.setComposite(AlphaComposite.Clear);
+			g.fillRect(0, 0, screenW, screenH);
+			g.setComposite(AlphaComposite.SrcOver);
+			
+			int textH = g.getFontMetrics(HUD_FONT).getHeight();
 			int hudTopX = 0;
 			int hudBottomX = 0;
-			int hudBottomY = (int) getCameraHeight();
+			hudTopHeight = 0;
+			hudBottomHeight = 0;
 			for (HudElement element : hudList) {
 				HudElementOrientation ori = element.getOrientation();
+				int cutoutH = element.getImageCutoutHeight();
 				if (ori == HudElementOrientation.TOP) {
-					hudTopX = drawHudElement(graphics, hudTopX, 0, element) + 4;
+					hudTopX = drawHudElement(g, hudTopX, 0, element) + 4;
+					hudTopHeight = Math.max(hudTopHeight, Math.max(cutoutH, textH));
 				} else if (ori == HudElementOrientation.BOTTOM) {
-					int elementY = hudBottomY - element.getImageCutoutHeight();
-					hudBottomX = drawHudElement(graphics, hudBottomX, elementY, element) + 4;
+					int elementY = screenH - cutoutH;
+					hudBottomX = drawHudElement(g, hudBottomX, elementY, element) + 4;
+					hudBottomHeight = Math.max(hudBottomHeight, cutoutH);
 				} else {
 					throw new IllegalStateException("element.getOrientation() == "+ori);
 				}
 			}
-			
-			drawShowText(graphics);
-		} catch (Exception e) {
-			e.printStackTrace();
-			hudPaintingHasErrors = true;
+			hudTopHeight = Math.min(hudTopHeight, screenH);
+			hudBottomHeight = Math.min(hudBottomHeight, screenH);
+		} finally {
+			g.dispose();
 		}
+		hudValid = true;
+	}
+	
+	protected void addHudElementInternal(HudElement element) {
+		hudValid = false;
+	}
+	
+	protected void removeHudElementInternal(HudElement element) {
+		hudValid = false;
+	}
+	
+	protected void onHudElementChanged(HudElement element) {
+		hudValid = false;
 	}
 	
 	public void removeHudElement(HudElement element) {
@@ -319,8 +677,10 @@ public class SwingPainter extends ViewManager {
 			int cutoutX2 = cutoutX + cutoutW;
 			int cutoutY2 = cutoutY + cutoutH;
 			try {
-				BufferedImage img = fetchImage(element.getImagePath());
-				g.drawImage(img, x, y, x2, y2, cutoutX, cutoutY, cutoutX2, cutoutY2, null);
+				BufferedImage img = getImageOrPreload(element.getImagePath());
+				if (img != null) {
+					g.drawImage(img, x, y, x2, y2, cutoutX, cutoutY, cutoutX2, cutoutY2, null);
+				}
 			} catch (Exception e) {
 				e.printStackTrace();
 				errorHudElems.add(element);
@@ -420,8 +780,68 @@ public class SwingPainter extends ViewManager {
 		showTextFlashTimer = SHOW_TEXT_FLASH_TIMER;
 	}
 	
+	public void emitParticle(ParticleEffect effect, 
+			double x, double y, double rotation, double scale) 
+	{
+		if (effect == null) {
+			throw new IllegalArgumentException("effect == null");
+		}
+		// Like a SwingSprite the image is turned by a quarter more than the rotation
+		particleSystem.emit(effect, x, y, rotation + 90, scale);
+	}
+	
+	protected void preloadImagesInternal(Collection<String> imgPaths) {
+		pendingPreloads.addAll(imgPaths);
+		if (screen.getSwtGameMain() != null) {
+			startPreloading();
+		}
+	}
+	
+	/**
+	 * <p>Starts loading all images which were declared by 
+	 * {@link #preloadImages(Collection)} in the background. Images may be declared 
+	 * before the screen of this painter is shown. They are loaded once the screen 
+	 * is initialized and calls this method.</p>
+	 * @see ImageCache#preload(Collection)
+	 */
+	public void startPreloading() {
+		if (!pendingPreloads.isEmpty()) {
+			screen.getSwtGameMain().getImageCache().preload(pendingPreloads);
+			pendingPreloads.clear();
+		}
+	}
+	
 	public BufferedImage fetchImage(String imagePath) throws IOException {
 		return screen.getSwtGameMain().getImageCache().fetchImage(imagePath);
 	}
 	
+	public BufferedImage fetchSubImage(String imagePath, int x, int y, int w, int h) 
+			throws IOException 
+	{
+		return screen.getSwtGameMain().getImageCache().fetchSubImage(imagePath, x, y, w, h);
+	}
+	
+	/**
+	 * <p>Returns the image if it is cached or null otherwise. A missing image is 
+	 * loaded in the background so it can be drawn in a later frame. Used while 
+	 * painting so that a frame never waits for an image to be decoded.</p>
+	 * @param imagePath		the path of the image
+	 * @return				the image or null
+	 * @throws IOException	if the image could not be loaded before
+	 * @see ImageCache#getOrPreload(String)
+	 */
+	public BufferedImage getImageOrPreload(String imagePath) throws IOException {
+		return screen.getSwtGameMain().getImageCache().getOrPreload(imagePath);
+	}
+	
+	/**
+	 * <p>Like {@link #getImageOrPreload(String)} for a part of an image.</p>
+	 * @see ImageCache#getSubImageOrPreload(String, int, int, int, int)
+	 */
+	public BufferedImage getSubImageOrPreload(String imagePath, int x, int y, int w, int h) 
+			throws IOException 
+	{
+		return screen.getSwtGameMain().getImageCache().getSubImageOrPreload(imagePath, x, y, w, h);
+	}
+	
 }
\ No newline at end of file
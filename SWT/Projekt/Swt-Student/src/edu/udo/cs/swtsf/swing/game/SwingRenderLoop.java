@@ -0,0 +1,157 @@
+package edu.udo.cs.swtsf.swing.game;
+
+import java.awt.EventQueue;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>Drives a {@link SwingPainter} in active rendering mode from a dedicated thread.
+ * For each frame the frame step, which advances the game, is run on the event
+ * dispatch thread. Once it has returned the frame is rendered and shown on the
+ * render thread.</p>
+ *
+ * <p>The scene graph is only changed by the frame step. While the render thread is
+ * drawing, the event dispatch thread only handles input, so both never touch the
+ * scene graph at the same time.</p>
+ *
+ * <p>The number of frames per second can be capped. Without a cap frames are
+ * rendered as fast as possible.</p>
+ *
+ * @see SwingPainter#setActiveRendering(boolean)
+ * @see SwingPainter#renderFrame()
+ */
+public class SwingRenderLoop implements Runnable {
+
+	public static final int DEFAULT_FRAME_CAP = 60;
+
+	private final SwingPainter painter;
+	private final Runnable frameStep;
+	private final Runnable fallback;
+	private volatile int frameCap = DEFAULT_FRAME_CAP;
+	/**
+	 * The current render thread or null. A thread which is no longer the current
+	 * thread finishes its frame and ends, even if a new thread was started already.
+	 */
+	private volatile Thread thread;
+
+	/**
+	 * @param painter		the painter to render. Not null.
+	 * @param frameStep		run on the event dispatch thread before each frame. Not null.
+	 * @param fallback		run on the event dispatch thread if active rendering failed.
+	 * 						The loop has already stopped at this point. Not null.
+	 * @throws IllegalArgumentException		if any argument is null
+	 */
+	public SwingRenderLoop(SwingPainter painter, Runnable frameStep, Runnable fallback) {
+		if (painter == null) {
+			throw new IllegalArgumentException("painter == null");
+		}
+		if (frameStep == null) {
+			throw new IllegalArgumentException("frameStep == null");
+		}
+		if (fallback == null) {
+			throw new IllegalArgumentException("fallback == null");
+		}
+		this.painter = painter;
+		this.frameStep = frameStep;
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Sets the maximum number of frames per second. A value of 0 removes the cap.
+	 * @param value							a non-negative number
+	 * @throws IllegalArgumentException		if value is negative
+	 */
+	public void setFrameCap(int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("value < 0");
+		}
+		frameCap = value;
+	}
+
+	public int getFrameCap() {
+		return frameCap;
+	}
+
+	/**
+	 * Starts the render thread if it is not running already.
+	 */
+	public void start() {
+		if (thread != null) {
+			return;
+		}
+		Thread newThread = new Thread(this, "SwingRenderLoop");
+		newThread.setDaemon(true);
+		thread = newThread;
+		newThread.start();
+	}
+
+	/**
+	 * <p>Stops the render thread. The thread will finish the current frame. This
+	 * method does not wait for the thread so it can safely be called on the event
+	 * dispatch thread.</p>
+	 */
+	public void stop() {
+		Thread oldThread = thread;
+		thread = null;
+		if (oldThread != null) {
+			oldThread.interrupt();
+		}
+	}
+
+	public boolean isRunning() {
+		return thread != null;
+	}
+
+	public void run() {
+		Thread self = Thread.currentThread();
+		long nextFrameNanos = System.nanoTime();
+		while (thread == self) {
+			try {
+				EventQueue.invokeAndWait(frameStep);
+			} catch (InterruptedException e) {
+				break;
+			} catch (InvocationTargetException e) {
+				// Same as an exception within a Swing timer
+				e.getCause().printStackTrace();
+			}
+			if (thread != self) {
+				break;
+			}
+			try {
+				painter.renderFrame();
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				if (thread == self) {
+					thread = null;
+					EventQueue.invokeLater(fallback);
+				}
+				break;
+			}
+			nextFrameNanos = waitForNextFrame(self, nextFrameNanos);
+		}
+	}
+
+	/*
+	 * Sleeps until the next frame is due. A loop which has fallen behind by more
+	 * than one frame does not try to catch up.
+	 */
+	private long waitForNextFrame(Thread self, long nextFrameNanos) {
+		int cap = frameCap;
+		long now = System.nanoTime();
+		if (cap == 0) {
+			Thread.yield();
+			return now;
+		}
+		long frameNanos = TimeUnit.SECONDS.toNanos(1) / cap;
+		nextFrameNanos += frameNanos;
+		if (nextFrameNanos < now - frameNanos) {
+			return now;
+		}
+		while (thread == self && (now = System.nanoTime()) < nextFrameNanos) {
+			LockSupport.parkNanos(nextFrameNanos - now);
+		}
+		return nextFrameNanos;
+	}
+
+}
@@ -4,22 +4,31 @@ import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 
+import edu.udo.cs.swtsf.swing.RotatedImageCache;
 import edu.udo.cs.swtsf.view.Animator;
 import edu.udo.cs.swtsf.view.Sprite;
 import edu.udo.cs.swtsf.view.ViewManager;
 
 public class SwingSprite extends Sprite implements SwingGraphicalElement {
 	
+	private static final AffineTransform IDENTITY = new AffineTransform();
+	private static final double MATRIX_EPSILON = 1e-9;
+	
 	private final AffineTransform localMat = new AffineTransform();
 	private final AffineTransform globalMat = new AffineTransform();
-	private BufferedImage cachedSrcImg;
 	private BufferedImage cachedSubImg;
 	private boolean localMatValid = false;
 	private boolean globalMatValid = false;
 	private boolean hasErrors = false;
+	/**
+	 * Half of the diagonal of the image cutout. Used for culling.
+	 * @see #getBoundingRadius()
+	 */
+	private double halfCutoutDiagonal;
 	private Object modelObj;
 	
 	protected SwingSprite() {
+		updateHalfCutoutDiagonal();
 	}
 	
 	protected void setViewManager(ViewManager viewManager) {
@@ -43,12 +52,14 @@ public class SwingSprite extends Sprite implements SwingGraphicalElement {
 		}
 		boolean wasAdded = getAnimator() != null;
 		boolean isAdded = value != null;
+		if (wasAdded) {
+			getPainter().removeFromAnimatedSpritesList(this);
+		}
 		super.setAnimator(value);
 		
-		if (!wasAdded && isAdded) {
+		if (isAdded) {
+			// A new Animator may want to be updated sooner than the previous one
 			getPainter().addToAnimatedSpritesList(this);
-		} else if (wasAdded && !isAdded) {
-			getPainter().removeFromAnimatedSpritesList(this);
 		}
 	}
 	
@@ -67,16 +78,61 @@ public class SwingSprite extends Sprite implements SwingGraphicalElement {
 		buildGlobalMatrix();
 		buildCachedImage();
 		
-		if (hasErrors) {
+		if (hasErrors || cachedSubImg == null) {
+			// A missing image is drawn once it has been loaded
 			return;
 		}
 		
 		BufferedImage bufImg = cachedSubImg;
-		int x = -bufImg.getWidth() / 2;
-		int y = -bufImg.getHeight() / 2;
-		
-		g.setTransform(globalMat);
-		g.drawImage(bufImg, x, y, null);
+		if (!paintRotatedCopy(g, bufImg)) {
+			int x = -bufImg.getWidth() / 2;
+			int y = -bufImg.getHeight() / 2;
+			
+			g.setTransform(globalMat);
+			g.drawImage(bufImg, x, y, null);
+		}
+		getPainter().countDrawnSprite();
+	}
+	
+	/*
+	 * Draws a pre-rendered copy of the image without any transformation. This is 
+	 * only possible if the global matrix consists of a translation, a rotation 
+	 * and a uniform scale.
+	 */
+	private boolean paintRotatedCopy(Graphics2D g, BufferedImage img) {
+		RotatedImageCache cache = getPainter().getRotatedImageCache();
+		if (cache == null) {
+			return false;
+		}
+		double m00 = globalMat.getScaleX();
+		double m01 = globalMat.getShearX();
+		double m10 = globalMat.getShearY();
+		double m11 = globalMat.getScaleY();
+		if (Math.abs(m00 - m11) > MATRIX_EPSILON || Math.abs(m01 + m10) > MATRIX_EPSILON) {
+			return false;
+		}
+		double scale = Math.sqrt(m00 * m00 + m10 * m10);
+		double angle = Math.toDegrees(Math.atan2(m10, m00));
+		BufferedImage rotated = cache.fetch(img, angle, scale);
+		if (rotated == null) {
+			return false;
+		}
+		int x = (int) Math.round(globalMat.getTranslateX()) - rotated.getWidth() / 2;
+		int y = (int) Math.round(globalMat.getTranslateY()) - rotated.getHeight() / 2;
+		g.setTransform(IDENTITY);
+		g.drawImage(rotated, x, y, null);
+		return true;
+	}
+	
+	public double getBoundingRadius() {
+		// The image may be rotated in any direction around the translation
+		return halfCutoutDiagonal * scale;
+	}
+	
+	private void updateHalfCutoutDiagonal() {
+		double w = getImageCutoutWidth();
+		double h = getImageCutoutHeight();
+		halfCutoutDiagonal = Math.sqrt(w * w + h * h) / 2;
 	}
 	
 	public void invalidate() {
@@ -120,9 +176,7 @@ public class SwingSprite extends Sprite implements SwingGraphicalElement {
 			return;
 		}
 		try {
-			cachedSrcImg = getPainter().fetchImage(getImagePath());
-			
-			cachedSubImg = cachedSrcImg.getSubimage(
+			cachedSubImg = getPainter().getSubImageOrPreload(getImagePath(), 
 					getImageCutoutX(), getImageCutoutY(), 
 					getImageCutoutWidth(), getImageCutoutHeight());
 		} catch (Exception e) {
@@ -134,7 +188,6 @@ public class SwingSprite extends Sprite implements SwingGraphicalElement {
 	
 	public void setImagePath(String value) {
 		super.setImagePath(value);
-		cachedSrcImg = null;
 		invalidateImageCache();
 	}
 	
@@ -150,11 +203,13 @@ public class SwingSprite extends Sprite implements SwingGraphicalElement {
 	
 	public void setImageCutoutWidth(int value) {
 		super.setImageCutoutWidth(value);
+		updateHalfCutoutDiagonal();
 		invalidateImageCache();
 	}
 	
 	public void setImageCutoutHeight(int value) {
 		super.setImageCutoutHeight(value);
+		updateHalfCutoutDiagonal();
 		invalidateImageCache();
 	}
 	
@@ -40,12 +40,14 @@ public class SwingSpriteSet extends SpriteSet implements SwingGraphicalElement {
 		}
 		boolean wasAdded = getAnimator() != null;
 		boolean isAdded = value != null;
+		if (wasAdded) {
+			getPainter().removeFromAnimatedSpritesList(this);
+		}
 		super.setAnimator(value);
 		
-		if (!wasAdded && isAdded) {
+		if (isAdded) {
+			// A new Animator may want to be updated sooner than the previous one
 			getPainter().addToAnimatedSpritesList(this);
-		} else if (wasAdded && !isAdded) {
-			getPainter().removeFromAnimatedSpritesList(this);
 		}
 	}
 	
@@ -64,6 +66,53 @@ public class SwingSpriteSet extends SpriteSet implements SwingGraphicalElement {
 		}
 	}
 	
+	/**
+	 * Paints all children which are at least partially within the given rectangle. 
+	 * The rectangle is given in the coordinate system of the parent of this set. 
+	 * Children outside of the rectangle are skipped without building their matrices.
+	 */
+	void paintVisible(Graphics2D g, double left, double top, double right, double bottom) {
+		// A rotated rectangle is no longer axis aligned. Rotated sets are only culled as a whole.
+		if (rotation % 360 != 0 || scale == 0) {
+			paint(g);
+			return;
+		}
+		double localLeft = (left - translationX) / scale;
+		double localTop = (top - translationY) / scale;
+		double localRight = (right - translationX) / scale;
+		double localBottom = (bottom - translationY) / scale;
+		for (GraphicalElement node : children) {
+			SwingGraphicalElement child = (SwingGraphicalElement) node;
+			double radius = child.getBoundingRadius();
+			double x = node.getTranslateX();
+			double y = node.getTranslateY();
+			if (x + radius < localLeft || x - radius > localRight 
+					|| y + radius < localTop || y - radius > localBottom) 
+			{
+				getPainter().countCulledElement();
+			} else if (child instanceof SwingSpriteSet) {
+				((SwingSpriteSet) child).paintVisible(g, 
+						localLeft, localTop, localRight, localBottom);
+			} else {
+				child.paint(g);
+			}
+		}
+	}
+	
+	public double getBoundingRadius() {
+		double max = 0;
+		for (GraphicalElement node : children) {
+			SwingGraphicalElement child = (SwingGraphicalElement) node;
+			double x = node.getTranslateX();
+			double y = node.getTranslateY();
+			double distance = Math.sqrt(x * x + y * y) + child.getBoundingRadius();
+			if (distance > max) {
+				max = distance;
+			}
+		}
+		return max * scale;
+	}
+	
 	public void invalidate() {
 		localMatValid = false;
 		globalMatValid = false;
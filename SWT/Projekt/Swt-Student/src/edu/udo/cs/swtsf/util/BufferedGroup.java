@@ -55,6 +55,15 @@ public class BufferedGroup<E> implements Group<E> {
 		return true;
 	}
 	
+	public void clear() {
+		if (iterationCount > 0) {
+			// Use a lambda for the write operation and add it to the buffer
+			buffer.add(List::clear);
+		} else {
+			list.clear();
+		}
+	}
+	
 	/**
 	 * Returns the current size without paying attention to the buffer.<br>
 	 */
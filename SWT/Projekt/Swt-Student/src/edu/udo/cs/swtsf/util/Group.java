@@ -127,7 +127,17 @@ public interface Group<E> {
 	public default boolean isEmpty() {
 		return getSize() == 0;
 	}
-	
+
+	/**
+	 * <p>Makes sure that all elements are removed from this group after all
+	 * iterations on it have returned. Each element is removed as many times
+	 * as it is contained.</p>
+	 * @see #remove(Object)
+	 */
+	public default void clear() {
+		forEach(this::remove);
+	}
+
 	/**
 	 * <p>Calls the {@link Consumer#accept(Object)} method for each element 
 	 * within this group exactly as many times as the element is contained. 
@@ -3,45 +3,95 @@ package edu.udo.cs.swtsf.util;
 import java.util.function.Supplier;
 
 /**
- * <p>The {@link GroupFactory} is a static global Singleton used to create all 
- * instances of {@link Group} within the framework. It is not necessary to have 
- * more than one instance of GroupFactory.</p>
+ * <p>The {@link GroupFactory} is used to create all instances of {@link Group} 
+ * within the framework.</p>
+ * <p>Each thread may have its own current GroupFactory which is returned by 
+ * {@link #get()}. A thread without a current GroupFactory uses the 
+ * {@link #getDefault() default} instance. This allows several games to run at the 
+ * same time on different threads, each with its own configuration.</p>
+ * 
+ * @see #setCurrent(GroupFactory)
  */
 public class GroupFactory {
 	
 	/**
-	 * Holds the singleton instance of the GroupFactory.
+	 * The GroupFactory used by all threads which have no current GroupFactory.
 	 */
-	private static GroupFactory INSTANCE;//Lazily initialized
+	private static final GroupFactory DEFAULT = new GroupFactory();
+	/**
+	 * The GroupFactory of each thread which has been set with 
+	 * {@link #setCurrent(GroupFactory)}.
+	 */
+	private static final ThreadLocal<GroupFactory> CURRENT = new ThreadLocal<>();
 	
 	/**
-	 * <p>Returns the global instance of {@link GroupFactory}. The returned 
-	 * instance should always be the same instance. Caching is not required.</p>
+	 * <p>Returns the current {@link GroupFactory} of the calling thread or the 
+	 * {@link #getDefault() default} instance if the thread has none. Caching is 
+	 * not required.</p>
 	 * @return	a non-null instance of {@link GroupFactory}
+	 * @see #setCurrent(GroupFactory)
 	 */
 	public static GroupFactory get() {
-		if (INSTANCE == null) {
-			INSTANCE = new GroupFactory();
-		}
-		return INSTANCE;
+		GroupFactory current = CURRENT.get();
+		return current == null ? DEFAULT : current;
 	}
 	
-	/*
-	 * Constructor is private. Construction outside of this class is not supported.
+	/**
+	 * <p>Returns the {@link GroupFactory} used by all threads which have no current 
+	 * GroupFactory. The returned instance is always the same instance.</p>
+	 * @return	a non-null instance of {@link GroupFactory}
+	 */
+	public static GroupFactory getDefault() {
+		return DEFAULT;
+	}
+	
+	/**
+	 * <p>Sets the {@link GroupFactory} which is returned by {@link #get()} on the 
+	 * calling thread. If factory is null the thread will use the 
+	 * {@link #getDefault() default} instance again.</p>
+	 * @param factory		a GroupFactory or null
+	 * @see #get()
 	 */
-	private GroupFactory() {}
+	public static void setCurrent(GroupFactory factory) {
+		if (factory == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(factory);
+		}
+	}
 	
 	/**
 	 * The {@link Supplier} used as the Factory-Object to create {@link Group} instances.
 	 * By default the supplier always generates instances of {@link BufferedGroup}.
 	 */
-	private Supplier<Group<?>> sup = () -> new BufferedGroup<>();
+	private volatile Supplier<Group<?>> sup = () -> new BufferedGroup<>();
+	
+	/**
+	 * Creates a new GroupFactory which generates instances of {@link BufferedGroup}.
+	 */
+	public GroupFactory() {}
+	
+	/**
+	 * Creates a new GroupFactory which generates its {@link Group Groups} with the 
+	 * given {@link Supplier}.
+	 * @param supplier						a non-null {@link Supplier} for arbitrary {@link Group Groups}
+	 * @throws IllegalArgumentException		if supplier is null
+	 * @see #setSupplier(Supplier)
+	 */
+	public GroupFactory(Supplier<Group<?>> supplier) {
+		setSupplier(supplier);
+	}
 	
 	/**
 	 * <p>Sets the factory object for the creation of {@link Group} 
 	 * instances. The factory must always produce a valid, non-null 
 	 * Group instance.</p>
-	 * @param supplier		a non-null {@link Supplier} for arbitrary {@link Group Groups}
+	 * <p>This should be called before any Groups are created, for example 
+	 * at the beginning of the main method.</p>
+	 * @param supplier						a non-null {@link Supplier} for arbitrary {@link Group Groups}
+	 * @throws IllegalArgumentException		if supplier is null
+	 * @see BufferedGroup
+	 * @see IndexedGroup
 	 */
 	public void setSupplier(Supplier<Group<?>> supplier) {
 		if (supplier == null) {
@@ -64,4 +114,4 @@ public class GroupFactory {
 		return group;
 	}
 	
-}
\ No newline at end of file
+}
@@ -0,0 +1,464 @@
+package edu.udo.cs.swtsf.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * <p>An implementation of {@link Group} which, like the {@link BufferedGroup},
+ * buffers all write operations that happen concurrently during an iteration and
+ * performs them in their original order once all iterations have returned.</p>
+ *
+ * <p>Unlike the BufferedGroup this implementation does not allocate any objects
+ * once its arrays have grown large enough. The buffered write operations are
+ * stored as op-codes in a primitive array. Elements are found with an identity
+ * hash table, which makes {@link #remove(Object)}, {@link #count(Object)} and
+ * {@link #contains(Object)} constant time operations. An element is removed by
+ * moving the last element of the group into its place. Because of this the
+ * order of iteration is not the order of insertion.</p>
+ *
+ * <p>Elements are compared by identity and not with {@link Object#equals(Object)}.</p>
+ *
+ * <p>This implementation can be used for all groups of the framework with:
+ * <pre>
+ * {@code GroupFactory.get().setSupplier(IndexedGroup::new);}
+ * </pre></p>
+ *
+ * @param <E> the element type
+ * @see GroupFactory#setSupplier(java.util.function.Supplier)
+ */
+public class IndexedGroup<E> implements Group<E> {
+
+	private static final byte OP_ADD = 1;
+	private static final byte OP_REMOVE = 2;
+	private static final byte OP_CLEAR = 3;
+	private static final int INITIAL_CAPACITY = 2;
+	private static final int INITIAL_TABLE_CAPACITY = 4;
+
+	/**
+	 * Contains all elements of the group in the slots from 0 to {@link #size}.
+	 */
+	private Object[] elements = new Object[INITIAL_CAPACITY];
+	/**
+	 * For each slot the previous slot holding the same element or -1.
+	 */
+	private int[] prevSame = new int[INITIAL_CAPACITY];
+	/**
+	 * For each slot the next slot holding the same element or -1.
+	 */
+	private int[] nextSame = new int[INITIAL_CAPACITY];
+	private int size;
+	/**
+	 * The keys of an open addressing hash table with linear probing. Each key
+	 * is a distinct element of this group.
+	 * @see #findKey(Object)
+	 */
+	private Object[] tableKeys = new Object[INITIAL_TABLE_CAPACITY];
+	/**
+	 * For each key of the table the first slot holding the element.
+	 */
+	private int[] tableHeads = new int[INITIAL_TABLE_CAPACITY];
+	/**
+	 * For each key of the table the number of slots holding the element.
+	 */
+	private int[] tableCounts = new int[INITIAL_TABLE_CAPACITY];
+	private int keyCount;
+	/**
+	 * The op-codes of all buffered write operations in their original order.
+	 * This is null until the first write operation is buffered.
+	 * @see #OP_ADD
+	 * @see #OP_REMOVE
+	 * @see #OP_CLEAR
+	 */
+	private byte[] pendingOps;
+	/**
+	 * The elements of all buffered write operations.
+	 * @see #pendingOps
+	 */
+	private Object[] pendingElements;
+	private int pendingCount;
+	/**
+	 * Counts ongoing iterations. This variable should never be negative.
+	 * @see #forEach(Consumer)
+	 * @see #forEachTuple(BiConsumer)
+	 */
+	private int iterationCount = 0;
+
+	public boolean add(E element) {
+		if (element == null) {
+			throw new IllegalArgumentException("element == null");
+		}
+		if (iterationCount > 0) {
+			buffer(OP_ADD, element);
+		} else {
+			addNow(element);
+		}
+		return true;
+	}
+
+	public boolean remove(E element) {
+		if (element == null) {
+			throw new IllegalArgumentException("element == null");
+		}
+		if (iterationCount > 0) {
+			buffer(OP_REMOVE, element);
+		} else {
+			removeNow(element);
+		}
+		return true;
+	}
+
+	public void clear() {
+		if (iterationCount > 0) {
+			buffer(OP_CLEAR, null);
+		} else {
+			clearNow();
+		}
+	}
+
+	/**
+	 * Returns the number of times the element is contained without paying
+	 * attention to the buffer.<br>
+	 */
+	public int count(E element) {
+		if (element == null) {
+			throw new IllegalArgumentException("element == null");
+		}
+		int index = findKey(element);
+		return index < 0 ? 0 : tableCounts[index];
+	}
+
+	public boolean contains(E element) {
+		return count(element) > 0;
+	}
+
+	/**
+	 * Returns the current size without paying attention to the buffer.<br>
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEach(Consumer<? super E> consumer) {
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer == null");
+		}
+
+		iterationCount++;
+		try {
+			// Writes are buffered, so neither the array nor the size can change
+			Object[] elements = this.elements;
+			int size = this.size;
+			for (int i = 0; i < size; i++) {
+				consumer.accept((E) elements[i]);
+			}
+		} finally {
+			iterationCount--;
+		}
+
+		// Perform buffered write operations iff this was the last concurrent iteration
+		performBufferedWritesIfPossible();
+	}
+
+	@SuppressWarnings("unchecked")
+	public void forEachTuple(BiConsumer<? super E, ? super E> consumer) {
+		if (consumer == null) {
+			throw new IllegalArgumentException("consumer == null");
+		}
+
+		iterationCount++;
+		try {
+			Object[] elements = this.elements;
+			int size = this.size;
+			for (int i = 0; i < size - 1; i++) {
+				E a = (E) elements[i];
+
+				for (int j = i + 1; j < size; j++) {
+					E b = (E) elements[j];
+
+					consumer.accept(a, b);
+				}
+			}
+		} finally {
+			iterationCount--;
+		}
+
+		// Perform buffered write operations iff this was the last concurrent iteration
+		performBufferedWritesIfPossible();
+	}
+
+	@SuppressWarnings("unchecked")
+	public E getFirstMatch(Predicate<? super E> condition) {
+		if (condition == null) {
+			throw new IllegalArgumentException("condition == null");
+		}
+
+		iterationCount++;
+		E result = null;
+		try {
+			for (int i = 0; i < size; i++) {
+				E element = (E) elements[i];
+				if (condition.test(element)) {
+					result = element;
+					break;
+				}
+			}
+		} finally {
+			iterationCount--;
+		}
+
+		// Perform buffered write operations iff this was the last concurrent iteration
+		performBufferedWritesIfPossible();
+		return result;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Collection<E> getAllMatches(Predicate<? super E> condition) {
+		if (condition == null) {
+			throw new IllegalArgumentException("condition == null");
+		}
+
+		iterationCount++;
+		Collection<E> result = null;
+		E firstMatch = null;
+		try {
+			for (int i = 0; i < size; i++) {
+				E element = (E) elements[i];
+				if (condition.test(element)) {
+					if (firstMatch == null) {
+						firstMatch = element;
+					} else if (result == null) {
+						result = new ArrayList<>();
+						result.add(firstMatch);
+						result.add(element);
+					} else {
+						result.add(element);
+					}
+				}
+			}
+		} finally {
+			iterationCount--;
+		}
+
+		// Perform buffered write operations iff this was the last concurrent iteration
+		performBufferedWritesIfPossible();
+		if (result == null) {
+			if (firstMatch == null) {
+				return Collections.emptyList();
+			} else {
+				return Collections.singleton(firstMatch);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Appends a write operation to the buffer.
+	 */
+	private void buffer(byte op, Object element) {
+		if (pendingOps == null) {
+			pendingOps = new byte[INITIAL_CAPACITY];
+			pendingElements = new Object[INITIAL_CAPACITY];
+		} else if (pendingCount == pendingOps.length) {
+			pendingOps = Arrays.copyOf(pendingOps, pendingCount * 2);
+			pendingElements = Arrays.copyOf(pendingElements, pendingCount * 2);
+		}
+		pendingOps[pendingCount] = op;
+		pendingElements[pendingCount] = element;
+		pendingCount++;
+	}
+
+	/**
+	 * Checks whether there are no more iterations going on. If so,
+	 * performs all buffered write operations and clears the buffer.<br>
+	 */
+	private void performBufferedWritesIfPossible() {
+		if (iterationCount < 0) {
+			throw new IllegalStateException("iterationCount is negative. iterationCount="+iterationCount);
+		}
+		if (iterationCount == 0 && pendingCount > 0) {
+			for (int i = 0; i < pendingCount; i++) {
+				if (pendingOps[i] == OP_ADD) {
+					addNow(pendingElements[i]);
+				} else if (pendingOps[i] == OP_REMOVE) {
+					removeNow(pendingElements[i]);
+				} else {
+					clearNow();
+				}
+				pendingElements[i] = null;
+			}
+			pendingCount = 0;
+		}
+	}
+
+	private void addNow(Object element) {
+		if (size == elements.length) {
+			int capacity = size * 2;
+			elements = Arrays.copyOf(elements, capacity);
+			prevSame = Arrays.copyOf(prevSame, capacity);
+			nextSame = Arrays.copyOf(nextSame, capacity);
+		}
+		int slot = size++;
+		elements[slot] = element;
+
+		int index = findOrInsertKey(element);
+		int head = tableCounts[index] == 0 ? -1 : tableHeads[index];
+		prevSame[slot] = -1;
+		nextSame[slot] = head;
+		if (head >= 0) {
+			prevSame[head] = slot;
+		}
+		tableHeads[index] = slot;
+		tableCounts[index]++;
+	}
+
+	private void clearNow() {
+		Arrays.fill(elements, 0, size, null);
+		Arrays.fill(tableKeys, null);
+		size = 0;
+		keyCount = 0;
+	}
+
+	private void removeNow(Object element) {
+		int index = findKey(element);
+		if (index < 0) {
+			return;
+		}
+		// Unlink the first slot holding the element
+		int slot = tableHeads[index];
+		int next = nextSame[slot];
+		if (next >= 0) {
+			prevSame[next] = -1;
+		}
+		tableHeads[index] = next;
+		if (--tableCounts[index] == 0) {
+			deleteKey(index);
+		}
+		// Move the last element into the free slot
+		int last = --size;
+		if (slot != last) {
+			Object moved = elements[last];
+			elements[slot] = moved;
+			int p = prevSame[last];
+			int n = nextSame[last];
+			prevSame[slot] = p;
+			nextSame[slot] = n;
+			if (p >= 0) {
+				nextSame[p] = slot;
+			} else {
+				tableHeads[findKey(moved)] = slot;
+			}
+			if (n >= 0) {
+				prevSame[n] = slot;
+			}
+		}
+		elements[last] = null;
+	}
+
+	private static int hash(Object element) {
+		int h = System.identityHashCode(element);
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the index of the element within the hash table or -1.
+	 */
+	private int findKey(Object element) {
+		int mask = tableKeys.length - 1;
+		int index = hash(element) & mask;
+		Object key;
+		while ((key = tableKeys[index]) != null) {
+			if (key == element) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the index of the element within the hash table. The element is
+	 * inserted with a count of 0 if it is not yet contained.
+	 */
+	private int findOrInsertKey(Object element) {
+		if ((keyCount + 1) * 2 > tableKeys.length) {
+			rehash(tableKeys.length * 2);
+		}
+		int mask = tableKeys.length - 1;
+		int index = hash(element) & mask;
+		Object key;
+		while ((key = tableKeys[index]) != null) {
+			if (key == element) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		tableKeys[index] = element;
+		tableCounts[index] = 0;
+		keyCount++;
+		return index;
+	}
+
+	/**
+	 * Removes the key at the given index by shifting the following keys of
+	 * the same probe sequence backwards.
+	 */
+	private void deleteKey(int index) {
+		int mask = tableKeys.length - 1;
+		int free = index;
+		int i = index;
+		while (true) {
+			i = (i + 1) & mask;
+			Object key = tableKeys[i];
+			if (key == null) {
+				break;
+			}
+			int home = hash(key) & mask;
+			// The key may only be moved if the free index lies between its home and i
+			boolean movable = free <= i
+					? (home <= free || home > i)
+					: (home <= free && home > i);
+			if (movable) {
+				tableKeys[free] = key;
+				tableHeads[free] = tableHeads[i];
+				tableCounts[free] = tableCounts[i];
+				free = i;
+			}
+		}
+		tableKeys[free] = null;
+		tableCounts[free] = 0;
+		keyCount--;
+	}
+
+	private void rehash(int capacity) {
+		Object[] oldKeys = tableKeys;
+		int[] oldHeads = tableHeads;
+		int[] oldCounts = tableCounts;
+		tableKeys = new Object[capacity];
+		tableHeads = new int[capacity];
+		tableCounts = new int[capacity];
+		int mask = capacity - 1;
+		for (int i = 0; i < oldKeys.length; i++) {
+			Object key = oldKeys[i];
+			if (key != null) {
+				int index = hash(key) & mask;
+				while (tableKeys[index] != null) {
+					index = (index + 1) & mask;
+				}
+				tableKeys[index] = key;
+				tableHeads[index] = oldHeads[i];
+				tableCounts[index] = oldCounts[i];
+			}
+		}
+	}
+
+	public String toString() {
+		return asString();
+	}
+
+}
@@ -0,0 +1,171 @@
+package edu.udo.cs.swtsf.util;
+
+/**
+ * <p>Remembers the most recent samples of a measured value, for example the time
+ * of each update cycle, and computes percentiles over them. Once the window is
+ * full each new sample replaces the oldest one.</p>
+ *
+ * <p>Neither recording a sample nor computing a percentile allocates any memory.
+ * A SampleWindow can therefore be used every frame without affecting the garbage
+ * collector.</p>
+ *
+ * <p>All methods are synchronized so samples may be recorded on one thread while
+ * they are read on another.</p>
+ */
+public class SampleWindow {
+
+	/**
+	 * The number of samples a window holds by default.
+	 */
+	public static final int DEFAULT_CAPACITY = 512;
+
+	private final String name;
+	/**
+	 * A ring buffer of samples. The oldest sample is at {@link #next} once the
+	 * window is full.
+	 */
+	private final long[] samples;
+	/**
+	 * Used to compute percentiles without changing the order of {@link #samples}.
+	 */
+	private final long[] scratch;
+	private int next;
+	private int count;
+
+	/**
+	 * <p>Creates an empty window with the {@link #DEFAULT_CAPACITY default capacity}.</p>
+	 * @param name							a non-null name used to identify the samples
+	 * @throws IllegalArgumentException		if name is null
+	 */
+	public SampleWindow(String name) {
+		this(name, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * <p>Creates an empty window which holds up to capacity samples.</p>
+	 * @param name							a non-null name used to identify the samples
+	 * @param capacity						a positive number
+	 * @throws IllegalArgumentException		if name is null or capacity is less than 1
+	 */
+	public SampleWindow(String name, int capacity) {
+		if (name == null) {
+			throw new IllegalArgumentException("name == null");
+		}
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity < 1");
+		}
+		this.name = name;
+		samples = new long[capacity];
+		scratch = new long[capacity];
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getCapacity() {
+		return samples.length;
+	}
+
+	/**
+	 * <p>Adds a sample to this window. If the window is full the oldest sample is
+	 * dropped.</p>
+	 * @param value		the measured value
+	 */
+	public synchronized void record(long value) {
+		samples[next] = value;
+		next = (next + 1) % samples.length;
+		if (count < samples.length) {
+			count++;
+		}
+	}
+
+	/**
+	 * <p>Returns the number of samples currently held by this window.</p>
+	 * @return		a number from 0 to {@link #getCapacity()}
+	 */
+	public synchronized int getSampleCount() {
+		return count;
+	}
+
+	/**
+	 * <p>Returns the sample at the given index. The oldest sample has the index 0.</p>
+	 * @param index								a number from 0 (inclusive) to
+	 * 											{@link #getSampleCount()} (exclusive)
+	 * @return									the sample at index
+	 * @throws IndexOutOfBoundsException		if index is out of bounds
+	 */
+	public synchronized long getSample(int index) {
+		if (index < 0 || index >= count) {
+			throw new IndexOutOfBoundsException("index="+index+", count="+count);
+		}
+		int oldest = count < samples.length ? 0 : next;
+		return samples[(oldest + index) % samples.length];
+	}
+
+	/**
+	 * <p>Returns the given percentile of all samples in this window using the
+	 * nearest-rank method. The 50th percentile is the median, the 100th percentile
+	 * is the largest sample. Returns 0 if this window is empty.</p>
+	 * @param percent						a number from 0 to 100
+	 * @return								a sample of this window or 0
+	 * @throws IllegalArgumentException		if percent is not between 0 and 100
+	 */
+	public synchronized long getPercentile(double percent) {
+		if (!(percent >= 0 && percent <= 100)) {
+			throw new IllegalArgumentException("percent="+percent);
+		}
+		if (count == 0) {
+			return 0;
+		}
+		int rank = (int) Math.ceil(percent / 100 * count);
+		System.arraycopy(samples, 0, scratch, 0, count);
+		return select(scratch, count, Math.max(rank - 1, 0));
+	}
+
+	/**
+	 * <p>Removes all samples from this window.</p>
+	 */
+	public synchronized void clear() {
+		next = 0;
+		count = 0;
+	}
+
+	/*
+	 * Returns the k-th smallest of the first n values of the array. The array is
+	 * partially reordered in place.
+	 */
+	private static long select(long[] values, int n, int k) {
+		int lo = 0;
+		int hi = n - 1;
+		while (lo < hi) {
+			long pivot = values[(lo + hi) >>> 1];
+			int i = lo;
+			int j = hi;
+			while (i <= j) {
+				while (values[i] < pivot) {
+					i++;
+				}
+				while (values[j] > pivot) {
+					j--;
+				}
+				if (i <= j) {
+					long tmp = values[i];
+					values[i] = values[j];
+					values[j] = tmp;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j) {
+				hi = j;
+			} else if (k >= i) {
+				lo = i;
+			} else {
+				return values[k];
+			}
+		}
+		return values[k];
+	}
+
+}
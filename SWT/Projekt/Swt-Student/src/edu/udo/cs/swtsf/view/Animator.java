@@ -25,4 +25,21 @@ public interface Animator {
 	public void updateAnimation(GraphicalElement element, 
 			long millisSinceLastUpdate);
 	
+	/**
+	 * <p>Returns how many milliseconds may pass before 
+	 * {@link #updateAnimation(GraphicalElement, long)} needs to be called again for 
+	 * the given {@link GraphicalElement}. The {@link ViewManager} may skip updates 
+	 * until then. The next update is given the total time since the last update.</p>
+	 * <p>A positive delay must only be returned if the animation does not change 
+	 * before the delay has passed, no matter what happens in the game. By default 
+	 * this method returns 0, which means the Animator is updated periodically.</p>
+	 * <p>This method is called right after each update and when the Animator is 
+	 * attached to an element which is part of a view.</p>
+	 * @param element		a GraphicalElement this Animator is attached to
+	 * @return				the delay in milliseconds or 0 to be updated periodically
+	 */
+	public default long getMillisUntilNextUpdate(GraphicalElement element) {
+		return 0;
+	}
+	
 }
\ No newline at end of file
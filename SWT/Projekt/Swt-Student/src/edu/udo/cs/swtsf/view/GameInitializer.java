@@ -23,7 +23,9 @@ public interface GameInitializer {
 	 * {@link ViewManager#setFactoryForClass(Class, GraphicalElementFactory) setup} 
 	 * {@link GraphicalElementFactory factories} for game {@link Entity entities} 
 	 * or to {@link ViewManager#addHudElement(HudElement) define} 
-	 * {@link HudElement HudElements}.</p>
+	 * {@link HudElement HudElements}. The images needed by the game can be 
+	 * {@link ViewManager#preloadImages(java.util.Collection) declared} here so 
+	 * they are loaded in the background.</p>
 	 * <p>The {@link Game} itself does not yet exist when this method is called and 
 	 * can not be modified at this point in time.</p>
 	 * @param view		a non-null instance of ViewManager
@@ -34,6 +36,7 @@ public interface GameInitializer {
 	 * @see ViewManager#setBackgroundImagePath(String)
 	 * @see ViewManager#addHudElement(HudElement)
 	 * @see ViewManager#setFactoryForClass(Class, GraphicalElementFactory)
+	 * @see ViewManager#preloadImages(java.util.Collection)
 	 */
 	public void beforeGameStart(ViewManager view);
 	
@@ -0,0 +1,132 @@
+package edu.udo.cs.swtsf.view;
+
+import edu.udo.cs.swtsf.core.Entity;
+import edu.udo.cs.swtsf.core.Game;
+
+/**
+ * <p>A {@link ViewManager} which does not display anything. It is used to run a
+ * {@link Game} without a user interface, for example to
+ * {@link edu.udo.cs.swtsf.core.InputReplay replay} a recorded game as fast as
+ * possible.</p>
+ *
+ * <p>The camera has a fixed size and only moves when it is told to. Texts and
+ * particles are ignored. The sprites created by this view are never displayed and
+ * do not follow their {@link Entity}.</p>
+ *
+ * @see #startGame(GameInitializer, long)
+ */
+public class HeadlessViewManager extends ViewManager {
+
+	private final double cameraWidth;
+	private final double cameraHeight;
+	private double cameraX;
+	private double cameraY;
+	private Game game;
+
+	/**
+	 * Creates a view whose camera has the given size.
+	 * @param cameraWidth					a positive width
+	 * @param cameraHeight					a positive height
+	 * @throws IllegalArgumentException		if either size is not positive
+	 */
+	public HeadlessViewManager(double cameraWidth, double cameraHeight) {
+		if (!(cameraWidth > 0)) {
+			throw new IllegalArgumentException("cameraWidth="+cameraWidth);
+		}
+		if (!(cameraHeight > 0)) {
+			throw new IllegalArgumentException("cameraHeight="+cameraHeight);
+		}
+		this.cameraWidth = cameraWidth;
+		this.cameraHeight = cameraHeight;
+	}
+
+	/**
+	 * <p>Creates a {@link Game} with the given seed and sets it up with the given
+	 * {@link GameInitializer} in the same way the game is set up when it is
+	 * played.</p>
+	 * @param initializer					a non-null GameInitializer
+	 * @param seed							the seed of the {@link Game#getRandom() random numbers}
+	 * @return								the new Game. It has not been updated yet.
+	 * @throws IllegalArgumentException		if initializer is null
+	 * @throws IllegalStateException		if a game was already started
+	 */
+	public Game startGame(GameInitializer initializer, long seed) {
+		if (initializer == null) {
+			throw new IllegalArgumentException("initializer == null");
+		}
+		if (game != null) {
+			throw new IllegalStateException("game != null");
+		}
+		initializer.beforeGameStart(this);
+		game = new Game(playerFactory, seed);
+		game.setEntityEventsBatched(true);
+		initializer.atGameStart(this, game);
+		return game;
+	}
+
+	protected Game getGame() {
+		return game;
+	}
+
+	public void setCameraCenter(double offsetX, double offsetY) {
+		cameraX = offsetX;
+		cameraY = offsetY;
+	}
+
+	public double getCameraCenterX() {
+		return cameraX;
+	}
+
+	public double getCameraCenterY() {
+		return cameraY;
+	}
+
+	public double getCameraWidth() {
+		return cameraWidth;
+	}
+
+	public double getCameraHeight() {
+		return cameraHeight;
+	}
+
+	public void showText(String text, int timeInSeconds, RgbColor color) {
+		if (text == null) {
+			throw new IllegalArgumentException("text == null");
+		}
+		if (color == null) {
+			throw new IllegalArgumentException("color == null");
+		}
+		if (timeInSeconds <= 0) {
+			throw new IllegalArgumentException("timeInSeconds <= 0");
+		}
+	}
+
+	public void emitParticle(ParticleEffect effect,
+			double x, double y, double rotation, double scale)
+	{
+		if (effect == null) {
+			throw new IllegalArgumentException("effect == null");
+		}
+	}
+
+	public Sprite newSprite() {
+		return new HeadlessSprite();
+	}
+
+	public Sprite newEntitySprite(Entity entity) {
+		return new HeadlessSprite();
+	}
+
+	public SpriteSet newSpriteSet() {
+		return new HeadlessSpriteSet();
+	}
+
+	public SpriteSet newEntitySpriteSet(Entity entity) {
+		return new HeadlessSpriteSet();
+	}
+
+	private static class HeadlessSprite extends Sprite {}
+
+	private static class HeadlessSpriteSet extends SpriteSet {}
+
+}
@@ -29,6 +29,11 @@ public class HudElement {
 	private int cutoutY;
 	private int cutoutWidth;
 	private int cutoutHeight;
+	/**
+	 * The {@link ViewManager} which currently displays this element or null.
+	 * @see #fireChanged()
+	 */
+	private ViewManager viewManager;
 	
 	/**
 	 * <p>Constructs a new {@link HudElement} with default values.</p>
@@ -73,7 +78,10 @@ public class HudElement {
 		if (value == null) {
 			throw new IllegalArgumentException("value == null");
 		}
-		text = value;
+		if (!text.equals(value)) {
+			text = value;
+			fireChanged();
+		}
 	}
 	
 	/**
@@ -94,7 +102,10 @@ public class HudElement {
 		if (value == null) {
 			throw new IllegalArgumentException("value == null");
 		}
-		orientation = value;
+		if (orientation != value) {
+			orientation = value;
+			fireChanged();
+		}
 	}
 	
 	/**
@@ -123,7 +134,10 @@ public class HudElement {
 		if (value == null) {
 			throw new IllegalArgumentException("value == null");
 		}
-		imagePath = value;
+		if (!value.equals(imagePath)) {
+			imagePath = value;
+			fireChanged();
+		}
 	}
 	
 	/**
@@ -186,7 +200,10 @@ public class HudElement {
 		if (value < 0) {
 			throw new IllegalArgumentException("value < 0");
 		}
-		cutoutX = value;
+		if (cutoutX != value) {
+			cutoutX = value;
+			fireChanged();
+		}
 	}
 	
 	/**
@@ -222,7 +239,10 @@ public class HudElement {
 		if (value < 0) {
 			throw new IllegalArgumentException("value < 0");
 		}
-		cutoutY = value;
+		if (cutoutY != value) {
+			cutoutY = value;
+			fireChanged();
+		}
 	}
 	
 	/**
@@ -258,7 +278,10 @@ public class HudElement {
 		if (value < 1) {
 			throw new IllegalArgumentException("value < 1");
 		}
-		cutoutWidth = value;
+		if (cutoutWidth != value) {
+			cutoutWidth = value;
+			fireChanged();
+		}
 	}
 	
 	/**
@@ -294,7 +317,10 @@ public class HudElement {
 		if (value < 1) {
 			throw new IllegalArgumentException("value < 1");
 		}
-		cutoutHeight = value;
+		if (cutoutHeight != value) {
+			cutoutHeight = value;
+			fireChanged();
+		}
 	}
 	
 	/**
@@ -327,6 +353,28 @@ public class HudElement {
 	 */
 	protected void afterAdded(ViewManager view, Game game) {}
 	
+	/**
+	 * <p>Sets the {@link ViewManager} which displays this {@link HudElement}. This method 
+	 * is called by the ViewManager when this element is added or removed.</p>
+	 * @param view		a ViewManager or null
+	 * @see ViewManager#addHudElement(HudElement)
+	 * @see ViewManager#removeHudElement(HudElement)
+	 */
+	void setViewManager(ViewManager view) {
+		viewManager = view;
+	}
+	
+	/**
+	 * <p>Tells the {@link ViewManager} which displays this {@link HudElement} that the 
+	 * text, orientation, image path or cutout of this element have changed.</p>
+	 * @see ViewManager#onHudElementChanged(HudElement)
+	 */
+	protected void fireChanged() {
+		if (viewManager != null) {
+			viewManager.onHudElementChanged(this);
+		}
+	}
+	
 	/**
 	 * <p>This method is called by the {@link ViewManager} right after this {@link HudElement} 
 	 * has been {@link ViewManager#removeHudElement(HudElement) removed} from the view. The arguments 
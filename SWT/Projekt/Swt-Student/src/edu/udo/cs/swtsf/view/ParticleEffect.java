@@ -0,0 +1,114 @@
+package edu.udo.cs.swtsf.view;
+
+/**
+ * <p>Describes a short animation which is played exactly once at a fixed position,
+ * for example a puff of smoke or an explosion. Particles are much cheaper than
+ * {@link Sprite Sprites} with an {@link Animator} because the {@link ViewManager}
+ * does not need to create any objects for them.</p>
+ *
+ * <p>The frames of the animation are placed next to each other from left to right
+ * within a single image. The first frame is shown for the start delay. Afterwards
+ * each frame is shown for the same amount of time. The particle disappears after
+ * the last frame.</p>
+ *
+ * <p>A ParticleEffect is immutable and can be shared by any number of particles.</p>
+ *
+ * @see ViewManager#emitParticle(ParticleEffect, double, double, double, double)
+ */
+public class ParticleEffect {
+
+	private final String imagePath;
+	private final int cutoutWidth;
+	private final int cutoutHeight;
+	private final int frameCount;
+	private final int millisPerFrame;
+	private final int startDelay;
+
+	/**
+	 * <p>Creates a new {@link ParticleEffect}.</p>
+	 * @param imagePath						the path of the image as used by
+	 * 										{@link Sprite#setImagePath(String)}. Not null.
+	 * @param cutoutWidth					the width of each frame in pixels
+	 * @param cutoutHeight					the height of each frame in pixels
+	 * @param frameCount					the number of frames
+	 * @param millisPerFrame				the time each frame is shown in milliseconds
+	 * @param startDelay					the time the first frame is shown before the
+	 * 										animation starts in milliseconds
+	 * @throws IllegalArgumentException		if imagePath is null, startDelay is negative
+	 * 										or any other value is less than 1
+	 */
+	public ParticleEffect(String imagePath, int cutoutWidth, int cutoutHeight,
+			int frameCount, int millisPerFrame, int startDelay)
+	{
+		if (imagePath == null) {
+			throw new IllegalArgumentException("imagePath == null");
+		}
+		if (cutoutWidth < 1) {
+			throw new IllegalArgumentException("cutoutWidth < 1");
+		}
+		if (cutoutHeight < 1) {
+			throw new IllegalArgumentException("cutoutHeight < 1");
+		}
+		if (frameCount < 1) {
+			throw new IllegalArgumentException("frameCount < 1");
+		}
+		if (millisPerFrame < 1) {
+			throw new IllegalArgumentException("millisPerFrame < 1");
+		}
+		if (startDelay < 0) {
+			throw new IllegalArgumentException("startDelay < 0");
+		}
+		this.imagePath = imagePath;
+		this.cutoutWidth = cutoutWidth;
+		this.cutoutHeight = cutoutHeight;
+		this.frameCount = frameCount;
+		this.millisPerFrame = millisPerFrame;
+		this.startDelay = startDelay;
+	}
+
+	public String getImagePath() {
+		return imagePath;
+	}
+
+	public int getImageCutoutWidth() {
+		return cutoutWidth;
+	}
+
+	public int getImageCutoutHeight() {
+		return cutoutHeight;
+	}
+
+	public int getFrameCount() {
+		return frameCount;
+	}
+
+	public int getMillisPerFrame() {
+		return millisPerFrame;
+	}
+
+	public int getStartDelay() {
+		return startDelay;
+	}
+
+	/**
+	 * <p>Returns the time from the creation of a particle until it disappears.</p>
+	 * @return		the life time in milliseconds
+	 */
+	public long getLifeTime() {
+		return startDelay + (long) frameCount * millisPerFrame;
+	}
+
+	/**
+	 * <p>Returns the index of the frame which is shown at the given age.</p>
+	 * @param age		the time since the creation of a particle in milliseconds.
+	 * 					Less than {@link #getLifeTime()}.
+	 * @return			a frame index from 0 (inclusive) to {@link #getFrameCount()} (exclusive)
+	 */
+	public int getFrameAt(long age) {
+		if (age < startDelay) {
+			return 0;
+		}
+		return (int) Math.min((age - startDelay) / millisPerFrame, frameCount - 1);
+	}
+
+}
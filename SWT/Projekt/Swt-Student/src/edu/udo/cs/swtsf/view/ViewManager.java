@@ -2,6 +2,7 @@ package edu.udo.cs.swtsf.view;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
@@ -10,6 +11,8 @@ import java.util.function.Supplier;
 
 import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.Game;
+import edu.udo.cs.swtsf.core.GameLoop;
+import edu.udo.cs.swtsf.core.GameLoopListener;
 import edu.udo.cs.swtsf.core.player.Player;
 
 public abstract class ViewManager {
@@ -38,6 +41,12 @@ public abstract class ViewManager {
 	 * Used to create the {@link Player} of the {@link Game} the moment the game is started.
 	 */
 	protected Supplier<? extends Player> playerFactory;
+	/**
+	 * The fraction of an update cycle which has passed since the last update cycle.
+	 * @see #setInterpolationAlpha(double)
+	 * @see #getInterpolationAlpha()
+	 */
+	protected double interpolationAlpha;
 	
 	/**
 	 * <p>Changes the position of the camera so that the given point is in the center of 
@@ -107,6 +116,34 @@ public abstract class ViewManager {
 		return getCameraCenterY() + getCameraHeight() / 2;
 	}
 	
+	/**
+	 * <p>Sets the fraction of an update cycle which has passed since the last update 
+	 * cycle of the {@link Game} at the time the next frame is rendered. This is set 
+	 * by the {@link GameLoop} once per frame.</p>
+	 * <p>Implementations may use this value to interpolate the positions of moving 
+	 * graphical elements in between two update cycles.</p>
+	 * @param value							a value from 0 (inclusive) to 1 (exclusive)
+	 * @throws IllegalArgumentException		if value is outside of this range
+	 * @see #getInterpolationAlpha()
+	 * @see GameLoopListener#onFrame(GameLoop, double, long)
+	 */
+	public void setInterpolationAlpha(double value) {
+		if (!(value >= 0 && value < 1)) {
+			throw new IllegalArgumentException("value="+value);
+		}
+		interpolationAlpha = value;
+	}
+	
+	/**
+	 * <p>Returns the fraction of an update cycle which has passed since the last 
+	 * update cycle of the {@link Game}.</p>
+	 * @return		a value from 0 (inclusive) to 1 (exclusive)
+	 * @see #setInterpolationAlpha(double)
+	 */
+	public double getInterpolationAlpha() {
+		return interpolationAlpha;
+	}
+	
 	/**
 	 * <p>Displays a text with a given color across the center of the screen 
 	 * for a certain time.</p>
@@ -121,6 +158,23 @@ public abstract class ViewManager {
 	 */
 	public abstract void showText(String text, int timeInSeconds, RgbColor color);
 	
+	/**
+	 * <p>Plays a {@link ParticleEffect} once at the given position in game coordinates. 
+	 * The particle does not move and disappears on its own after its 
+	 * {@link ParticleEffect#getLifeTime() life time}.</p>
+	 * <p>Particles are displayed above all other graphical elements. A ViewManager 
+	 * may drop particles if too many are shown at the same time.</p>
+	 * @param effect						a non-null ParticleEffect
+	 * @param x								the X-coordinate of the center of the particle
+	 * @param y								the Y-coordinate of the center of the particle
+	 * @param rotation						the rotation of the particle in degrees as 
+	 * 										used by {@link GraphicalElement#setRotation(double)}
+	 * @param scale							the scale of the particle
+	 * @throws IllegalArgumentException		if effect is null
+	 */
+	public abstract void emitParticle(ParticleEffect effect, 
+			double x, double y, double rotation, double scale);
+	
 	/**
 	 * <p>Creates and returns a new instance of {@link Sprite} which is compatible 
 	 * with this {@link ViewManager}. The Sprite has not yet been added to this 
@@ -342,6 +396,35 @@ public abstract class ViewManager {
 		return bgImgPath;
 	}
 	
+	/**
+	 * <p>Declares images which will be needed by the game. The images are loaded in 
+	 * the background so they do not have to be loaded while the game is running. The 
+	 * paths use the same notation as {@link #setBackgroundImagePath(String)}.</p>
+	 * <p>This method should be called by {@link GameInitializer#beforeGameStart(ViewManager)}. 
+	 * Images which are not declared are loaded when they are first needed.</p>
+	 * @param imgPaths						a non-null collection of non-null path Strings
+	 * @throws IllegalArgumentException		if imgPaths is null or contains null
+	 * @see #preloadImagesInternal(Collection)
+	 */
+	public void preloadImages(Collection<String> imgPaths) {
+		if (imgPaths == null) {
+			throw new IllegalArgumentException("imgPaths == null");
+		}
+		if (imgPaths.contains(null)) {
+			throw new IllegalArgumentException("imgPaths.contains(null)");
+		}
+		preloadImagesInternal(imgPaths);
+	}
+	
+	/**
+	 * <p>This method is implemented by the concrete {@link ViewManager} implementations. 
+	 * They may use it to start loading the images.</p>
+	 * <p>This method is called by {@link #preloadImages(Collection)}.</p>
+	 * @param imgPaths		a non-null collection of non-null path Strings
+	 * @see #preloadImages(Collection)
+	 */
+	protected void preloadImagesInternal(Collection<String> imgPaths) {}
+	
 	/**
 	 * <p>Moves the games camera so that the given {@link Entity} is visible 
 	 * on screen. The camera may not need to move depending on its position 
@@ -409,6 +492,7 @@ public abstract class ViewManager {
 			throw new IllegalArgumentException("element == null");
 		}
 		hudList.add(element);
+		element.setViewManager(this);
 		addHudElementInternal(element);
 		element.afterAdded(this, getGame());
 	}
@@ -439,6 +523,7 @@ public abstract class ViewManager {
 			throw new IllegalArgumentException("element == null");
 		}
 		hudList.remove(element);
+		element.setViewManager(null);
 		removeHudElementInternal(element);
 		element.afterRemoved(this, getGame());
 	}
@@ -454,6 +539,16 @@ public abstract class ViewManager {
 	 */
 	protected void removeHudElementInternal(HudElement element) {}
 	
+	/**
+	 * <p>This method is implemented by the concrete {@link ViewManager} implementations. 
+	 * They may use it to repaint the HUD only when it has changed.</p>
+	 * <p>This method is called by a {@link HudElement} of this view whenever its text, 
+	 * orientation, image path or image cutout has changed.</p>
+	 * @param element		the changed HudElement
+	 * @see #addHudElement(HudElement)
+	 */
+	protected void onHudElementChanged(HudElement element) {}
+	
 	/**
 	 * <p>Creates a new immutable {@link List} of all {@link HudElement HudElements}
 	 * in the view and returns it. No assumptions should be made about the type of 
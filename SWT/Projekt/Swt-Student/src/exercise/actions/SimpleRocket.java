@@ -5,6 +5,9 @@ import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.EntityBehaviorStrategy;
 import edu.udo.cs.swtsf.core.Game;
 import edu.udo.cs.swtsf.core.GameKey;
+import edu.udo.cs.swtsf.core.SnapshotDecoder;
+import edu.udo.cs.swtsf.core.SnapshotEncoder;
+import edu.udo.cs.swtsf.core.Snapshotable;
 import edu.udo.cs.swtsf.core.Target;
 import edu.udo.cs.swtsf.core.player.Player;
 import edu.udo.cs.swtsf.view.GraphicalElementFactory;
@@ -12,7 +15,7 @@ import edu.udo.cs.swtsf.view.Sprite;
 import exercise.pickups.PickUpRocket;
 import exercise.starfighter.Explosion;
 
-public class SimpleRocket implements EntityBehaviorStrategy {
+public class SimpleRocket implements EntityBehaviorStrategy, Snapshotable {
 	
 	// The minimum time you have to wait in between two uses of the Rocket
 	public static final int COOLDOWN = 50;
@@ -56,6 +59,15 @@ public class SimpleRocket implements EntityBehaviorStrategy {
 		}
 	}
 	
+	// The cooldown is part of a snapshot of the game
+	public void writeSnapshot(SnapshotEncoder out) {
+		out.putInt(coolDownTimer);
+	}
+	
+	public void readSnapshot(SnapshotDecoder in) {
+		coolDownTimer = in.getInt();
+	}
+	
 	// The Rocket implementation as a Bullet
 	public static class Rocket extends Bullet {
 		
@@ -85,7 +97,8 @@ public class SimpleRocket implements EntityBehaviorStrategy {
 					
 					// This Explosion entity is purely cosmetic. It is used to create 
 					// the visual representation of an Explosion on screen.
-					Explosion expl = new Explosion(EXPLOSION_RADIUS * 2);
+					Explosion expl = Explosion.obtain(game);
+					expl.setSize(EXPLOSION_RADIUS * 2);
 					expl.setPosition(rocket);
 					game.addEntity(expl);
 					
@@ -1,8 +1,11 @@
 package exercise.monsters;
 
 import edu.udo.cs.swtsf.core.Entity;
-import edu.udo.cs.swtsf.core.EntityBehaviorStrategy;
 import edu.udo.cs.swtsf.core.EntityCollisionStrategy;
+import edu.udo.cs.swtsf.core.ParallelEntityBehaviorStrategy;
+import edu.udo.cs.swtsf.core.SnapshotDecoder;
+import edu.udo.cs.swtsf.core.SnapshotEncoder;
+import edu.udo.cs.swtsf.core.Snapshotable;
 import edu.udo.cs.swtsf.core.Target;
 import edu.udo.cs.swtsf.core.player.Player;
 
@@ -22,6 +25,8 @@ public class AbstractMonster extends Target {
 	
 	{
 		setSize(32);
+		// monsters only need to know about collisions with the player
+		setCollisionMask(createCollisionMask(COLLISION_LAYER_PLAYER));
 	}
 	
 	protected void addDefaultStrategies() {
@@ -48,9 +53,12 @@ public class AbstractMonster extends Target {
 	 * is used to be notified of collisions and deal damage. The BehaviorStrategy is 
 	 * needed to count the time in between collisions to give the player a little bit of 
 	 * time to get away before more damage is dealt.
+	 * 
+	 * The BehaviorStrategy only changes the timer of the host and can therefore be 
+	 * used in parallel updates.
 	 */
 	public class DamagePlayerOnCollision 
-		implements EntityCollisionStrategy, EntityBehaviorStrategy 
+		implements EntityCollisionStrategy, ParallelEntityBehaviorStrategy, Snapshotable 
 	{
 		// counts down the time until damage can be dealt again
 		private int damageTimer;
@@ -73,6 +81,15 @@ public class AbstractMonster extends Target {
 				}
 			}
 		}
+		
+		// The timer is part of a snapshot of the game
+		public void writeSnapshot(SnapshotEncoder out) {
+			out.putInt(damageTimer);
+		}
+		
+		public void readSnapshot(SnapshotDecoder in) {
+			damageTimer = in.getInt();
+		}
 	}
 	
 	/*
@@ -83,8 +100,11 @@ public class AbstractMonster extends Target {
 	 * the host the host will stop moving momentarily.
 	 * 
 	 * If the player is dead or not set the host will stop. 
+	 * 
+	 * Only the host is changed and only the player is read, so this strategy can be 
+	 * used in parallel updates.
 	 */
-	public class MoveTowardsPlayer implements EntityBehaviorStrategy {
+	public class MoveTowardsPlayer implements ParallelEntityBehaviorStrategy {
 		
 		public void act(Entity self) {
 			// get the player instance
@@ -69,6 +69,11 @@ public class MonsterSpriteFactory implements GraphicalElementFactory {
 			}
 		}
 		
+		public long getMillisUntilNextUpdate(GraphicalElement element) {
+			// The Sprite does not change until the timer runs out
+			return timer;
+		}
+		
 	}
 	
 }
\ No newline at end of file
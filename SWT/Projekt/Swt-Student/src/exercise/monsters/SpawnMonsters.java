@@ -1,5 +1,7 @@
 package exercise.monsters;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -8,6 +10,9 @@ import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.EntityObserver;
 import edu.udo.cs.swtsf.core.Game;
 import edu.udo.cs.swtsf.core.GameScript;
+import edu.udo.cs.swtsf.core.SnapshotDecoder;
+import edu.udo.cs.swtsf.core.SnapshotEncoder;
+import edu.udo.cs.swtsf.core.Snapshotable;
 import edu.udo.cs.swtsf.core.player.Player;
 
 /*
@@ -20,8 +25,11 @@ import edu.udo.cs.swtsf.core.player.Player;
  * The script can be set to spawn only a certain number of monsters 
  * in total. It may call a callback in case all monsters have been 
  * spawned and subsequently removed (killed) from the game.
+ * 
+ * The counters and timers of the script as well as the monsters it is 
+ * waiting for are part of a snapshot of the game.
  */
-public class SpawnMonsters implements GameScript {
+public class SpawnMonsters implements GameScript, Snapshotable {
 	
 	// This observer is added to all monsters created by this script
 	private final EntityObserver monsterObs = new EntityObserver() {
@@ -30,14 +38,12 @@ public class SpawnMonsters implements GameScript {
 			SpawnMonsters.this.onMonsterRemoved(host);
 		}
 	};
-	// Used to generate random numbers for the monster positions
-	private final Random random				= new Random();
 	// Used to generate the monsters to be spawned
 	private Function<Game, Entity> monsterFact		= (game) -> new MonsterEasy();
 	// Called after all monsters in this script have been spawned and removed.
 	private Consumer<Game> afterEffect		= null;
-	// The number of monsters currently in the game
-	private int monstersInGame				= 0;
+	// The monsters spawned by this script which are currently in the game
+	private final List<Entity> monstersInGame	= new ArrayList<>();
 	// The maximum number of monsters that can be spawned
 	private int totalMonsterCount			= 20;
 	// The maximum number of monsters spawned simultaneously
@@ -95,7 +101,7 @@ public class SpawnMonsters implements GameScript {
 		// check if any more monsters are supposed to be spawned
 		if (totalMonsterCount <= 0) {
 			// check if all spawned monsters have already been removed
-			if (monstersInGame <= 0) {
+			if (monstersInGame.isEmpty()) {
 				// remove this script from the game
 				game.removeScript(this);
 				// call the afterEffect if it has been set
@@ -107,14 +113,16 @@ public class SpawnMonsters implements GameScript {
 			return;
 		}
 		// check if we can spawn more monsters
-		if (monstersInGame < maxMonstersInGame) {
+		if (monstersInGame.size() < maxMonstersInGame) {
 			spawnTimer++;
 			// check if the time has come to spawn a monster
 			if (spawnTimer >= spawnInterval) {
 				Player player = game.getPlayer();
 				// generate the random monster location based on the current player position
-				double monsterX = getRandomXNearPlayer(player);
-				double monsterY = getRandomYNearPlayer(player);
+				// the random numbers of the game are used so that a game can be repeated with the same seed
+				Random random = game.getRandom();
+				double monsterX = getRandomXNearPlayer(random, player);
+				double monsterY = getRandomYNearPlayer(random, player);
 				
 				// Create the monster
 				Entity monster = monsterFact.apply(game);
@@ -122,7 +130,7 @@ public class SpawnMonsters implements GameScript {
 				monster.setPosition(monsterX, monsterY);
 				game.addEntity(monster);
 				
-				monstersInGame++;
+				monstersInGame.add(monster);
 				totalMonsterCount--;
 				
 				spawnTimer = 0;
@@ -130,8 +138,8 @@ public class SpawnMonsters implements GameScript {
 		}
 	}
 	
-	private double getRandomXNearPlayer(Player player) {
-		double offset = getRandomOffset(
+	private double getRandomXNearPlayer(Random random, Player player) {
+		double offset = getRandomOffset(random, 
 				spawnMinDistanceToPlayer, 
 				spawnMaxDistanceToPlayer);
 		if (random.nextBoolean()) {
@@ -140,8 +148,8 @@ public class SpawnMonsters implements GameScript {
 		return player.getX() + offset;
 	}
 	
-	private double getRandomYNearPlayer(Player player) {
-		double offset = getRandomOffset(
+	private double getRandomYNearPlayer(Random random, Player player) {
+		double offset = getRandomOffset(random, 
 				spawnMinDistanceToPlayer, 
 				spawnMaxDistanceToPlayer);
 		if (random.nextBoolean()) {
@@ -150,14 +158,49 @@ public class SpawnMonsters implements GameScript {
 		return player.getY() + offset;
 	}
 	
-	private double getRandomOffset(int min, int max) {
+	private double getRandomOffset(Random random, int min, int max) {
 		return min + random.nextInt(max - min + 1);
 	}
 	
 	// called from the monsterObs when a Monster is removed from the game
 	private void onMonsterRemoved(Entity monster) {
 		monster.removeObserver(monsterObs);
-		monstersInGame--;
+		monstersInGame.remove(monster);
+	}
+	
+	public void writeSnapshot(SnapshotEncoder out) {
+		out.putInt(totalMonsterCount);
+		out.putInt(maxMonstersInGame);
+		out.putInt(spawnInterval);
+		out.putInt(spawnTimer);
+		out.putInt(spawnMinDistanceToPlayer);
+		out.putInt(spawnMaxDistanceToPlayer);
+		out.putInt(monstersInGame.size());
+		for (Entity monster : monstersInGame) {
+			out.putEntity(monster);
+		}
+	}
+	
+	public void readSnapshot(SnapshotDecoder in) {
+		totalMonsterCount = in.getInt();
+		maxMonstersInGame = in.getInt();
+		spawnInterval = in.getInt();
+		spawnTimer = in.getInt();
+		spawnMinDistanceToPlayer = in.getInt();
+		spawnMaxDistanceToPlayer = in.getInt();
+		for (Entity monster : monstersInGame) {
+			monster.removeObserver(monsterObs);
+		}
+		monstersInGame.clear();
+		int monsterCount = in.getInt();
+		for (int i = 0; i < monsterCount; i++) {
+			// the monsters of the snapshot are added to the game after this
+			Entity monster = in.getEntity();
+			if (monster != null) {
+				monster.addObserver(monsterObs);
+				monstersInGame.add(monster);
+			}
+		}
 	}
 	
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package exercise.starfighter;
 
 import edu.udo.cs.swtsf.core.Entity;
+import edu.udo.cs.swtsf.core.EntityPool;
+import edu.udo.cs.swtsf.core.Game;
 
 /**
  * Instances of this class are used to display explosions on the screen.
@@ -42,6 +44,21 @@ public class Explosion extends Entity {
 		setVelocity(velocityX, velocityY);
 	}
 	
+	/**
+	 * <p>Returns an explosion with the default size. The explosion is taken from the 
+	 * {@link Game#getEntityPool(Class) pool} of the game if there is one. Otherwise a 
+	 * new explosion is created.</p>
+	 * @param game		the game the explosion will be added to
+	 * @return			a non-null Explosion
+	 */
+	public static Explosion obtain(Game game) {
+		EntityPool<Explosion> pool = game == null ? null : game.getEntityPool(Explosion.class);
+		if (pool == null) {
+			return new Explosion();
+		}
+		return pool.acquire();
+	}
+	
 	/**
 	 * Always returns true. An explosion is not meant to last.
 	 */
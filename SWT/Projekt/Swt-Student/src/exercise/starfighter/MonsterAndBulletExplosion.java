@@ -20,7 +20,7 @@ public class MonsterAndBulletExplosion implements GameObserver {
 		// if the removed Entity is a Target (<- Monster) or a Bullet
 		if (entity instanceof Target || entity instanceof BasicBullet) {
 			// Create an explosion and set its size and position
-			Explosion expl = new Explosion();
+			Explosion expl = Explosion.obtain(game);
 			expl.setSize(entity);
 			expl.setPosition(entity);
 			// Add the explosion to the game
@@ -3,10 +3,13 @@ package exercise.starfighter;
 import edu.udo.cs.swtsf.core.Entity;
 import edu.udo.cs.swtsf.core.EntityBehaviorStrategy;
 import edu.udo.cs.swtsf.core.Game;
+import edu.udo.cs.swtsf.core.SnapshotDecoder;
+import edu.udo.cs.swtsf.core.SnapshotEncoder;
+import edu.udo.cs.swtsf.core.Snapshotable;
 import edu.udo.cs.swtsf.core.player.Player;
 import edu.udo.cs.swtsf.view.RgbColor;
 
-public class PlayerSpaceBoundary implements EntityBehaviorStrategy {
+public class PlayerSpaceBoundary implements EntityBehaviorStrategy, Snapshotable {
 	
 	public final double DISTANCE_FIRST_WARNING = 2500;
 	public final double DISTANCE_SECOND_WARNING = 3000;
@@ -22,7 +25,8 @@ public class PlayerSpaceBoundary implements EntityBehaviorStrategy {
 		double distanceToOrigin = host.getDistanceTo(0, 0);
 		if (distanceToOrigin > DISTANCE_KILL) {
 			((Player) host).destroy();
-			Explosion explosion = new Explosion(64);
+			Explosion explosion = Explosion.obtain(host.getCurrentGame());
+			explosion.setSize(64);
 			explosion.setPosition(host);
 			host.getCurrentGame().addEntity(explosion);
 		}
@@ -45,4 +49,12 @@ public class PlayerSpaceBoundary implements EntityBehaviorStrategy {
 		}
 	}
 	
+	public void writeSnapshot(SnapshotEncoder out) {
+		out.putInt(warningWaitTimer);
+	}
+	
+	public void readSnapshot(SnapshotDecoder in) {
+		warningWaitTimer = in.getInt();
+	}
+	
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package exercise.starfighter;
 
+import java.util.Arrays;
+
+import edu.udo.cs.swtsf.core.EntityPool;
 import edu.udo.cs.swtsf.core.Game;
+import edu.udo.cs.swtsf.core.GameSnapshot;
 import edu.udo.cs.swtsf.core.player.BasicBullet;
 import edu.udo.cs.swtsf.core.player.Player;
 import edu.udo.cs.swtsf.core.player.PlayerLaserSpriteFactory;
@@ -26,6 +30,12 @@ public class SwtStarFighter implements GameInitializer {
 	
 	public void beforeGameStart(ViewManager view) {
 		view.setBackgroundImagePath("SpaceBackground");
+		// Loads all images of the game in the background before they are needed
+		view.preloadImages(Arrays.asList(
+				"SpaceBackground", "Player", "PlayerBooster", "PuffOfSmoke", 
+				"BulletRed", "Explosion", "Rocket", "Monsters/GreenMonster", 
+				"PickUps/LifePickUp", "PickUps/RocketPickUp", "PickUps/DamagePickUp", 
+				"HUD/Score", "HUD/PlayerLife", "HUD/PickUpRocket", "HUD/LaserUpgradeDamage"));
 		
 		view.setFactoryForClass(Player.class, 
 				new PlayerSpriteFactory());
@@ -75,6 +85,11 @@ public class SwtStarFighter implements GameInitializer {
 		// This is not technically needed but quite useful for overall game difficulty
 		player.addBehaviorStrategy(new PlayerSpaceBoundary());
 		
+		// Bullets and explosions are created and removed all the time during a fight. 
+		// These pools allow the game to use them again instead of creating new ones.
+		game.setEntityPool(BasicBullet.class, BasicBullet.createPool(EntityPool.DEFAULT_CAPACITY));
+		game.setEntityPool(Explosion.class, new EntityPool<>(Explosion::new));
+		
 		// Adds a script to the game which will display an explosion whenever a target or a bullet is 
 		// destroyed in the game
 		game.addObserver(new MonsterAndBulletExplosion());
@@ -92,4 +107,24 @@ public class SwtStarFighter implements GameInitializer {
 		game.getPlayer().addPlayerObserver(spawnPickUps);
 	}
 	
+	/*
+	 * Creates a GameSnapshot which can save and restore games set up by this class. 
+	 * All Entities, LaserUpgrades and scripts which are created during the game are 
+	 * registered here. A snapshot is restored into a new game set up by this class.
+	 */
+	public static GameSnapshot createGameSnapshot() {
+		GameSnapshot snapshot = new GameSnapshot();
+		snapshot.registerEntity(MonsterEasy.class, g -> new MonsterEasy());
+		snapshot.registerEntity(PickUpLife.class, g -> new PickUpLife());
+		snapshot.registerEntity(PickUpRocket.class, g -> new PickUpRocket());
+		snapshot.registerEntity(PickUpDamage.class, g -> new PickUpDamage());
+		// The source of both is read from the snapshot
+		snapshot.registerEntity(BasicBullet.class, g -> BasicBullet.obtain(g.getPlayer()));
+		snapshot.registerEntity(SimpleRocket.Rocket.class, g -> new SimpleRocket.Rocket(g.getPlayer()));
+		snapshot.registerType(LaserUpgradeDamage.class, LaserUpgradeDamage::new);
+		snapshot.registerType(Stage1.class, Stage1::new);
+		snapshot.registerType(Stage2.class, Stage2::new);
+		return snapshot;
+	}
+	
 }
\ No newline at end of file